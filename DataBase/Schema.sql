@@ -2,7 +2,7 @@ CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
 
 CREATE TYPE user_role AS ENUM ('ADMIN', 'USER');
 CREATE TYPE transaction_status AS ENUM ('PENDING', 'COMPLETED', 'FAILED');
-CREATE TYPE transaction_type AS ENUM ('DEPOSIT', 'WITHDRAWAL', 'PURCHASE', 'REFUND');
+CREATE TYPE transaction_type AS ENUM ('DEPOSIT', 'WITHDRAWAL', 'PURCHASE', 'REFUND', 'ADJUSTMENT');
 CREATE TYPE order_status AS ENUM ('PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'REFUNDED');
 CREATE TYPE attachment_type AS ENUM ('IMAGE', 'VIDEO');
 
@@ -58,24 +58,30 @@ CREATE TABLE wallets (
 );
 
 -- Index đã được tạo bởi UNIQUE constraint trên user_id
+-- Đối soát tăng dần chỉ quét các ví có updated_at sau checkpoint
+CREATE INDEX idx_wallets_updated_at ON wallets(updated_at);
 
 -------------------------------------------------
 -- Bảng 4: Lịch sử giao dịch ví (Wallet Transactions)
 -------------------------------------------------
 CREATE TABLE wallet_transactions (
-    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
     wallet_id UUID NOT NULL REFERENCES wallets(id) ON DELETE RESTRICT,
     amount NUMERIC(15, 2) NOT NULL,
     transaction_type transaction_type NOT NULL,
     status transaction_status NOT NULL DEFAULT 'PENDING',
-    related_order_id UUID,
+    related_order_id UUID, -- Tham chiếu mềm: orders được phân vùng nên không thể khai báo FK theo id
     transaction_date TIMESTAMPTZ NOT NULL DEFAULT NOW(),
-    description TEXT
-);
+    description TEXT,
+    reversed_by UUID, -- Id dòng ADJUSTMENT đã đảo giao dịch này; chỉ gán một lần
+
+    PRIMARY KEY (id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
 
--- Index để xem lịch sử giao dịch
-CREATE INDEX idx_wallet_transactions_wallet_id ON wallet_transactions(wallet_id);
-CREATE INDEX idx_wallet_transactions_date ON wallet_transactions(transaction_date DESC);
+-- Index cho lịch sử giao dịch dạng cursor (transaction_date DESC, id DESC) theo từng ví
+CREATE INDEX idx_wallet_transactions_wallet_date ON wallet_transactions(wallet_id, transaction_date DESC, id DESC);
+-- BRIN: dữ liệu được ghi theo thời gian nên BRIN nhỏ hơn B-tree rất nhiều
+CREATE INDEX idx_wallet_transactions_date_brin ON wallet_transactions USING brin(transaction_date);
 
 -------------------------------------------------
 -- Bảng 5: Phương thức thanh toán (Payment Methods)
@@ -197,7 +203,7 @@ CREATE TABLE cart_items (
 -- Bảng 13: Đơn hàng (Orders)
 -------------------------------------------------
 CREATE TABLE orders (
-    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
     user_id UUID REFERENCES accounts(id) ON DELETE SET NULL,
     address_id BIGINT NOT NULL REFERENCES addresses(id) ON DELETE RESTRICT,
     payment_method_id INT NOT NULL REFERENCES payment_methods(id) ON DELETE RESTRICT,
@@ -210,30 +216,77 @@ CREATE TABLE orders (
     
     order_date TIMESTAMPTZ NOT NULL DEFAULT NOW(),
     due_date DATE,
-    shipped_date TIMESTAMPTZ
-);
+    shipped_date TIMESTAMPTZ,
+
+    -- Khóa phân vùng phải nằm trong khóa chính
+    PRIMARY KEY (id, order_date)
+) PARTITION BY RANGE (order_date);
 
 -- Index để tìm đơn hàng
 CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_status ON orders(status);
-CREATE INDEX idx_orders_date ON orders(order_date);
+CREATE INDEX idx_orders_date_brin ON orders USING brin(order_date);
+-- Partial index cho job tự hủy đơn PENDING quá hạn (keyset theo order_date, id)
+CREATE INDEX idx_orders_pending_date ON orders(order_date, id) WHERE status = 'PENDING';
 
 -------------------------------------------------
 -- Bảng 14: Chi tiết đơn hàng (Order Details)
 -------------------------------------------------
 CREATE TABLE order_details (
-    id BIGSERIAL PRIMARY KEY,
-    order_id UUID NOT NULL REFERENCES orders(id) ON DELETE CASCADE,
-    product_variant_id UUID NOT NULL REFERENCES product_variants(id) ON DELETE RESTRICT,
+    id BIGSERIAL NOT NULL,
+    order_id UUID NOT NULL,
+    -- Sao chép từ orders.order_date để phân vùng cùng tháng với đơn hàng
+    order_date TIMESTAMPTZ NOT NULL,
+    -- NULL khi biến thể bị xóa khỏi catalog; lịch sử đọc từ snapshot bên dưới
+    product_variant_id UUID REFERENCES product_variants(id) ON DELETE SET NULL,
     quantity_ordered INT NOT NULL CHECK (quantity_ordered > 0),
     price_each NUMERIC(15, 2) NOT NULL,
+
+    -- Snapshot sản phẩm tại thời điểm đặt hàng (không join sang products/product_variants)
+    product_id UUID,
+    product_name VARCHAR(255),
+    sku VARCHAR(100),
+    attribute_summary VARCHAR(255),
+    thumbnail_url VARCHAR(255),
     
-    UNIQUE (order_id, product_variant_id)
-);
+    PRIMARY KEY (id, order_date),
+    UNIQUE (order_id, product_variant_id, order_date),
+    FOREIGN KEY (order_id, order_date) REFERENCES orders(id, order_date) ON DELETE CASCADE
+) PARTITION BY RANGE (order_date);
 
 -- Index để join nhanh
 CREATE INDEX idx_order_details_order_id ON order_details(order_id);
 CREATE INDEX idx_order_details_variant_id ON order_details(product_variant_id);
+CREATE INDEX idx_order_details_date_brin ON order_details USING brin(order_date);
+
+-- Các dòng tạo trước khi có cột snapshot giữ product_id = NULL:
+-- truy vấn đọc product_id luôn COALESCE với product_variants.product_id,
+-- nên không cần backfill khi nâng cấp một database đang chạy.
+
+-------------------------------------------------
+-- Phân vùng theo tháng (Monthly partitions)
+-- PartitionMaintenanceService tạo trước các tháng tới và
+-- tách (DETACH) các tháng cũ sang schema archive.
+-- Phân vùng DEFAULT nhận các dòng nằm ngoài các tháng đã tạo (job chạy trễ, lệch giờ);
+-- khi tạo tháng tương ứng, job chuyển các dòng đó sang phân vùng mới.
+-------------------------------------------------
+CREATE SCHEMA IF NOT EXISTS archive;
+
+DO $$
+DECLARE
+    parent TEXT;
+    month_start DATE;
+BEGIN
+    FOREACH parent IN ARRAY ARRAY['orders', 'order_details', 'wallet_transactions'] LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I DEFAULT', parent || '_default', parent);
+        FOR i IN -1..3 LOOP
+            month_start := (date_trunc('month', NOW()) + make_interval(months => i))::DATE;
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                    parent || '_p' || to_char(month_start, 'YYYY_MM'), parent,
+                    month_start, (month_start + INTERVAL '1 month')::DATE);
+        END LOOP;
+    END LOOP;
+END $$;
 
 -------------------------------------------------
 -- Bảng 15: Đánh giá (Reviews)
@@ -266,4 +319,57 @@ CREATE TABLE review_attachments (
 );
 
 -- Index
-CREATE INDEX idx_review_attachments_review_id ON review_attachments(review_id);
\ No newline at end of file
+CREATE INDEX idx_review_attachments_review_id ON review_attachments(review_id);
+-------------------------------------------------
+-- Bảng 17: Sản phẩm đã mua (User Purchased Products)
+-- Ghi khi đơn chuyển sang DELIVERED; kiểm tra quyền đánh giá chỉ cần tra theo khóa chính.
+-- Không có FK tới products: product_id lấy từ snapshot của order_details.
+-------------------------------------------------
+CREATE TABLE user_purchased_products (
+    user_id UUID NOT NULL REFERENCES accounts(id) ON DELETE CASCADE,
+    product_id UUID NOT NULL,
+    first_delivered_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+
+    PRIMARY KEY (user_id, product_id)
+);
+
+-- Dữ liệu từ các đơn đã giao trước đó được ReviewService nạp khi ứng dụng khởi động (ON CONFLICT DO NOTHING).
+
+-------------------------------------------------
+-- Bảng 18: Thống kê theo giờ (Report Hourly)
+-- Mỗi giờ một dòng, tính bằng một câu GROUP BY trên orders/order_details/accounts/reviews.
+-- Báo cáo ngày/tuần/tháng được cộng dồn từ bảng này thay vì quét lại orders.
+-- items_in_active_carts là ảnh chụp tại thời điểm tính, NULL với các giờ được backfill.
+-------------------------------------------------
+CREATE TABLE report_hourly (
+    bucket_start TIMESTAMPTZ PRIMARY KEY, -- Đầu giờ
+    total_revenue NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    total_orders INT NOT NULL DEFAULT 0,
+    total_products_sold INT NOT NULL DEFAULT 0,
+    new_users_registered INT NOT NULL DEFAULT 0,
+    positive_reviews INT NOT NULL DEFAULT 0,
+    negative_reviews INT NOT NULL DEFAULT 0,
+    items_in_active_carts INT,
+    computed_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-------------------------------------------------
+-- Bảng 19: Lô đối soát đã nhập (Settlement Batches)
+-- Khóa lô là mã settlement của đối tác; lô đã hoàn tất không được nhập lại.
+-------------------------------------------------
+CREATE TABLE settlement_batches (
+    settlement_id VARCHAR(100) PRIMARY KEY,
+    started_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    completed_at TIMESTAMPTZ -- NULL: lô bị dừng giữa chừng, được phép nhập lại để chạy tiếp
+);
+
+-------------------------------------------------
+-- Bảng 20: Dòng đối soát đã áp dụng (Settlement Rows)
+-- Mỗi dòng được ghi nhận trong cùng transaction với ledger; dòng trùng khóa bị bỏ qua.
+-- Không đặt UNIQUE trên wallet_transactions vì bảng phân vùng theo transaction_date.
+-------------------------------------------------
+CREATE TABLE settlement_rows (
+    external_ref VARCHAR(255) PRIMARY KEY, -- ref:{reference của đối tác} hoặc {settlement_id}:{số dòng}
+    settlement_id VARCHAR(100) NOT NULL REFERENCES settlement_batches(settlement_id),
+    imported_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
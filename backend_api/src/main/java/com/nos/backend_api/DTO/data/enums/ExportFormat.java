@@ -0,0 +1,24 @@
+package com.nos.backend_api.DTO.data.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ExportFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase().startsWith(NDJSON.contentType)) {
+            return NDJSON;
+        }
+        return CSV;
+    }
+}
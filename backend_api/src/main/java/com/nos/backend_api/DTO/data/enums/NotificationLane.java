@@ -0,0 +1,22 @@
+package com.nos.backend_api.DTO.data.enums;
+
+import lombok.Getter;
+
+/**
+ * Làn gửi email: mỗi làn có queue, nhóm consumer và mức ưu tiên riêng khi dùng chung giới hạn gửi.
+ * sendHorizon là số slot gửi một làn được đặt trước; làn thấp hơn chỉ gửi khi còn slot trống.
+ */
+@Getter
+public enum NotificationLane {
+    SECURITY("security", Integer.MAX_VALUE),
+    TRANSACTIONAL("transactional", 2),
+    MARKETING("marketing", 0);
+
+    private final String key;
+    private final int sendHorizon;
+
+    NotificationLane(String key, int sendHorizon) {
+        this.key = key;
+        this.sendHorizon = sendHorizon;
+    }
+}
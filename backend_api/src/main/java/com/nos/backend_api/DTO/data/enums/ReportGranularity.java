@@ -0,0 +1,18 @@
+package com.nos.backend_api.DTO.data.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ReportGranularity {
+    HOUR("hour"),
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    // Field name for PostgreSQL date_trunc
+    private final String truncUnit;
+
+    ReportGranularity(String truncUnit) {
+        this.truncUnit = truncUnit;
+    }
+}
@@ -1,13 +1,25 @@
 package com.nos.backend_api.DTO.data.enums;
 
+import lombok.Getter;
+
+@Getter
 public enum SendEmailType {
-    WELCOME,
-    OTP,
-    PASSWORD_RESET,
-    NOTIFICATION,
-    ORDER_SUCCESS,
-    ORDER_CANCELLED,
-    ORDER_SHIPPED,
-    ORDER_DELIVERED,
-    TRANSACTION_NOTIFICATION
+    WELCOME(NotificationLane.MARKETING),
+    OTP(NotificationLane.SECURITY),
+    PASSWORD_RESET(NotificationLane.SECURITY),
+    NOTIFICATION(NotificationLane.MARKETING),
+    BROADCAST(NotificationLane.MARKETING),
+    ORDER_SUCCESS(NotificationLane.TRANSACTIONAL),
+    ORDER_CANCELLED(NotificationLane.TRANSACTIONAL),
+    ORDER_SHIPPED(NotificationLane.TRANSACTIONAL),
+    ORDER_DELIVERED(NotificationLane.TRANSACTIONAL),
+    TRANSACTION_NOTIFICATION(NotificationLane.TRANSACTIONAL),
+    TRANSACTION_DIGEST(NotificationLane.TRANSACTIONAL),
+    WALLET_SETTLEMENT(NotificationLane.TRANSACTIONAL);
+
+    private final NotificationLane lane;
+
+    SendEmailType(NotificationLane lane) {
+        this.lane = lane;
+    }
 }
@@ -4,5 +4,6 @@ public enum TransactionType {
     DEPOSIT,
     WITHDRAWAL,
     PURCHASE,
-    REFUND
+    REFUND,
+    ADJUSTMENT // Admin correction or reversal; amount carries its own sign
 }
@@ -20,6 +20,7 @@ public class RedisData {
     public static final String PRODUCT_IDS = "product:ids";
     public static final String PRODUCT_DATA = "product:data";
     public static final String PRODUCT_SEARCH = "product:search"; // prodcut:serach:{query}
+    public static final String PRODUCT_PAGE_KEYS = "product:page:keys"; // set cac key trang products:search:* dang cache, xoa dung key thay vi quet
 
     public static final String PRODUCT_VARIANT_IDS = "product_variant:ids";
     public static final String PRODUCT_VARIANT_DATA = "product_variant:data";
@@ -29,6 +30,8 @@ public class RedisData {
 
     public static final String REVIEW_IDS = "review:ids";
     public static final String REVIEW_DATA = "review:data";
+    public static final String PURCHASED_BACKFILL_DONE = "review:purchased:backfilled"; // da nap user_purchased_products tu don cu, bo qua khi khoi dong lai
+    public static final String REVIEW_PAGE_KEYS = "review:page:keys"; // review:page:keys:{productId}, set cac key trang reviews:product:{productId}:*
 
     public static final String REVIEW_ATTACHMENT_IDS = "review_attachment:ids";
     public static final String REVIEW_ATTACHMENT_DATA = "review_attachment:data";
@@ -46,11 +49,40 @@ public class RedisData {
     public static final String ORDER_IDS = "order:ids";
     public static final String ORDER_DATA = "order:data";
 
+    public static final String ORDER_RESPONSE = "order:response"; // order:response:{orderId}:v{version}, chi cache don hang DELIVERED/CANCELLED
+
     public static final String ORDER_DETAILS_IDS = "order_details:ids";
     public static final String ORDER_DETAILS_DATA = "order_details:data";
 
     public static final String WALLET_IDS = "wallet:ids";
     public static final String WALLET_DATA = "wallet:data";
+    public static final String WALLET_TXN_HEAD = "wallet:txns:head"; // wallet:txns:head:{userId}, list giao dich moi nhat (LPUSH khi ghi)
+    public static final String WALLET_TXN_GENERATION = "wallet:txns:gen"; // wallet:txns:gen:{userId}, tang moi lan ghi; nap tu DB chi ghi de neu chua doi
+
+    public static final String RECONCILIATION_CHECKPOINT = "reconciliation:checkpoint"; // thoi diem bat dau lan doi soat truoc
+    public static final String RECONCILIATION_REPORT = "reconciliation:report";
+    public static final String RECONCILIATION_MISMATCHES = "reconciliation:mismatches"; // hash walletId -> WalletMismatchResponse, chi xoa khi so du khop ledger
+    public static final String RECONCILIATION_LOCK = "reconciliation:lock"; // chi mot pod chay doi soat tai mot thoi diem
+    public static final String PARTITION_MAINTENANCE_LOCK = "partitions:lock"; // chi mot pod tao/luu tru phan vung tai mot thoi diem
+
+    public static final String REFRESH_TOKEN = "auth:refresh"; // auth:refresh:{token} -> userId, TTL = han cua refresh token
+    public static final String REVOKED_TOKEN = "auth:revoked"; // auth:revoked:{jti}, TTL = thoi gian con lai cua token
+    public static final String LEGACY_REVOCATIONS_MIGRATED = "auth:legacy-revocations:migrated"; // da chuyen invalidated_tokens sang Redis; ngoai prefix auth:revoked de resync khong doc nham
+    public static final String TOKEN_REVOCATION_CHANNEL = "auth:revocations"; // pub/sub: jti vua bi thu hoi
+
+    public static final String BROADCAST_JOB = "broadcast:job"; // trang thai + checkpoint cua lan broadcast gan nhat
+    public static final String BROADCAST_CANCEL = "broadcast:cancel"; // jobId can dung, runner kiem tra truoc moi lo
+    public static final String BROADCAST_LOCK = "broadcast:lock"; // TTL ngan, gia han moi lo; het han = node chay da chet
+
+    public static final String ANALYTICS_LIVE_DAY = "analytics:live:day"; // analytics:live:day:{yyyy-MM-dd}, hash {revenue, orders, new_users}, tien luu theo xu
+    public static final String ANALYTICS_LIVE_TOTALS = "analytics:live:totals"; // hash {active_users, cart_items, wallet_float}
+    public static final String ANALYTICS_LIVE_JOURNAL_SUFFIX = ":journal"; // {key}:journal, hash: delta den trong luc dang nap tu DB, cong lai sau khi ghi snapshot
+    public static final String ANALYTICS_LIVE_CHANNEL = "analytics:live"; // pub/sub: delta vua ap dung, moi node day xuong SSE cua minh
+
+    public static final String ANALYTICS_ROLLUP_LOCK = "analytics:rollup:lock"; // token nguoi giu, TTL ngan gia han trong luc chay; chi mot pod tinh rollup/backfill
+    public static final String ANALYTICS_ROLLUP_DIRTY = "analytics:rollup:dirty-days"; // zset ngay (yyyy-MM-dd) co don giao muon, score tang moi lan danh dau, can tinh lai
+
+    public static final String RATE_LIMIT = "ratelimit"; // ratelimit:{name}:{ip|user|email}:{value}, hash {tokens, ts}
 
     public static final String USER_IDS = "user:ids";
     public static final String USER_DATA = "user:data";
@@ -9,8 +9,10 @@ import java.util.UUID;
 import org.hibernate.validator.constraints.Length;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.nos.backend_api.DTO.data.enums.ExportFormat;
 import com.nos.backend_api.DTO.data.enums.OrderStatus;
 import com.nos.backend_api.DTO.data.enums.OtpType;
+import com.nos.backend_api.DTO.data.enums.ReportGranularity;
 import com.nos.backend_api.DTO.data.enums.TransactionStatus;
 import com.nos.backend_api.DTO.data.enums.TransactionType;
 import com.nos.backend_api.DTO.data.enums.UserRole;
@@ -542,6 +544,19 @@ public class RequestDto {
         private TransactionSearchRequest search; // Embed
     }
 
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class StatementExportRequest {
+        private UUID walletId; // Chỉ admin, user luôn xuất ví của mình
+        @NotNull
+        private LocalDate fromDate;
+        private LocalDate toDate; // Mặc định: hôm nay
+        @Builder.Default
+        private ExportFormat format = ExportFormat.CSV;
+    }
+
     @Data
     @Builder
     @AllArgsConstructor
@@ -566,6 +581,19 @@ public class RequestDto {
         private String description;
     }
 
+    // Notification Requests
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BroadcastRequest {
+        @Length(max = 200)
+        private String subject; // Mặc định: tiêu đề thông báo chung
+        @NotBlank
+        @Length(max = 5000)
+        private String message;
+    }
+
     // Analytics Requests
     @Data
     @Builder
@@ -574,5 +602,17 @@ public class RequestDto {
     public static class ReportSearchRequest {
         private LocalDate fromDate;
         private LocalDate toDate;
+        private ReportGranularity granularity; // HOUR | DAY | WEEK | MONTH, chỉ dùng cho /rollups, mặc định DAY
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RollupBackfillRequest {
+        @NotNull
+        private LocalDate fromDate;
+        @NotNull
+        private LocalDate toDate; // Tính cả ngày toDate
     }
 }
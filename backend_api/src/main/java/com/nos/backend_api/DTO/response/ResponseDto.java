@@ -278,7 +278,11 @@ public class ResponseDto {
     public static class OrderDetailResponse {
         private Long id;
         private UUID productVariantId;
+        private UUID productId;
         private String productName;
+        private String sku;
+        private String attributeSummary;
+        private String thumbnailUrl;
         private Integer quantity;
         private BigDecimal priceEach;
         private ReviewResponse review;
@@ -301,6 +305,21 @@ public class ResponseDto {
         private String bestSellingProducts; // Parsed JSON
     }
 
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ReportRollupResponse {
+        private LocalDateTime periodStart; // Đầu giờ/ngày/tuần (thứ Hai)/tháng
+        private BigDecimal totalRevenue;
+        private Integer totalOrders;
+        private Integer totalProductsSold;
+        private Integer newUsersRegistered;
+        private Integer positiveReviews;
+        private Integer negativeReviews;
+        private Integer itemsInActiveCarts; // Ảnh chụp gần nhất trong kỳ, null nếu kỳ chỉ có dữ liệu backfill
+    }
+
     @Data
     @Builder
     @AllArgsConstructor
@@ -310,6 +329,88 @@ public class ResponseDto {
         private Integer todayOrders;
         private Integer activeUsers;
         private BigDecimal totalBalance; // All wallets
+        private Integer newUsers; // Đăng ký trong ngày
+        private Integer itemsInActiveCarts; // Tổng số lượng trong các giỏ hàng
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class AnalyticsDeltaResponse {
+        private String metric; // Ten AnalyticsEvent.Metric, vd REVENUE
+        private BigDecimal delta;
+        private BigDecimal value; // Giá trị mới sau khi cộng delta
+    }
+
+    // Reconciliation Responses
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ReconciliationReportResponse {
+        private boolean fullScan;
+        private LocalDateTime changedSince;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private long walletsChecked;
+        private int mismatchCount;
+        private List<WalletMismatchResponse> mismatches; // Gioi han so dong, xem mismatchCount
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class WalletMismatchResponse {
+        private UUID walletId;
+        private UUID userId;
+        private BigDecimal balance;
+        private BigDecimal ledgerTotal;
+        private BigDecimal difference;
+        private LocalDateTime detectedAt; // Lần đầu phát hiện, giữ nguyên đến khi lệch được xử lý
+    }
+
+    // Settlement import Responses
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class SettlementImportResponse {
+        private long totalRows;
+        private long appliedRows;
+        private long failedRows; // Ghi ledger FAILED do ví không đủ số dư
+        private long rejectedRows; // Không hợp lệ, không ghi
+        private long skippedRows; // Đã áp dụng ở lần nhập trước của cùng settlement, bỏ qua
+        private int walletsAffected;
+        private List<ImportRowError> errors; // Gioi han so dong, xem rejectedRows
+    }
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ImportRowError {
+        private long line;
+        private String message;
+    }
+
+    // Broadcast Responses
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BroadcastStatusResponse {
+        private UUID jobId;
+        private String status; // RUNNING, COMPLETED, CANCELLED, FAILED
+        private String subject;
+        private String message;
+        private UUID lastAccountId; // Checkpoint: tài khoản cuối cùng đã gửi, tiếp tục từ đây
+        private long recipientsQueued;
+        private int unconfirmedAttempts; // Runs in a row that ended unconfirmed at this checkpoint
+        private LocalDateTime startedAt;
+        private LocalDateTime updatedAt;
+        private LocalDateTime finishedAt;
     }
 
     // Paged wrapper
@@ -325,4 +426,16 @@ public class ResponseDto {
         private int totalPages;
         private boolean last;
     }
+
+    // Keyset wrapper: nextCursor is opaque and null on the last page
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CursorPagedResponse<T> {
+        private List<T> content;
+        private int size;
+        private String nextCursor;
+        private boolean hasMore;
+    }
 }
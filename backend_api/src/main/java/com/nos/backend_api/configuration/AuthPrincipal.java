@@ -0,0 +1,36 @@
+package com.nos.backend_api.configuration;
+
+import java.util.UUID;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import com.nos.backend_api.DTO.data.enums.UserRole;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+
+/**
+ * Người dùng của request hiện tại, dựng từ các claim của JWT đã xác thực (sub, role, email, name).
+ * Dùng thay cho việc đọc lại Account từ DB chỉ để lấy id, quyền hay email.
+ */
+public record AuthPrincipal(UUID userId, UserRole role, String email, String fullName) {
+
+    public static AuthPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            throw new AppException(ErrorCode.UNAUTHENTICATED);
+        }
+        String role = jwt.getClaimAsString("role");
+        return new AuthPrincipal(
+                UUID.fromString(jwt.getSubject()),
+                role != null ? UserRole.valueOf(role) : UserRole.USER,
+                jwt.getClaimAsString("email"),
+                // Tokens issued before the name claim was added do not carry it
+                jwt.getClaimAsString("name"));
+    }
+
+    public boolean isAdmin() {
+        return role == UserRole.ADMIN;
+    }
+}
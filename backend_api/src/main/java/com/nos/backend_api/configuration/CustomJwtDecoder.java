@@ -1,33 +1,102 @@
 package com.nos.backend_api.configuration;
 
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.spec.SecretKeySpec;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nos.backend_api.services.user.TokenRevocationService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Giải mã JWT và giữ kết quả đã xác thực trong cache có giới hạn, khóa theo SHA-256 của token
+ * và hết hạn đúng lúc token hết hạn. Lần gọi lặp lại với cùng token không phải parse và
+ * verify chữ ký lại; trạng thái thu hồi vẫn được kiểm tra ở mỗi lần gọi.
+ */
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
-    @Value("${jwt.signer-key}")
-    private String signerKey;
-
+    private final NimbusJwtDecoder nimbusJwtDecoder;
+    private final TokenRevocationService tokenRevocationService;
+    private final Cache<String, Jwt> verifiedTokens;
+    private final Timer cachedDecodes;
+    private final Timer verifiedDecodes;
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+    public CustomJwtDecoder(@Value("${jwt.signer-key}") String signerKey,
+                            @Value("${app.security.jwt-cache.max-size:50000}") long maxSize,
+                            TokenRevocationService tokenRevocationService,
+                            MeterRegistry meterRegistry) {
+        SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HmacSHA256");
+        this.nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        this.tokenRevocationService = tokenRevocationService;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String digest, Jwt jwt) -> timeToExpiry(jwt)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+        // Decode cost with and without the cache, side by side
+        this.cachedDecodes = Timer.builder("jwt.decode.duration").tag("source", "cache")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        this.verifiedDecodes = Timer.builder("jwt.decode.duration").tag("source", "verified")
+                .publishPercentiles(0.5, 0.99).register(meterRegistry);
+    }
 
     @Override
     public Jwt decode(String token) throws JwtException {
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HmacSHA256");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS256)
-                    .build();
+        long start = System.nanoTime();
+        String digest = digest(token);
+        Jwt jwt = verifiedTokens.getIfPresent(digest);
+        if (jwt == null) {
+            jwt = nimbusJwtDecoder.decode(token);
+            if (jwt.getExpiresAt() != null) {
+                verifiedTokens.put(digest, jwt);
+            }
+            verifiedDecodes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            cachedDecodes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        // Answered by the local Bloom filter for tokens that were never revoked
+        if (tokenRevocationService.isRevoked(jwt.getId())) {
+            verifiedTokens.invalidate(digest);
+            throw new BadJwtException("Token has been revoked");
+        }
+        return jwt;
+    }
+
+    private static Duration timeToExpiry(Jwt jwt) {
+        Duration remaining = Duration.between(Instant.now(), jwt.getExpiresAt());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    // The raw token is a bearer credential; only its digest is kept as a key
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return nimbusJwtDecoder.decode(token);
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,41 @@
 package com.nos.backend_api.configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.ExchangeBuilder;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import com.nos.backend_api.DTO.data.enums.NotificationLane;
 
 @Configuration
 public class RabbitConfig {
 
     public static final String EXCHANGE_NAME = "techStoreExchange";
 
+    // Legacy catch-all queue: no longer published to, only drained
     public static final String NOTIFICATION_QUEUE = "notificationQueue";
     public static final String NOTIFICATION_ROUTING_KEY = "notification.#";
 
+    // Lane routing keys live under "email." so the legacy "notification.#" binding never matches them
+    public static final String SECURITY_NOTIFICATION_QUEUE = NOTIFICATION_QUEUE + ".security";
+    public static final String TRANSACTIONAL_NOTIFICATION_QUEUE = NOTIFICATION_QUEUE + ".transactional";
+    public static final String MARKETING_NOTIFICATION_QUEUE = NOTIFICATION_QUEUE + ".marketing";
+    public static final String NOTIFICATION_DLQ = NOTIFICATION_QUEUE + ".dlq";
+    public static final String NOTIFICATION_LISTENER_FACTORY = "notificationListenerFactory";
+
     @Bean
     public TopicExchange techStoreExchange() {
         return ExchangeBuilder.topicExchange(EXCHANGE_NAME).durable(true).build();
@@ -32,4 +52,61 @@ public class RabbitConfig {
                 .to(techStoreExchange)
                 .with(NOTIFICATION_ROUTING_KEY);
     }
+
+    /**
+     * Mỗi làn có queue riêng và các queue retry riêng (mỗi lần retry một queue, TTL tăng theo cấp số nhân,
+     * không có consumer). Hết TTL, message được dead-letter về exchange chính với routing key của làn
+     * nên quay lại đúng queue của làn đó. TTL đặt theo queue nên message ngắn hạn không bị kẹt sau message dài hạn.
+     */
+    @Bean
+    public Declarables notificationLaneQueues(
+            TopicExchange techStoreExchange,
+            @Value("${app.notifications.retry.max-attempts:5}") int maxAttempts,
+            @Value("${app.notifications.retry.initial-delay-ms:5000}") long initialDelayMs,
+            @Value("${app.notifications.retry.multiplier:3.0}") double multiplier) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (NotificationLane lane : NotificationLane.values()) {
+            Queue queue = QueueBuilder.durable(laneQueue(lane)).build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(techStoreExchange).with(laneRoutingKey(lane)));
+            for (int attempt = 1; attempt < maxAttempts; attempt++) {
+                declarables.add(QueueBuilder.durable(laneRetryQueue(lane, attempt))
+                        .ttl((int) retryDelayMs(attempt, initialDelayMs, multiplier))
+                        .deadLetterExchange(EXCHANGE_NAME)
+                        .deadLetterRoutingKey(laneRoutingKey(lane))
+                        .build());
+            }
+        }
+        declarables.add(QueueBuilder.durable(NOTIFICATION_DLQ).build());
+        return new Declarables(declarables);
+    }
+
+    @Bean(NOTIFICATION_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory notificationListenerFactory(
+            ConnectionFactory connectionFactory,
+            @Value("${app.notifications.prefetch:10}") int prefetch) {
+        // Consumer counts are set per lane on each listener
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setPrefetchCount(prefetch);
+        // Consumers spend most of their time waiting on the email API; virtual threads make that wait cheap
+        factory.setTaskExecutor(new VirtualThreadTaskExecutor("notification-"));
+        return factory;
+    }
+
+    public static String laneQueue(NotificationLane lane) {
+        return NOTIFICATION_QUEUE + "." + lane.getKey();
+    }
+
+    public static String laneRoutingKey(NotificationLane lane) {
+        return "email." + lane.getKey();
+    }
+
+    public static String laneRetryQueue(NotificationLane lane, int attempt) {
+        return laneQueue(lane) + ".retry." + attempt;
+    }
+
+    private static long retryDelayMs(int attempt, long initialDelayMs, double multiplier) {
+        return Math.min(Integer.MAX_VALUE, Math.round(initialDelayMs * Math.pow(multiplier, attempt - 1)));
+    }
 }
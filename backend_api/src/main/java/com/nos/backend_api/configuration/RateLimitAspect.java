@@ -0,0 +1,102 @@
+package com.nos.backend_api.configuration;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Set;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.nos.backend_api.exceptions.RateLimitExceededException;
+import com.nos.backend_api.services._system.RateLimiterService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+@Aspect
+@Component
+// Reject before any other advice (validation, transactions) does work for the request
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitAspect {
+    private final RateLimiterService rateLimiterService;
+    private final boolean trustForwardedFor;
+
+    public RateLimitAspect(RateLimiterService rateLimiterService,
+                           @Value("${app.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        this.rateLimiterService = rateLimiterService;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    @Around("@annotation(com.nos.backend_api.configuration.RateLimited) || @annotation(com.nos.backend_api.configuration.RateLimited.List)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Set<RateLimited> limits = AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RateLimited.class);
+        for (RateLimited limit : limits) {
+            String key = resolveKey(limit.key(), joinPoint.getArgs());
+            long retryAfter = rateLimiterService.tryAcquire(limit.name(), key, limit.capacity(),
+                    limit.periodSeconds(), limit.localBatch());
+            if (retryAfter > 0) {
+                throw new RateLimitExceededException(retryAfter);
+            }
+        }
+        return joinPoint.proceed();
+    }
+
+    private String resolveKey(RateLimited.Key keyType, Object[] args) {
+        if (keyType == RateLimited.Key.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        } else if (keyType == RateLimited.Key.EMAIL) {
+            String email = findEmail(args);
+            if (email != null) {
+                return "email:" + email.trim().toLowerCase(Locale.ROOT);
+            }
+        }
+        return "ip:" + clientIp();
+    }
+
+    private String findEmail(Object[] args) {
+        for (Object arg : args) {
+            if (arg == null || arg instanceof String) {
+                continue;
+            }
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(arg);
+            if (wrapper.isReadableProperty("email") && wrapper.getPropertyValue("email") instanceof String email
+                    && !email.isBlank()) {
+                return email;
+            }
+        }
+        return null;
+    }
+
+    private String clientIp() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return "unknown";
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (trustForwardedFor) {
+            // Only meaningful behind a proxy that overwrites the header; otherwise clients can forge it
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
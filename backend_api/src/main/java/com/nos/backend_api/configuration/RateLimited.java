@@ -0,0 +1,43 @@
+package com.nos.backend_api.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Giới hạn tần suất gọi một endpoint bằng token bucket dùng chung trong Redis.
+ * Bucket đầy có capacity token và được nạp lại toàn bộ sau periodSeconds.
+ * Có thể gắn nhiều lần trên một method (ví dụ vừa theo IP vừa theo email).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimited.List.class)
+public @interface RateLimited {
+    // Bucket name; one bucket per name and key value
+    String name();
+
+    int capacity();
+
+    long periodSeconds() default 60;
+
+    Key key() default Key.IP;
+
+    // Tokens leased from Redis per round trip and served locally; keep 1 for small, strict limits
+    int localBatch() default 1;
+
+    enum Key {
+        IP,
+        // Authenticated user id, falls back to IP for anonymous calls
+        USER,
+        // "email" property of the request body, falls back to IP
+        EMAIL
+    }
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface List {
+        RateLimited[] value();
+    }
+}
@@ -0,0 +1,18 @@
+package com.nos.backend_api.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Chạy lại toàn bộ method (kể cả transaction của nó) khi gặp xung đột ghi đồng thời
+ * như deadlock, lock timeout hay optimistic lock. Số lần thử có giới hạn.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+    int maxAttempts() default 3;
+
+    long backoffMillis() default 20;
+}
@@ -0,0 +1,50 @@
+package com.nos.backend_api.configuration;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Aspect
+@Component
+// Must wrap the @Transactional proxy so every attempt runs in a fresh transaction
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class RetryOnConflictAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        int maxAttempts = Math.max(1, retryOnConflict.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (ConcurrencyFailureException e) {
+                String method = joinPoint.getSignature().toShortString();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("retry.conflicts", "method", method, "outcome", "exhausted").increment();
+                    log.warn("{} still conflicting after {} attempts", joinPoint.getSignature().toShortString(), attempt);
+                    throw new AppException(ErrorCode.CONCURRENT_UPDATE);
+                }
+                meterRegistry.counter("retry.conflicts", "method", method, "outcome", "retried").increment();
+                long backoff = retryOnConflict.backoffMillis() * attempt;
+                log.debug("Conflict in {} (attempt {}), retrying in ~{}ms",
+                        joinPoint.getSignature().toShortString(), attempt, backoff);
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+            }
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.UUID;
 
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,6 +17,7 @@ import com.nos.backend_api.DTO.request.RequestDto.CreateAddressRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateAddressRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.AddressResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
 import com.nos.backend_api.services.user.AddressService;
 
 import jakarta.validation.Valid;
@@ -31,7 +31,7 @@ public class AddressController {
     private final AddressService addressService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @PostMapping
@@ -2,15 +2,22 @@ package com.nos.backend_api.controllers;
 
 import java.util.List;
 
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.nos.backend_api.DTO.request.RequestDto.ReportSearchRequest;
+import com.nos.backend_api.DTO.request.RequestDto.RollupBackfillRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.AnalyticsOverviewResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.ReportDailyResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.ReportRollupResponse;
 import com.nos.backend_api.services.analytics.AnalyticsService;
 
 import jakarta.validation.Valid;
@@ -34,4 +41,22 @@ public class AnalyticsController {
     public ApiResponse<AnalyticsOverviewResponse> getOverview() {
         return analyticsService.getOverview();
     }
+
+    @GetMapping("/rollups")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<List<ReportRollupResponse>> getRollups(@Valid ReportSearchRequest request) {
+        return analyticsService.getRollups(request);
+    }
+
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<BooleanResponse> backfill(@Valid @RequestBody RollupBackfillRequest request) {
+        return analyticsService.backfill(request);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamOverview() {
+        return analyticsService.streamOverview();
+    }
 }
\ No newline at end of file
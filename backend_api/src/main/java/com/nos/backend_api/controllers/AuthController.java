@@ -18,6 +18,7 @@ import com.nos.backend_api.DTO.request.RequestDto.ResetPasswordRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.AuthResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.IntrospectResponse;
+import com.nos.backend_api.configuration.RateLimited;
 import com.nos.backend_api.services.user.AuthService;
 
 import jakarta.validation.Valid;
@@ -30,11 +31,14 @@ public class AuthController {
     
     private final AuthService authService;
 
+    @RateLimited(name = "auth-login-ip", capacity = 30, periodSeconds = 60)
+    @RateLimited(name = "auth-login-email", capacity = 10, periodSeconds = 300, key = RateLimited.Key.EMAIL)
     @PostMapping("/login")
     public ApiResponse<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         return authService.login(request);
     }
 
+    @RateLimited(name = "auth-register-ip", capacity = 10, periodSeconds = 3600)
     @PostMapping("/register")
     public ApiResponse<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
         return authService.register(request);
@@ -45,26 +49,34 @@ public class AuthController {
         return authService.logout(request.getToken());
     }
 
+    @RateLimited(name = "auth-refresh-ip", capacity = 60, periodSeconds = 60)
     @PostMapping("/refresh-token")
     public ApiResponse<AuthResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         return authService.refreshToken(request);
     }
 
+    @RateLimited(name = "auth-otp-ip", capacity = 20, periodSeconds = 3600)
+    @RateLimited(name = "auth-otp-email", capacity = 3, periodSeconds = 600, key = RateLimited.Key.EMAIL)
     @PostMapping("/generate-otp")
     public ApiResponse<Void> generateOtp(@Valid @RequestBody ForgotPasswordRequest request) {
         return authService.generateOtp(request.getEmail(), com.nos.backend_api.DTO.data.enums.OtpType.FORGOT_PASSWORD);
     }
 
+    @RateLimited(name = "auth-otp-verify-ip", capacity = 30, periodSeconds = 600)
+    @RateLimited(name = "auth-otp-verify-email", capacity = 10, periodSeconds = 600, key = RateLimited.Key.EMAIL)
     @PostMapping("/validate-otp")
     public ApiResponse<Void> validateOtp(@Valid @RequestBody OtpValidationRequest request) {
         return authService.validateOtp(request);
     }
 
+    @RateLimited(name = "auth-otp-ip", capacity = 20, periodSeconds = 3600)
+    @RateLimited(name = "auth-otp-email", capacity = 3, periodSeconds = 600, key = RateLimited.Key.EMAIL)
     @PostMapping("/forgot-password")
     public ApiResponse<Void> forgotPassword(@Valid @RequestBody ForgotPasswordRequest request) {
         return authService.forgotPassword(request);
     }
 
+    @RateLimited(name = "auth-reset-ip", capacity = 10, periodSeconds = 600)
     @PostMapping("/reset-password")
     public ApiResponse<Void> resetPassword(@Valid @RequestBody ResetPasswordRequest request) {
         return authService.resetPassword(request);
@@ -17,6 +17,7 @@ import com.nos.backend_api.DTO.request.RequestDto.CreateBrandRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateBrandRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.BrandResponse;
+import com.nos.backend_api.configuration.RateLimited;
 import com.nos.backend_api.services.product.BrandService;
 
 import jakarta.validation.Valid;
@@ -29,11 +30,13 @@ public class BrandController {
     
     private final BrandService brandService;
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping
     public ApiResponse<List<BrandResponse>> getAllBrands() {
         return brandService.getAllBrands();
     }
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping("/{id}")
     public ApiResponse<BrandResponse> getBrand(@PathVariable Integer id) {
         return brandService.getBrand(id);
@@ -3,7 +3,6 @@ package com.nos.backend_api.controllers;
 import java.util.UUID;
 
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,6 +16,7 @@ import com.nos.backend_api.DTO.request.RequestDto.AddCartItemRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateCartItemRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.CartResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
 import com.nos.backend_api.services.shopping_cart.CartService;
 
 import jakarta.validation.Valid;
@@ -30,7 +30,7 @@ public class CartController {
     private final CartService cartService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @GetMapping
@@ -16,6 +16,7 @@ import com.nos.backend_api.DTO.request.RequestDto.CreateCategoryRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateCategoryRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.CategoryResponse;
+import com.nos.backend_api.configuration.RateLimited;
 import com.nos.backend_api.services.product.CategoryService;
 
 import jakarta.validation.Valid;
@@ -28,11 +29,13 @@ public class CategoryController {
     
     private final CategoryService categoryService;
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping
     public ApiResponse<List<CategoryResponse>> getAllCategories() {
         return categoryService.getAllCategories();
     }
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ApiResponse<CategoryResponse> getCategory(@PathVariable Integer id) {
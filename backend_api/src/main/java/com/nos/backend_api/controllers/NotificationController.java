@@ -0,0 +1,43 @@
+package com.nos.backend_api.controllers;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nos.backend_api.DTO.request.RequestDto.BroadcastRequest;
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.BroadcastStatusResponse;
+import com.nos.backend_api.services._system.BroadcastService;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/admin/notifications")
+@RequiredArgsConstructor
+public class NotificationController {
+
+    private final BroadcastService broadcastService;
+
+    @PostMapping("/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<BooleanResponse> startBroadcast(@Valid @RequestBody BroadcastRequest request) {
+        return broadcastService.startBroadcast(request);
+    }
+
+    @GetMapping("/broadcast")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<BroadcastStatusResponse> getBroadcastStatus() {
+        return broadcastService.getStatus();
+    }
+
+    @PostMapping("/broadcast/cancel")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<BooleanResponse> cancelBroadcast() {
+        return broadcastService.cancelBroadcast();
+    }
+}
@@ -4,7 +4,6 @@ import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -22,6 +21,7 @@ import com.nos.backend_api.DTO.request.RequestDto.UpdateOrderLocationRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.OrderResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
 import com.nos.backend_api.services.order.OrderService;
 
 import jakarta.validation.Valid;
@@ -35,19 +35,19 @@ public class OrderController {
     private final OrderService orderService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ApiResponse<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        return orderService.createOrder(getCurrentUserId(), request);
+        return orderService.createOrder(AuthPrincipal.current(), request);
     }
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ApiResponse<OrderResponse> getOrder(@PathVariable UUID id) {
-        return orderService.getOrder(id, getCurrentUserId());
+        return orderService.getOrder(id, AuthPrincipal.current());
     }
 
     @PutMapping("/{id}/deliver")
@@ -89,6 +89,6 @@ public class OrderController {
     @PutMapping("/{id}/track")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ApiResponse<OrderResponse> updateLocation(@PathVariable UUID id, @Valid @RequestBody UpdateOrderLocationRequest request) {
-        return orderService.updateLocation(id, request, getCurrentUserId());
+        return orderService.updateLocation(id, request, AuthPrincipal.current());
     }
 }
\ No newline at end of file
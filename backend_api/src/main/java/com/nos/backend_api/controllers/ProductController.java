@@ -27,6 +27,7 @@ import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.ProductImageResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.ProductResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.ProductVariantResponse;
+import com.nos.backend_api.configuration.RateLimited;
 import com.nos.backend_api.services.product.ProductService;
 
 import jakarta.validation.Valid;
@@ -39,11 +40,13 @@ public class ProductController {
     
     private final ProductService productService;
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping
     public ApiResponse<ResponseDto.PagedResponse<ProductResponse>> getProducts(ProductSearchRequest request, Pageable pageable) {
         return productService.getProducts(request, pageable);
     }
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping("/{id}")
     public ApiResponse<ProductResponse> getProduct(@PathVariable UUID id) {
         return productService.getProduct(id);
@@ -0,0 +1,35 @@
+package com.nos.backend_api.controllers;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.ReconciliationReportResponse;
+import com.nos.backend_api.services.wallet.WalletReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/admin/reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationController {
+
+    private final WalletReconciliationService reconciliationService;
+
+    @GetMapping("/report")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<ReconciliationReportResponse> getLastReport() {
+        return reconciliationService.getLastReport();
+    }
+
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<BooleanResponse> run(@RequestParam(defaultValue = "false") boolean full) {
+        return reconciliationService.triggerRun(full);
+    }
+}
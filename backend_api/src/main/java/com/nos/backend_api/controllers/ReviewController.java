@@ -5,7 +5,6 @@ import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,8 +19,11 @@ import org.springframework.web.multipart.MultipartFile;
 import com.nos.backend_api.DTO.request.RequestDto.CreateReviewRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateReviewRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.ReviewResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
+import com.nos.backend_api.configuration.RateLimited;
 import com.nos.backend_api.services.product.ReviewService;
 
 import jakarta.validation.Valid;
@@ -35,9 +37,10 @@ public class ReviewController {
     private final ReviewService reviewService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
+    @RateLimited(name = "catalog", capacity = 300, periodSeconds = 60, localBatch = 20)
     @GetMapping("/products/{productId}")
     public ApiResponse<ResponseDto.PagedResponse<ReviewResponse>> getReviewsByProduct(
             @PathVariable UUID productId, 
@@ -54,6 +57,12 @@ public class ReviewController {
         return reviewService.createReview(getCurrentUserId(), productId, request, attachments);
     }
 
+    @GetMapping("/products/{productId}/eligibility")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ApiResponse<BooleanResponse> checkReviewEligibility(@PathVariable UUID productId) {
+        return reviewService.checkReviewEligibility(getCurrentUserId(), productId);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ApiResponse<ReviewResponse> updateReview(
@@ -1,26 +1,38 @@
 package com.nos.backend_api.controllers;
 
+import java.io.InputStream;
 import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.nos.backend_api.DTO.data.enums.ExportFormat;
 import com.nos.backend_api.DTO.request.RequestDto.AdminTransactionSearchRequest;
 import com.nos.backend_api.DTO.request.RequestDto.CreateTransactionRequest;
+import com.nos.backend_api.DTO.request.RequestDto.StatementExportRequest;
 import com.nos.backend_api.DTO.request.RequestDto.TransactionSearchRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateTransactionRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
+import com.nos.backend_api.DTO.response.ResponseDto.SettlementImportResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
+import com.nos.backend_api.services.transaction.TransactionExportService;
+import com.nos.backend_api.services.transaction.SettlementImportService;
 import com.nos.backend_api.services.transaction.TransactionService;
 
 import jakarta.validation.Valid;
@@ -32,9 +44,11 @@ import lombok.RequiredArgsConstructor;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final TransactionExportService exportService;
+    private final SettlementImportService settlementImportService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @GetMapping
@@ -53,12 +67,41 @@ public class TransactionController {
         return transactionService.getAdminTransactions(request, pageable);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportStatement(@Valid StatementExportRequest request) {
+        return toDownload(request, exportService.exportForUser(getCurrentUserId(), request));
+    }
+
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportWalletStatement(@Valid StatementExportRequest request) {
+        return toDownload(request, exportService.exportForWallet(request));
+    }
+
+    private ResponseEntity<StreamingResponseBody> toDownload(StatementExportRequest request, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportService.getFileName(request) + "\"")
+                .contentType(MediaType.parseMediaType(exportService.resolveFormat(request).getContentType()))
+                .body(body);
+    }
+
     @PostMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
     public ApiResponse<WalletTransactionResponse> createTransaction(@Valid @RequestBody CreateTransactionRequest request) {
         return transactionService.createTransaction(request);
     }
 
+    // Body is read line by line, so settlement files of any size never sit in memory
+    @PostMapping(value = "/admin/import", consumes = { "text/csv", "application/x-ndjson" })
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<SettlementImportResponse> importSettlement(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam String settlementId,
+            InputStream body) {
+        return settlementImportService.importSettlement(settlementId, body, ExportFormat.fromContentType(contentType));
+    }
+
     @PutMapping("/admin/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ApiResponse<WalletTransactionResponse> updateTransaction(
@@ -4,7 +4,6 @@ import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,6 +19,7 @@ import com.nos.backend_api.DTO.request.RequestDto.UpdateUserRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.UserResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
 import com.nos.backend_api.services.user.UserService;
 
 import jakarta.validation.Valid;
@@ -33,7 +33,7 @@ public class UserController {
     private final UserService userService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @GetMapping("/profile")
@@ -4,11 +4,11 @@ import java.util.UUID;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.nos.backend_api.DTO.request.RequestDto.ActivateWalletRequest;
@@ -19,6 +19,7 @@ import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
+import com.nos.backend_api.configuration.AuthPrincipal;
 import com.nos.backend_api.services.wallet.WalletService;
 
 import jakarta.validation.Valid;
@@ -32,7 +33,7 @@ public class WalletController {
     private final WalletService walletService;
 
     private UUID getCurrentUserId() {
-        return UUID.fromString(SecurityContextHolder.getContext().getAuthentication().getName());
+        return AuthPrincipal.current().userId();
     }
 
     @PostMapping("/deposit")
@@ -65,6 +66,14 @@ public class WalletController {
         return walletService.getTransactions(getCurrentUserId(), pageable);
     }
 
+    @GetMapping("/transactions/cursor")
+    @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
+    public ApiResponse<ResponseDto.CursorPagedResponse<WalletTransactionResponse>> getTransactionsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return walletService.getTransactionsByCursor(getCurrentUserId(), cursor, size);
+    }
+
     @PostMapping("/activate")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
     public ApiResponse<WalletResponse> activateWallet(@Valid @RequestBody ActivateWalletRequest request) {
@@ -20,7 +20,11 @@ public enum ErrorCode {
     NOT_FOUND(1009, "Not found", HttpStatus.NOT_FOUND),
     EXISTS(1009, "Not found", HttpStatus.NOT_FOUND),
     BAD_REQUEST(1009, "server unhealthy", HttpStatus.INTERNAL_SERVER_ERROR),
-    PASSWORD_NOT_MATCH(1010, "Password and Confirm Password do not match", HttpStatus.BAD_REQUEST)
+    PASSWORD_NOT_MATCH(1010, "Password and Confirm Password do not match", HttpStatus.BAD_REQUEST),
+    CONCURRENT_UPDATE(1011, "Resource is being updated by another request, please retry", HttpStatus.CONFLICT),
+    TOO_MANY_REQUESTS(1012, "Server is busy, please retry shortly", HttpStatus.TOO_MANY_REQUESTS),
+    TRANSACTION_ALREADY_REVERSED(1013, "Transaction has already been reversed", HttpStatus.CONFLICT),
+    SETTLEMENT_ALREADY_IMPORTED(1014, "Settlement has already been imported", HttpStatus.CONFLICT)
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
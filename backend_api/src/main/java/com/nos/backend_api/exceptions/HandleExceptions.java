@@ -3,6 +3,7 @@ package com.nos.backend_api.exceptions;
 import java.util.Map;
 import java.util.Objects;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -18,6 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class HandleExceptions {
     private static final String MIN_ATTRIBUTE = "min";
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     @ExceptionHandler(value = Exception.class)
     ResponseEntity<ApiResponse<Object>> handlingRuntimeException(RuntimeException exception) {
@@ -38,6 +40,16 @@ public class HandleExceptions {
         apiResponse.setStatus(errorCode.getStatusCode());
         apiResponse.setMessage(errorCode.getMessage());
 
+        if (exception instanceof RateLimitExceededException limited) {
+            return ResponseEntity.status(errorCode.getStatusCode())
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(limited.getRetryAfterSeconds()))
+                    .body(apiResponse);
+        }
+        if (errorCode == ErrorCode.TOO_MANY_REQUESTS) {
+            return ResponseEntity.status(errorCode.getStatusCode())
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(apiResponse);
+        }
         return ResponseEntity.status(errorCode.getStatusCode()).body(apiResponse);
     }
 
@@ -0,0 +1,54 @@
+package com.nos.backend_api.models.admin;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Số liệu của một giờ. Được ghi bằng upsert từ AnalyticsRollupService, entity chỉ dùng để đọc.
+ */
+@Entity
+@Table(name = "report_hourly")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportHourly {
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_revenue", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalRevenue;
+
+    @Column(name = "total_orders", nullable = false)
+    private Integer totalOrders;
+
+    @Column(name = "total_products_sold", nullable = false)
+    private Integer totalProductsSold;
+
+    @Column(name = "new_users_registered", nullable = false)
+    private Integer newUsersRegistered;
+
+    @Column(name = "positive_reviews", nullable = false)
+    private Integer positiveReviews;
+
+    @Column(name = "negative_reviews", nullable = false)
+    private Integer negativeReviews;
+
+    @Column(name = "items_in_active_carts")
+    private Integer itemsInActiveCarts;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
@@ -32,10 +32,13 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// Partitioned by month on order_date (see DataBase/Schema.sql); the BRIN index on order_date
+// lives in the schema script because JPA cannot declare it.
 @Table(name = "orders", indexes = {
         @jakarta.persistence.Index(name = "idx_orders_user_id", columnList = "user_id"),
-        @jakarta.persistence.Index(name = "idx_orders_status", columnList = "status"),
-        @jakarta.persistence.Index(name = "idx_orders_date", columnList = "order_date")
+        @jakarta.persistence.Index(name = "idx_orders_status", columnList = "status")
+}, uniqueConstraints = {
+        @jakarta.persistence.UniqueConstraint(name = "uk_orders_id_order_date", columnNames = { "id", "order_date" })
 })
 @Getter
 @Setter
@@ -78,7 +81,7 @@ public class Order extends AbstractEntity {
                                                       // REFUNDED
 
     @Builder.Default
-    @Column(name = "order_date", nullable = false)
+    @Column(name = "order_date", nullable = false, updatable = false)
     private LocalDateTime orderDate = LocalDateTime.now();
 
     @Column(name = "due_date")
@@ -1,6 +1,8 @@
 package com.nos.backend_api.models.payment;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
@@ -29,6 +31,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// Partitioned by month on order_date, co-located with the parent order's partition.
 @Table(name = "order_details", indexes = {
         @jakarta.persistence.Index(name = "idx_order_details_order_id", columnList = "order_id"),
         @jakarta.persistence.Index(name = "idx_order_details_variant_id", columnList = "product_variant_id")
@@ -46,15 +49,37 @@ public class OrderDetail extends AbstractEntity {
 
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id", nullable = false, foreignKey = @ForeignKey(name = "fk_order_details_orders", foreignKeyDefinition = "FOREIGN KEY (order_id) REFERENCES orders(id)"))
+    @JoinColumn(name = "order_id", nullable = false, foreignKey = @ForeignKey(name = "fk_order_details_orders", foreignKeyDefinition = "FOREIGN KEY (order_id, order_date) REFERENCES orders(id, order_date) ON DELETE CASCADE"))
     @OnDelete(action = OnDeleteAction.CASCADE)
     private Order order;
 
+    // Copy of orders.order_date: partition key, lets date-range queries prune without joining orders
     @NotNull
+    @Column(name = "order_date", nullable = false, updatable = false)
+    private LocalDateTime orderDate;
+
+    // Null once the variant is removed from the catalog; the snapshot below keeps the history readable
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "product_variant_id", nullable = false, foreignKey = @ForeignKey(name = "fk_order_details_variants", foreignKeyDefinition = "FOREIGN KEY (product_variant_id) REFERENCES product_variants(id) ON DELETE RESTRICT"))
+    @JoinColumn(name = "product_variant_id", foreignKey = @ForeignKey(name = "fk_order_details_variants", foreignKeyDefinition = "FOREIGN KEY (product_variant_id) REFERENCES product_variants(id) ON DELETE SET NULL"))
     private ProductVariant productVariant;
 
+    // Snapshot of the catalog at checkout: order history, emails and analytics read these
+    // instead of joining products / product_variants / product_images
+    @Column(name = "product_id")
+    private UUID productId;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "sku")
+    private String sku;
+
+    @Column(name = "attribute_summary")
+    private String attributeSummary;
+
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
     @NotNull
     @Builder.Default
     @Column(name = "quantity", nullable = false)
@@ -2,6 +2,7 @@ package com.nos.backend_api.models.payment;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 import org.hibernate.annotations.OnDelete;
@@ -13,6 +14,7 @@ import com.nos.backend_api.models.AbstractEntity;
 import com.nos.backend_api.models.user_info.Wallet;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -33,9 +35,9 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+// Partitioned by month on transaction_date (see DataBase/Schema.sql)
 @Table(name = "wallet_transactions", indexes = {
-        @jakarta.persistence.Index(name = "idx_wallet_transactions_wallet_id", columnList = "wallet_id"),
-        @jakarta.persistence.Index(name = "idx_wallet_transactions_date", columnList = "transaction_date")
+        @jakarta.persistence.Index(name = "idx_wallet_transactions_wallet_date", columnList = "wallet_id, transaction_date DESC, id DESC")
 })
 @Getter
 @Setter
@@ -64,12 +66,14 @@ public class WalletTransaction extends AbstractEntity {
     private TransactionStatus transactionStatus = TransactionStatus.PENDING; // Enum: PENDING, COMPLETED, FAILED
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(name = "fk_wallet_transactions_orders", foreignKeyDefinition = "FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE SET NULL"))
+    // Soft reference: orders is partitioned, so (order_id) alone cannot carry a foreign key
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(value = ConstraintMode.NO_CONSTRAINT))
     private Order order;
 
+    // Microseconds match the column precision, so cursors built from an in-memory row match the stored value
     @Builder.Default
-    @Column(name = "transaction_date", nullable = false)
-    private LocalDateTime transactionDate = LocalDateTime.now();
+    @Column(name = "transaction_date", nullable = false, updatable = false)
+    private LocalDateTime transactionDate = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
     @NotBlank
     @Column(name = "description", nullable = false)
@@ -77,4 +81,8 @@ public class WalletTransaction extends AbstractEntity {
 
     @Column(name = "amount", precision = 19, scale = 2, nullable = false)
     private BigDecimal amount;
+
+    // Id of the ADJUSTMENT row that reversed this completed entry; set at most once
+    @Column(name = "reversed_by")
+    private UUID reversedBy;
 }
\ No newline at end of file
@@ -74,6 +74,7 @@ public class ProductVariant extends AbstractEntity {
     @OneToMany(mappedBy = "productVariant", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<CartItem> cartItems;
 
-    @OneToMany(mappedBy = "productVariant", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    // No cascade: order lines outlive the variant (product_variant_id is set to NULL on delete)
+    @OneToMany(mappedBy = "productVariant", fetch = FetchType.LAZY)
     private Set<OrderDetail> orderDetails;
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import com.nos.backend_api.models.user_info.Account;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.ForeignKey;
@@ -58,7 +59,8 @@ public class Review extends AbstractEntity {
     private Product product;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_detail_id", foreignKey = @ForeignKey(name = "fk_reviews_order_details", foreignKeyDefinition = "FOREIGN KEY (order_detail_id) REFERENCES order_details(id) ON DELETE SET NULL"))
+    // Soft reference: order_details is partitioned, so (order_detail_id) alone cannot carry a foreign key
+    @JoinColumn(name = "order_detail_id", foreignKey = @ForeignKey(value = ConstraintMode.NO_CONSTRAINT))
     private OrderDetail orderDetail;
 
     @NotNull
@@ -0,0 +1,33 @@
+package com.nos.backend_api.models.user_info;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Tập (user, product) đã được giao thành công, ghi khi đơn chuyển sang DELIVERED.
+ * Kiểm tra quyền đánh giá chỉ là một lookup theo khóa chính.
+ */
+@Entity
+@Table(name = "user_purchased_products")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPurchasedProduct {
+    @EmbeddedId
+    private UserPurchasedProductId id;
+
+    @Builder.Default
+    @Column(name = "first_delivered_at", nullable = false)
+    private LocalDateTime firstDeliveredAt = LocalDateTime.now();
+}
@@ -0,0 +1,38 @@
+package com.nos.backend_api.models.user_info;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPurchasedProductId implements Serializable {
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "product_id")
+    private UUID productId;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserPurchasedProductId that = (UserPurchasedProductId) o;
+        return Objects.equals(userId, that.userId) && Objects.equals(productId, that.productId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, productId);
+    }
+}
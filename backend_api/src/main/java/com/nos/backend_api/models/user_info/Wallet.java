@@ -30,7 +30,10 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "wallets")
+// updated_at is bumped on every balance move; the incremental reconciliation scans by it
+@Table(name = "wallets", indexes = {
+        @jakarta.persistence.Index(name = "idx_wallets_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @Builder
@@ -51,7 +54,8 @@ public class Wallet extends AbstractEntity {
 
     @NotNull
     @Builder.Default
-    @Column(name = "balance", nullable = false, precision = 19, scale = 2)
+    // Only moved by WalletLedgerService's atomic UPDATE; never written back from the entity
+    @Column(name = "balance", nullable = false, updatable = false, precision = 19, scale = 2)
     private BigDecimal balance = BigDecimal.ZERO;
 
     @Column(name = "pin_hash")
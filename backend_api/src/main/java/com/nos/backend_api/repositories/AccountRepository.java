@@ -5,11 +5,14 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import com.nos.backend_api.DTO.data.enums.UserRole;
 import com.nos.backend_api.models.user_info.Account;
 
 @Repository
@@ -21,4 +24,15 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     List<Account> findByRole(String role);  
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     long countByActive(boolean isActive);
+
+    // Keyset page over the primary key: constant cost per page however deep the scan goes
+    @Query("SELECT a.id AS id, a.email AS email, a.fullName AS fullName FROM Account a " +
+           "WHERE a.active = true AND a.role = :role AND a.id > :afterId ORDER BY a.id")
+    List<BroadcastRecipient> findActiveRecipientsAfter(UUID afterId, UserRole role, Limit limit);
+
+    interface BroadcastRecipient {
+        UUID getId();
+        String getEmail();
+        String getFullName();
+    }
 }
\ No newline at end of file
@@ -23,6 +23,9 @@ public interface CartItemRepository extends JpaRepository<CartItem, CartItemId>
     @Query("DELETE FROM CartItem ci WHERE ci.cart.user.id = :userId")
     void deleteByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.user.id = :userId")
+    int sumQuantityByUserId(@Param("userId") UUID userId);
+
     void deleteAllByCartId(UUID id);
 
     List<CartItem> findAllByCartId(UUID id);
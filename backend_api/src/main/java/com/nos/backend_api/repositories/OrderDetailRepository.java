@@ -14,14 +14,17 @@ import com.nos.backend_api.models.payment.OrderDetail;
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
     List<OrderDetail> findByOrderId(UUID orderId);
+    // Bounds on both partition keys so order_details and orders are pruned to the same months
     @Query("SELECT COALESCE(SUM(od.quantity), 0) FROM OrderDetail od JOIN od.order o " +
-           "WHERE o.orderDate >= :start AND o.orderDate < :end " +
+           "WHERE od.orderDate >= :start AND od.orderDate < :end " +
+           "AND o.orderDate >= :start AND o.orderDate < :end " +
            "AND o.status = com.nos.backend_api.DTO.data.enums.OrderStatus.DELIVERED")
     int sumQuantityByOrderDateBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    @Query("SELECT COUNT(od) > 0 FROM OrderDetail od " +
-       "JOIN od.order o " +
-       "WHERE o.user.id = :userId AND od.productVariant.product.id = :productId " +
-       "AND o.status = 'DELIVERED'")
-    boolean existsByUserPurchase(@Param("userId") UUID userId, @Param("productId") UUID productId);
+    // Legacy lines have no productId snapshot and fall back to the variant's product
+    @Query("SELECT DISTINCT COALESCE(od.productId, v.product.id) FROM OrderDetail od " +
+           "LEFT JOIN od.productVariant v " +
+           "WHERE od.order.id IN :orderIds AND od.orderDate < :cutoff " +
+           "AND COALESCE(od.productId, v.product.id) IS NOT NULL")
+    List<UUID> findProductIdsByOrderIds(@Param("orderIds") List<UUID> orderIds, @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
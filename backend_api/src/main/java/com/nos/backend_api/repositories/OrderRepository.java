@@ -1,6 +1,7 @@
 package com.nos.backend_api.repositories;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -27,8 +28,31 @@ public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecific
     @Query("UPDATE Order o SET o.status = :status WHERE o.id = :id")
     int updateStatusById(@Param("id") UUID id, @Param("status") OrderStatus status);
     
-    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'DELIVERED' AND o.orderDate >= :fromDate")
-    java.math.BigDecimal getTotalRevenueFromDate(@Param("fromDate") java.time.LocalDateTime fromDate);
+    @Query("SELECT COALESCE(SUM(o.totalAmount), 0) FROM Order o WHERE o.status = 'DELIVERED' " +
+           "AND o.orderDate >= :start AND o.orderDate < :end")
+    java.math.BigDecimal getTotalRevenueBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
     int countByOrderDateGreaterThanEqualAndStatus(LocalDateTime todayStart, OrderStatus delivered);
     long countByOrderDateBetweenAndStatus(LocalDateTime start, LocalDateTime end, OrderStatus status);
+
+    // Keyset chunk of expired PENDING orders. SKIP LOCKED lets several pods drain the backlog
+    // in parallel without claiming the same rows.
+    @Query(value = "SELECT o.id FROM orders o WHERE o.status = 'PENDING' AND o.order_date < :cutoff " +
+           "AND (o.order_date, o.id) > (:afterDate, :afterId) " +
+           "ORDER BY o.order_date, o.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> lockExpiredPendingIds(@Param("cutoff") LocalDateTime cutoff,
+                                     @Param("afterDate") LocalDateTime afterDate,
+                                     @Param("afterId") UUID afterId,
+                                     @Param("limit") int limit);
+
+    // LEFT: user_id is nullable (ON DELETE SET NULL); a deleted user's orders are still cancelled and restocked
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.user JOIN FETCH o.paymentMethod " +
+           "WHERE o.id IN :ids ORDER BY o.orderDate, o.id")
+    List<Order> findAllWithUserAndPaymentMethodByIdIn(@Param("ids") List<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.nos.backend_api.DTO.data.enums.OrderStatus.CANCELLED, " +
+           "o.version = o.version + 1, o.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE o.id IN :ids AND o.orderDate < :cutoff " +
+           "AND o.status = com.nos.backend_api.DTO.data.enums.OrderStatus.PENDING")
+    int cancelPendingByIds(@Param("ids") List<UUID> ids, @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
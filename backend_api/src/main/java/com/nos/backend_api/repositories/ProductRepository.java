@@ -1,6 +1,8 @@
 package com.nos.backend_api.repositories;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -8,6 +10,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
@@ -61,4 +64,17 @@ public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpec
 
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants v LEFT JOIN FETCH v.images WHERE p.id = :id")
     Optional<Product> findByIdWithDetails(@Param("id") UUID id);
+
+    // One UPDATE per chunk: quantities of all given orders are summed per product first.
+    // Lines written before the snapshot columns existed resolve their product through the variant.
+    @Modifying
+    @Query(value = "UPDATE products p SET quantity_in_stock = p.quantity_in_stock + s.qty, " +
+           "quantity_sales = GREATEST(p.quantity_sales - s.qty, 0), " +
+           "version = COALESCE(p.version, 0) + 1, updated_at = NOW() " +
+           "FROM (SELECT COALESCE(od.product_id, pv.product_id) AS product_id, SUM(od.quantity) AS qty " +
+           "FROM order_details od LEFT JOIN product_variants pv ON pv.id = od.product_variant_id " +
+           "WHERE od.order_id IN (:orderIds) AND od.order_date < :cutoff " +
+           "GROUP BY COALESCE(od.product_id, pv.product_id)) s " +
+           "WHERE p.id = s.product_id", nativeQuery = true)
+    int restoreStockForOrders(@Param("orderIds") List<UUID> orderIds, @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
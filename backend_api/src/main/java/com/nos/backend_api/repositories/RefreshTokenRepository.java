@@ -1,6 +1,5 @@
 package com.nos.backend_api.repositories;
 
-import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,11 +16,6 @@ import com.nos.backend_api.models.auth.RefreshToken;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
     Optional<RefreshToken> findByUserId(UUID userId);
     
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now")
-    int deleteExpired(@Param("now") Instant now);
-    
     @Modifying
     @Transactional
     @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
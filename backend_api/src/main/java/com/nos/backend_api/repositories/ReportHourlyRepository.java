@@ -0,0 +1,14 @@
+package com.nos.backend_api.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.nos.backend_api.models.admin.ReportHourly;
+
+@Repository
+public interface ReportHourlyRepository extends JpaRepository<ReportHourly, LocalDateTime> {
+    Optional<ReportHourly> findTopByOrderByBucketStartDesc();
+}
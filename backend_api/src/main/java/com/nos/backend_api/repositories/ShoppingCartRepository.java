@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.nos.backend_api.models.shopping_cart.ShoppingCart;
@@ -15,4 +16,7 @@ public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, UUID
 
     @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci")
     int sumItemsInActiveCarts();
+
+    @Query("SELECT COALESCE(SUM(ci.quantity), 0) FROM CartItem ci WHERE ci.cart.user.id = :userId")
+    int sumItemsByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.nos.backend_api.repositories;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.nos.backend_api.models.user_info.UserPurchasedProduct;
+import com.nos.backend_api.models.user_info.UserPurchasedProductId;
+
+@Repository
+public interface UserPurchasedProductRepository extends JpaRepository<UserPurchasedProduct, UserPurchasedProductId> {
+    // Products of a delivered order, read from the order_details snapshot (or the variant for legacy lines);
+    // already known pairs are skipped
+    @Modifying
+    @Query(value = "INSERT INTO user_purchased_products (user_id, product_id, first_delivered_at) " +
+           "SELECT DISTINCT :userId, COALESCE(od.product_id, pv.product_id), NOW() FROM order_details od " +
+           "LEFT JOIN product_variants pv ON pv.id = od.product_variant_id " +
+           "WHERE od.order_id = :orderId AND od.order_date = :orderDate " +
+           "AND COALESCE(od.product_id, pv.product_id) IS NOT NULL " +
+           "ON CONFLICT (user_id, product_id) DO NOTHING", nativeQuery = true)
+    int recordDeliveredOrder(@Param("userId") UUID userId,
+                             @Param("orderId") UUID orderId,
+                             @Param("orderDate") LocalDateTime orderDate);
+
+    // Every delivered order placed before the table existed; safe to re-run
+    @Modifying
+    @Query(value = "INSERT INTO user_purchased_products (user_id, product_id, first_delivered_at) " +
+           "SELECT o.user_id, COALESCE(od.product_id, pv.product_id), MIN(o.order_date) FROM orders o " +
+           "JOIN order_details od ON od.order_id = o.id AND od.order_date = o.order_date " +
+           "LEFT JOIN product_variants pv ON pv.id = od.product_variant_id " +
+           "WHERE o.status = 'DELIVERED' AND o.user_id IS NOT NULL AND COALESCE(od.product_id, pv.product_id) IS NOT NULL " +
+           "GROUP BY o.user_id, COALESCE(od.product_id, pv.product_id) " +
+           "ON CONFLICT (user_id, product_id) DO NOTHING", nativeQuery = true)
+    int backfillFromDeliveredOrders();
+}
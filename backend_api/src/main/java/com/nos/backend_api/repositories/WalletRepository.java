@@ -1,10 +1,15 @@
 package com.nos.backend_api.repositories;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.nos.backend_api.models.user_info.Wallet;
@@ -14,5 +19,17 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
     Optional<Wallet> findByUserId(UUID userId);
     
     @Query(value = "SELECT COALESCE(SUM(balance), 0) FROM wallets WHERE is_active = true", nativeQuery = true)
-    java.math.BigDecimal getTotalActiveBalance();
+    BigDecimal getTotalActiveBalance();
+
+    // Atomic balance move; no row is returned when the result would go negative
+    @Query(value = "UPDATE wallets SET balance = balance + :delta, updated_at = NOW() " +
+           "WHERE id = :walletId AND balance + :delta >= 0 RETURNING balance", nativeQuery = true)
+    Optional<BigDecimal> applyDelta(@Param("walletId") UUID walletId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query(value = "UPDATE wallets w SET balance = w.balance + s.total, updated_at = NOW() " +
+           "FROM (SELECT o.user_id, SUM(o.total_amount) AS total FROM orders o " +
+           "WHERE o.id IN (:orderIds) AND o.order_date < :cutoff GROUP BY o.user_id) s " +
+           "WHERE w.user_id = s.user_id", nativeQuery = true)
+    int refundOrders(@Param("orderIds") List<UUID> orderIds, @Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.nos.backend_api.repositories;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.nos.backend_api.models.payment.WalletTransaction;
@@ -14,4 +20,26 @@ import com.nos.backend_api.models.payment.WalletTransaction;
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, UUID>, JpaSpecificationExecutor<WalletTransaction> {
     Page<WalletTransaction> findByWalletId(UUID walletId, Pageable pageable);
     Page<WalletTransaction> findAllByWalletUserId(UUID userId, Pageable pageable);
+    List<WalletTransaction> findByWalletIdOrderByTransactionDateDescIdDesc(UUID walletId, Limit limit);
+    List<WalletTransaction> findByWalletUserIdOrderByTransactionDateDescIdDesc(UUID userId, Limit limit);
+
+    // Keyset page strictly older than the cursor row; served by idx_wallet_transactions_wallet_date
+    @Query(value = "SELECT t.* FROM wallet_transactions t JOIN wallets w ON w.id = t.wallet_id " +
+           "WHERE w.user_id = :userId AND (t.transaction_date, t.id) < (:beforeDate, :beforeId) " +
+           "ORDER BY t.transaction_date DESC, t.id DESC LIMIT :limit", nativeQuery = true)
+    List<WalletTransaction> findByUserIdBefore(@Param("userId") UUID userId,
+                                               @Param("beforeDate") LocalDateTime beforeDate,
+                                               @Param("beforeId") UUID beforeId,
+                                               @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT INTO wallet_transactions (id, wallet_id, transaction_type, transaction_status, order_id, " +
+           "transaction_date, description, amount, created_at, updated_at, version) " +
+           "SELECT gen_random_uuid(), w.id, 'REFUND', 'COMPLETED', o.id, NOW(), :descriptionPrefix || o.id, " +
+           "o.total_amount, NOW(), NOW(), 0 " +
+           "FROM orders o JOIN wallets w ON w.user_id = o.user_id " +
+           "WHERE o.id IN (:orderIds) AND o.order_date < :cutoff", nativeQuery = true)
+    int insertRefundsForOrders(@Param("orderIds") List<UUID> orderIds,
+                               @Param("cutoff") LocalDateTime cutoff,
+                               @Param("descriptionPrefix") String descriptionPrefix);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.nos.backend_api.services._system;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chạy tác vụ phụ (xóa cache, gửi email) sau khi transaction hiện tại commit, chạy ngay nếu không có transaction.
+ * Lần thử bị rollback (vd. @RetryOnConflict thử lại) không kích hoạt tác vụ nào.
+ */
+@Slf4j
+public final class AfterCommit {
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // The commit already happened; a side-effect failure must not turn it into an error response
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.warn("After-commit action failed", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,330 @@
+package com.nos.backend_api.services._system;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.nos.backend_api.DTO.data.enums.NotificationLane;
+import com.nos.backend_api.DTO.data.enums.SendEmailType;
+import com.nos.backend_api.DTO.data.enums.UserRole;
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.request.RequestDto.BroadcastRequest;
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.BroadcastStatusResponse;
+import com.nos.backend_api.configuration.RabbitConfig;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.repositories.AccountRepository;
+import com.nos.backend_api.repositories.AccountRepository.BroadcastRecipient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gửi thông báo tới toàn bộ khách hàng đang hoạt động. Tài khoản được đọc theo keyset (id > checkpoint)
+ * từng lô, publish vào làn MARKETING và tạm dừng khi queue của làn đó đầy. Checkpoint chỉ được ghi vào Redis
+ * sau khi broker xác nhận, nên job bị gián đoạn (restart, node chết) sẽ được node khác chạy tiếp
+ * từ lô chưa chắc chắn đã gửi (at-least-once). Lô chỉ được xác nhận một phần thì checkpoint tiến tới hết
+ * đoạn đầu đã ack; nếu nhiều lần liên tiếp không tiến được thì job chuyển FAILED thay vì gửi lại mãi.
+ */
+@Service
+@Slf4j
+public class BroadcastService {
+    private static final String RUNNING = "RUNNING";
+    private static final String COMPLETED = "COMPLETED";
+    private static final String CANCELLED = "CANCELLED";
+    private static final String FAILED = "FAILED";
+    private static final String DEFAULT_SUBJECT = "Notification from NoS TechStore";
+    private static final UUID START_CURSOR = new UUID(0L, 0L);
+    // Renewed after every batch; a job whose lock expired has lost its runner and can be resumed
+    private static final long LOCK_TTL_SECONDS = 120;
+    private static final long JOB_TTL_DAYS = 30;
+
+    private final AccountRepository accountRepository;
+    private final NotificationProducer notificationProducer;
+    private final RedisService redisService;
+    private final AmqpAdmin amqpAdmin;
+    private final Counter recipientsCounter;
+    private final int batchSize;
+    private final long batchDelayMs;
+    private final long maxQueueDepth;
+    private final long confirmTimeoutMs;
+    private final int maxUnconfirmedAttempts;
+
+    public BroadcastService(AccountRepository accountRepository,
+                            NotificationProducer notificationProducer,
+                            RedisService redisService,
+                            AmqpAdmin amqpAdmin,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.broadcast.batch-size:500}") int batchSize,
+                            @Value("${app.broadcast.batch-delay-ms:1000}") long batchDelayMs,
+                            @Value("${app.broadcast.max-queue-depth:5000}") long maxQueueDepth,
+                            @Value("${app.broadcast.confirm-timeout-ms:60000}") long confirmTimeoutMs,
+                            @Value("${app.broadcast.max-unconfirmed-attempts:5}") int maxUnconfirmedAttempts) {
+        this.accountRepository = accountRepository;
+        this.notificationProducer = notificationProducer;
+        this.redisService = redisService;
+        this.amqpAdmin = amqpAdmin;
+        this.recipientsCounter = Counter.builder("notifications.broadcast.recipients").register(meterRegistry);
+        this.batchSize = Math.max(1, batchSize);
+        this.batchDelayMs = batchDelayMs;
+        this.maxQueueDepth = maxQueueDepth;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.maxUnconfirmedAttempts = Math.max(1, maxUnconfirmedAttempts);
+    }
+
+    // POST /admin/notifications/broadcast
+    public ApiResponse<BooleanResponse> startBroadcast(BroadcastRequest request) {
+        String lockToken = acquireLock();
+        if (lockToken == null) {
+            return ApiResponse.success(BooleanResponse.builder().success(false).build(), "A broadcast is already running");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BroadcastStatusResponse job = BroadcastStatusResponse.builder()
+                .jobId(UUID.randomUUID())
+                .status(RUNNING)
+                .subject(StringUtils.hasText(request.getSubject()) ? request.getSubject().trim() : DEFAULT_SUBJECT)
+                .message(request.getMessage())
+                .lastAccountId(START_CURSOR)
+                .recipientsQueued(0)
+                .startedAt(now)
+                .updatedAt(now)
+                .build();
+        saveJob(job);
+        startRunner(job, lockToken);
+        return ApiResponse.success(BooleanResponse.builder().success(true).build(), "Broadcast started");
+    }
+
+    // GET /admin/notifications/broadcast
+    public ApiResponse<BroadcastStatusResponse> getStatus() {
+        BroadcastStatusResponse job = loadJob();
+        if (job == null) {
+            throw new AppException(ErrorCode.NOT_FOUND);
+        }
+        return ApiResponse.success(job);
+    }
+
+    // POST /admin/notifications/broadcast/cancel
+    public ApiResponse<BooleanResponse> cancelBroadcast() {
+        BroadcastStatusResponse job = loadJob();
+        if (job == null || !RUNNING.equals(job.getStatus())) {
+            return ApiResponse.success(BooleanResponse.builder().success(false).build(), "No broadcast is running");
+        }
+        String lockToken = acquireLock();
+        if (lockToken != null) {
+            // Nobody is running it right now, so nobody else writes the job
+            try {
+                finish(job, CANCELLED);
+            } finally {
+                releaseLock(lockToken);
+            }
+        } else {
+            // Only the runner writes the job while it holds the lock; it checks this flag before every batch
+            redisService.setValue(RedisData.BROADCAST_CANCEL, job.getJobId().toString(), JOB_TTL_DAYS, TimeUnit.DAYS);
+        }
+        return ApiResponse.success(BooleanResponse.builder().success(true).build(), "Broadcast cancelled");
+    }
+
+    // Picks up a job whose runner died with its node, once that node's lock has expired
+    @Scheduled(fixedDelayString = "${app.broadcast.resume-check-interval-ms:60000}")
+    public void resumeInterruptedBroadcast() {
+        try {
+            BroadcastStatusResponse job = loadJob();
+            if (job == null || !RUNNING.equals(job.getStatus())) {
+                return;
+            }
+            String lockToken = acquireLock();
+            if (lockToken != null) {
+                // Re-read under the lock: the previous runner may have written the job after the first read
+                job = loadJob();
+                if (job == null || !RUNNING.equals(job.getStatus())) {
+                    releaseLock(lockToken);
+                    return;
+                }
+                log.info("Resuming broadcast {} after account {}", job.getJobId(), job.getLastAccountId());
+                startRunner(job, lockToken);
+            }
+        } catch (Exception e) {
+            log.warn("Could not check for an interrupted broadcast", e);
+        }
+    }
+
+    private void startRunner(BroadcastStatusResponse job, String lockToken) {
+        Thread.ofVirtual().name("notification-broadcast").start(() -> {
+            try {
+                run(job, lockToken);
+            } catch (LockLostException e) {
+                // Another node owns the job now; writing it from here would undo that runner's progress
+                log.warn("Broadcast {} lost its lock at account {}, stopping this runner", job.getJobId(), job.getLastAccountId());
+                return;
+            } catch (UnconfirmedBatchException e) {
+                handleUnconfirmedBatch(job, lockToken);
+            } catch (Exception e) {
+                log.error("Broadcast {} failed at account {}", job.getJobId(), job.getLastAccountId(), e);
+                if (redisService.renewLock(RedisData.BROADCAST_LOCK, lockToken, LOCK_TTL_SECONDS, TimeUnit.SECONDS)) {
+                    finish(job, FAILED);
+                }
+            }
+            releaseLock(lockToken);
+        });
+    }
+
+    private void run(BroadcastStatusResponse job, String lockToken) throws InterruptedException {
+        UUID cursor = job.getLastAccountId() != null ? job.getLastAccountId() : START_CURSOR;
+        while (true) {
+            if (job.getJobId().toString().equals(redisService.getValue(RedisData.BROADCAST_CANCEL))) {
+                renewLock(lockToken);
+                finish(job, CANCELLED);
+                log.info("Broadcast {} cancelled at account {}", job.getJobId(), cursor);
+                return;
+            }
+            awaitQueueCapacity(lockToken);
+
+            List<BroadcastRecipient> recipients = accountRepository.findActiveRecipientsAfter(
+                    cursor, UserRole.USER, Limit.of(batchSize));
+            if (recipients.isEmpty()) {
+                break;
+            }
+            List<NotificationProducer.EmailMessage> messages = new ArrayList<>(recipients.size());
+            for (BroadcastRecipient recipient : recipients) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("subject", job.getSubject());
+                data.put("userName", recipient.getFullName());
+                data.put("message", job.getMessage());
+                messages.add(new NotificationProducer.EmailMessage(recipient.getEmail(), SendEmailType.BROADCAST, data));
+            }
+            List<Boolean> acked = awaitConfirms(notificationProducer.sendNotificationsConfirmed(messages), lockToken);
+            int confirmed = 0;
+            while (confirmed < acked.size() && acked.get(confirmed)) {
+                confirmed++;
+            }
+            recipientsCounter.increment(confirmed);
+
+            // Everything up to here is in the broker: only now may a resumed runner skip it
+            renewLock(lockToken);
+            if (confirmed > 0) {
+                cursor = recipients.get(confirmed - 1).getId();
+                job.setLastAccountId(cursor);
+                job.setRecipientsQueued(job.getRecipientsQueued() + confirmed);
+                job.setUnconfirmedAttempts(0);
+                job.setUpdatedAt(LocalDateTime.now());
+                saveJob(job);
+            }
+            if (confirmed < messages.size()) {
+                throw new UnconfirmedBatchException();
+            }
+
+            if (recipients.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(batchDelayMs);
+        }
+        renewLock(lockToken);
+        finish(job, COMPLETED);
+        log.info("Broadcast {} queued {} emails", job.getJobId(), job.getRecipientsQueued());
+    }
+
+    // Left RUNNING so the resume check re-sends from the checkpoint, unless that checkpoint already failed too often
+    private void handleUnconfirmedBatch(BroadcastStatusResponse job, String lockToken) {
+        if (!redisService.renewLock(RedisData.BROADCAST_LOCK, lockToken, LOCK_TTL_SECONDS, TimeUnit.SECONDS)) {
+            return;
+        }
+        job.setUnconfirmedAttempts(job.getUnconfirmedAttempts() + 1);
+        job.setUpdatedAt(LocalDateTime.now());
+        if (job.getUnconfirmedAttempts() >= maxUnconfirmedAttempts) {
+            log.error("Broadcast {} could not get past account {} in {} attempts, giving up",
+                    job.getJobId(), job.getLastAccountId(), job.getUnconfirmedAttempts());
+            finish(job, FAILED);
+            return;
+        }
+        log.warn("Broadcast {} batch after account {} was not confirmed (attempt {}/{}), it will be resumed",
+                job.getJobId(), job.getLastAccountId(), job.getUnconfirmedAttempts(), maxUnconfirmedAttempts);
+        saveJob(job);
+    }
+
+    // Keep the marketing lane short so a broadcast never turns into hours of backlog in the broker
+    private void awaitQueueCapacity(String lockToken) throws InterruptedException {
+        String queue = RabbitConfig.laneQueue(NotificationLane.MARKETING);
+        while (true) {
+            QueueInformation info = amqpAdmin.getQueueInfo(queue);
+            if (info == null || info.getMessageCount() < maxQueueDepth) {
+                return;
+            }
+            renewLock(lockToken);
+            Thread.sleep(Math.max(batchDelayMs, 1000));
+        }
+    }
+
+    // Keeps the lock alive while the broker confirms; a slow confirm must not look like a dead runner
+    private List<Boolean> awaitConfirms(CompletableFuture<List<Boolean>> confirmed, String lockToken)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + confirmTimeoutMs;
+        long renewEveryMs = TimeUnit.SECONDS.toMillis(LOCK_TTL_SECONDS) / 4;
+        while (true) {
+            try {
+                return confirmed.get(Math.min(renewEveryMs, Math.max(1, deadline - System.currentTimeMillis())),
+                        TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new UnconfirmedBatchException();
+                }
+                renewLock(lockToken);
+            } catch (ExecutionException e) {
+                throw new UnconfirmedBatchException();
+            }
+        }
+    }
+
+    private void finish(BroadcastStatusResponse job, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(status);
+        job.setUpdatedAt(now);
+        job.setFinishedAt(now);
+        saveJob(job);
+    }
+
+    private BroadcastStatusResponse loadJob() {
+        return redisService.getValue(RedisData.BROADCAST_JOB) instanceof BroadcastStatusResponse job ? job : null;
+    }
+
+    private void saveJob(BroadcastStatusResponse job) {
+        redisService.setValue(RedisData.BROADCAST_JOB, job, JOB_TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    private String acquireLock() {
+        return redisService.tryLock(RedisData.BROADCAST_LOCK, LOCK_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void renewLock(String lockToken) {
+        if (!redisService.renewLock(RedisData.BROADCAST_LOCK, lockToken, LOCK_TTL_SECONDS, TimeUnit.SECONDS)) {
+            throw new LockLostException();
+        }
+    }
+
+    private void releaseLock(String lockToken) {
+        redisService.releaseLock(RedisData.BROADCAST_LOCK, lockToken);
+    }
+
+    private static final class LockLostException extends RuntimeException {
+    }
+
+    private static final class UnconfirmedBatchException extends RuntimeException {
+    }
+}
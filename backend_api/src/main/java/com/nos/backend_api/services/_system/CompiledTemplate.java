@@ -0,0 +1,90 @@
+package com.nos.backend_api.services._system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Template email được tách một lần lúc khởi động thành các đoạn chữ cố định và placeholder {key}.
+ * Render là một lượt duy nhất vào StringBuilder đã cấp phát sẵn, không tạo chuỗi trung gian theo từng key.
+ */
+public final class CompiledTemplate {
+    // Rough room for one substituted value, so most renders never grow the builder
+    private static final int VALUE_SIZE_HINT = 16;
+
+    // literals[i] comes before keys[i]; the last literal closes the template
+    private final String[] literals;
+    private final String[] keys;
+    private final int literalLength;
+
+    private CompiledTemplate(String[] literals, String[] keys) {
+        this.literals = literals;
+        this.keys = keys;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int literalStart = 0;
+        int open = source.indexOf('{');
+        while (open >= 0) {
+            int close = source.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            if (isKey(source, open + 1, close)) {
+                literals.add(source.substring(literalStart, open));
+                keys.add(source.substring(open + 1, close));
+                literalStart = close + 1;
+                open = source.indexOf('{', literalStart);
+            } else {
+                // A brace that is not a placeholder (e.g. CSS in an HTML template) stays literal
+                open = source.indexOf('{', open + 1);
+            }
+        }
+        literals.add(source.substring(literalStart));
+        return new CompiledTemplate(literals.toArray(String[]::new), keys.toArray(String[]::new));
+    }
+
+    public String render(Map<String, Object> data) {
+        return render(data, UnaryOperator.identity());
+    }
+
+    /**
+     * Thay placeholder bằng giá trị đã qua escaper (ví dụ escape HTML). Key không có trong data
+     * được giữ nguyên dạng {key}, giống cách render cũ.
+     */
+    public String render(Map<String, Object> data, UnaryOperator<String> escaper) {
+        StringBuilder out = new StringBuilder(literalLength + keys.length * VALUE_SIZE_HINT);
+        for (int i = 0; i < keys.length; i++) {
+            out.append(literals[i]);
+            String key = keys[i];
+            if (data != null && data.containsKey(key)) {
+                out.append(escaper.apply(String.valueOf(data.get(key))));
+            } else {
+                out.append('{').append(key).append('}');
+            }
+        }
+        out.append(literals[keys.length]);
+        return out.toString();
+    }
+
+    private static boolean isKey(String source, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
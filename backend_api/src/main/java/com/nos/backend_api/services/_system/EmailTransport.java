@@ -0,0 +1,18 @@
+package com.nos.backend_api.services._system;
+
+/**
+ * Kênh gửi email đã render xong. Chọn bằng app.email.transport: resend (mặc định), smtp hoặc sink.
+ */
+public interface EmailTransport {
+
+    String name();
+
+    void send(OutgoingEmail email) throws EmailTransportException;
+
+    // Only real providers need the client-side send throttle
+    default boolean rateLimited() {
+        return true;
+    }
+
+    record OutgoingEmail(String from, String to, String subject, String text, String html) {}
+}
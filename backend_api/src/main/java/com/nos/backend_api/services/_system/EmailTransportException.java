@@ -0,0 +1,16 @@
+package com.nos.backend_api.services._system;
+
+import lombok.Getter;
+
+/**
+ * Lỗi gửi email; retryable = false khi gửi lại cũng không thể thành công (địa chỉ sai, request bị từ chối).
+ */
+@Getter
+public class EmailTransportException extends Exception {
+    private final boolean retryable;
+
+    public EmailTransportException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+}
@@ -0,0 +1,72 @@
+package com.nos.backend_api.services._system;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Khóa phân tán cho các job chạy lâu: TTL ngắn được gia hạn nền trong lúc job chạy,
+ * nên node chết nhả khóa nhanh mà job dài (quét toàn bộ, backfill) vẫn giữ được khóa.
+ * Đóng (try-with-resources) sẽ dừng gia hạn và nhả khóa nếu còn giữ.
+ */
+@Slf4j
+public final class LockKeeper implements AutoCloseable {
+    private final RedisService redisService;
+    private final String key;
+    private final String token;
+    private final long ttlMillis;
+    private final Thread renewer;
+    private volatile boolean lost;
+
+    private LockKeeper(RedisService redisService, String key, String token, long ttlMillis) {
+        this.redisService = redisService;
+        this.key = key;
+        this.token = token;
+        this.ttlMillis = ttlMillis;
+        this.renewer = Thread.ofVirtual().name("lock-keeper-" + key).start(this::renewUntilClosed);
+    }
+
+    /**
+     * Trả về null nếu khóa đang bị node khác giữ.
+     */
+    public static LockKeeper tryAcquire(RedisService redisService, String key, long ttl, TimeUnit unit) {
+        String token = redisService.tryLock(key, ttl, unit);
+        return token != null ? new LockKeeper(redisService, key, token, unit.toMillis(ttl)) : null;
+    }
+
+    // Another node may already hold the lock; stop before writing over its results
+    public void ensureHeld() {
+        if (lost) {
+            throw new IllegalStateException("Lock " + key + " lost");
+        }
+    }
+
+    private void renewUntilClosed() {
+        try {
+            while (true) {
+                // Three attempts per TTL, so one failed renewal does not lose the lock
+                Thread.sleep(Math.max(1, ttlMillis / 3));
+                try {
+                    if (!redisService.renewLock(key, token, ttlMillis, TimeUnit.MILLISECONDS)) {
+                        lost = true;
+                        log.warn("Lock {} expired before it was renewed, stopping the run", key);
+                        return;
+                    }
+                } catch (Exception e) {
+                    // Still held until the TTL runs out; the next attempt may get through
+                    log.warn("Failed to renew lock {}", key, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        renewer.interrupt();
+        if (!lost) {
+            redisService.releaseLock(key, token);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.nos.backend_api.services._system;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transport cục bộ cho môi trường dev và load test: ghi email đã render nối tiếp vào một file log
+ * được ánh xạ bộ nhớ (memory-mapped), không gọi ra ngoài và không bị giới hạn tốc độ.
+ */
+@Component
+@ConditionalOnProperty(name = "app.email.transport", havingValue = "sink")
+@Slf4j
+public class MappedFileEmailTransport implements EmailTransport {
+    private final FileChannel channel;
+    private final long segmentSize;
+    // File offset where the current mapped segment starts
+    private long segmentStart;
+    private MappedByteBuffer segment;
+
+    public MappedFileEmailTransport(@Value("${app.email.sink.path:email-sink.log}") String path,
+                                    @Value("${app.email.sink.segment-size-mb:64}") long segmentSizeMb) throws IOException {
+        Path file = Path.of(path).toAbsolutePath();
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.segmentSize = Math.max(1, segmentSizeMb) * 1024 * 1024;
+        this.segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        log.info("Email sink writing to {}", file);
+    }
+
+    @Override
+    public String name() {
+        return "sink";
+    }
+
+    @Override
+    public boolean rateLimited() {
+        return false;
+    }
+
+    @Override
+    public synchronized void send(OutgoingEmail email) throws EmailTransportException {
+        StringBuilder record = new StringBuilder()
+                .append("=== ").append(Instant.now()).append('\n')
+                .append("From: ").append(email.from()).append('\n')
+                .append("To: ").append(email.to()).append('\n')
+                .append("Subject: ").append(email.subject()).append("\n\n")
+                .append(email.text()).append('\n');
+        if (email.html() != null) {
+            record.append("--- html\n").append(email.html()).append('\n');
+        }
+        byte[] bytes = record.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (segment.remaining() < bytes.length) {
+                // Map the next window right after the last written byte; the file grows as needed
+                segmentStart += segment.position();
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, Math.max(segmentSize, bytes.length));
+            }
+            segment.put(bytes);
+        } catch (IOException e) {
+            throw new EmailTransportException("Failed to write email to sink", true, e);
+        }
+    }
+
+    // Flush to disk and cut the unused tail of the last mapped window
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        segment.force();
+        channel.truncate(segmentStart + segment.position());
+        channel.close();
+    }
+}
@@ -0,0 +1,130 @@
+package com.nos.backend_api.services._system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.enums.SendEmailType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gom các thông báo cùng (email, loại) đến dồn dập trong một khoảng ngắn thành một email tổng hợp,
+ * để một loạt nạp tiền hoặc admin sửa hàng loạt giao dịch chỉ tạo một message và một lần gọi API gửi mail.
+ * Loại không có bản tổng hợp được gửi thẳng như cũ.
+ */
+@Service
+@Slf4j
+public class NotificationCoalescer {
+    private static final Map<SendEmailType, SendEmailType> DIGEST_TYPES = Map.of(
+            SendEmailType.TRANSACTION_NOTIFICATION, SendEmailType.TRANSACTION_DIGEST);
+
+    private final NotificationProducer notificationProducer;
+    private final MeterRegistry meterRegistry;
+    private final long windowMs;
+    private final int maxEvents;
+    private final Map<DigestKey, PendingDigest> pending = new ConcurrentHashMap<>();
+
+    public NotificationCoalescer(NotificationProducer notificationProducer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.notifications.coalesce.window-ms:5000}") long windowMs,
+                                 @Value("${app.notifications.coalesce.max-events:50}") int maxEvents) {
+        this.notificationProducer = notificationProducer;
+        this.meterRegistry = meterRegistry;
+        this.windowMs = windowMs;
+        this.maxEvents = Math.max(1, maxEvents);
+    }
+
+    public void submit(NotificationProducer.EmailMessage message) {
+        if (windowMs <= 0 || message.getEmail() == null || !DIGEST_TYPES.containsKey(message.getType())) {
+            notificationProducer.sendNotification(message);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // compute() and the remove() in flush are atomic per key, so an event lands in exactly one digest
+        pending.compute(new DigestKey(message.getEmail(), message.getType()), (key, digest) -> {
+            if (digest == null) {
+                digest = new PendingDigest(now + windowMs);
+            }
+            digest.events.add(message);
+            if (digest.events.size() >= maxEvents) {
+                digest.flushAt = now;
+            }
+            return digest;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.coalesce.flush-interval-ms:1000}")
+    public void flushDue() {
+        flush(System.currentTimeMillis());
+    }
+
+    // Buffered events only live in memory: push them out before the context goes away
+    @PreDestroy
+    public void flushAll() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void flush(long now) {
+        List<NotificationProducer.EmailMessage> outgoing = new ArrayList<>();
+        for (Map.Entry<DigestKey, PendingDigest> entry : pending.entrySet()) {
+            if (entry.getValue().flushAt > now) {
+                continue;
+            }
+            PendingDigest digest = pending.remove(entry.getKey());
+            if (digest != null) {
+                outgoing.add(toMessage(entry.getKey(), digest.events));
+            }
+        }
+        if (!outgoing.isEmpty()) {
+            notificationProducer.sendNotifications(outgoing);
+        }
+    }
+
+    private NotificationProducer.EmailMessage toMessage(DigestKey key, List<NotificationProducer.EmailMessage> events) {
+        if (events.size() == 1) {
+            return events.get(0);
+        }
+        meterRegistry.counter("notifications.coalesced", "type", key.type().name()).increment(events.size() - 1);
+
+        StringBuilder items = new StringBuilder();
+        for (NotificationProducer.EmailMessage event : events) {
+            Map<String, Object> data = event.getData();
+            Object type = data.containsKey("type") ? data.get("type") : data.get("transactionType");
+            if (!items.isEmpty()) {
+                items.append('\n');
+            }
+            items.append("- #").append(data.get("transactionId"))
+                    .append(" | ").append(type)
+                    .append(" | ").append(data.get("status"))
+                    .append(" | $").append(data.get("amount"));
+        }
+
+        // Latest event wins for per-user fields such as the name and the resulting balance
+        Map<String, Object> latest = events.get(events.size() - 1).getData();
+        Map<String, Object> digestData = new HashMap<>();
+        digestData.put("userName", latest.get("userName"));
+        digestData.put("count", events.size());
+        digestData.put("items", items.toString());
+        return new NotificationProducer.EmailMessage(key.email(), DIGEST_TYPES.get(key.type()), digestData);
+    }
+
+    private record DigestKey(String email, SendEmailType type) {}
+
+    private static final class PendingDigest {
+        private final List<NotificationProducer.EmailMessage> events = new ArrayList<>();
+        private volatile long flushAt;
+
+        private PendingDigest(long flushAt) {
+            this.flushAt = flushAt;
+        }
+    }
+}
@@ -1,35 +1,356 @@
 package com.nos.backend_api.services._system;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nos.backend_api.DTO.data.enums.NotificationLane;
 import com.nos.backend_api.DTO.data.enums.SendEmailType;
 import com.nos.backend_api.configuration.RabbitConfig;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Gửi thông báo vào RabbitMQ theo kiểu bất đồng bộ: request thread chỉ serialize (Smile, nhị phân)
+ * và đẩy vào buffer có giới hạn; một thread nền gom theo lô, publish trên cùng channel với
+ * publisher confirm và theo dõi các message chưa được broker xác nhận. Message bị nack được đưa lại buffer.
+ * Một phần buffer được giữ riêng cho làn SECURITY (OTP, đặt lại mật khẩu), nên email marketing dồn dập
+ * không làm rơi OTP; nếu vẫn không đưa được vào buffer, sendNotification trả về false cho caller xử lý.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationProducer {
-    private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    private static final long PUBLISH_FAILURE_BACKOFF_MS = 1000;
 
-    public void sendNotification(EmailMessage message) {
+    private final ObjectMapper smileMapper;
+    private final CachingConnectionFactory publisherConnectionFactory;
+    private final RabbitTemplate confirmedTemplate;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<Outgoing> buffer;
+    // Buffer slots other lanes may hold; the rest of the buffer is kept for the security lane
+    private final Semaphore sharedSlots;
+    private final Map<String, Outgoing> unconfirmed = new ConcurrentHashMap<>();
+    private final int maxInFlight;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long offerTimeoutMs;
+    private final long confirmTimeoutMs;
+    private volatile boolean running = true;
+    private Thread publisher;
+
+    public NotificationProducer(ConnectionFactory connectionFactory,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.notifications.publish.buffer-capacity:10000}") int bufferCapacity,
+                                @Value("${app.notifications.publish.batch-size:100}") int batchSize,
+                                @Value("${app.notifications.publish.max-in-flight:1000}") int maxInFlight,
+                                @Value("${app.notifications.publish.max-attempts:3}") int maxAttempts,
+                                @Value("${app.notifications.publish.offer-timeout-ms:50}") long offerTimeoutMs,
+                                @Value("${app.notifications.publish.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                                @Value("${app.notifications.publish.security-reserve:500}") int securityReserve) {
+        // Same modules and settings as the JSON mapper, binary encoding
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+        // Own connection with correlated confirms, so consumers and other publishers keep the shared factory untouched
+        this.publisherConnectionFactory = new CachingConnectionFactory(
+                ((CachingConnectionFactory) connectionFactory).getRabbitConnectionFactory());
+        this.publisherConnectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+        this.publisherConnectionFactory.setConnectionNameStrategy(cf -> "notification-publisher");
+        this.confirmedTemplate = new RabbitTemplate(publisherConnectionFactory);
+        this.meterRegistry = meterRegistry;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.sharedSlots = new Semaphore(bufferCapacity - Math.clamp(securityReserve, 0, bufferCapacity - 1));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.confirmTimeoutMs = Math.max(1, confirmTimeoutMs);
+        Gauge.builder("notifications.publish.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("notifications.publish.unconfirmed", unconfirmed, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        publisher = Thread.ofPlatform().name("notification-publisher").daemon().start(this::publishLoop);
+    }
+
+    /**
+     * Đưa message vào buffer. Trả về false nếu message bị bỏ (buffer đầy quá offer-timeout, lỗi serialize);
+     * caller gửi email bảo mật nên kiểm tra kết quả thay vì để người dùng chờ một email không bao giờ tới.
+     */
+    public boolean sendNotification(EmailMessage message) {
+        return enqueue(message, null);
+    }
+
+    public void sendNotifications(List<EmailMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        for (EmailMessage message : messages) {
+            sendNotification(message);
+        }
+    }
+
+    /**
+     * Như sendNotifications, nhưng trả về future hoàn tất khi broker đã xác nhận (hoặc bỏ) mọi message:
+     * kết quả theo đúng thứ tự đầu vào, true nếu message được ack, false nếu bị bỏ (buffer đầy, hết số lần thử).
+     */
+    public CompletableFuture<List<Boolean>> sendNotificationsConfirmed(List<EmailMessage> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<CompletableFuture<Boolean>> deliveries = new ArrayList<>(messages.size());
+        for (EmailMessage message : messages) {
+            CompletableFuture<Boolean> delivered = new CompletableFuture<>();
+            deliveries.add(delivered);
+            enqueue(message, delivered);
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+                .thenApply(done -> deliveries.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Publish ngay một message có sẵn thẳng vào queue (default exchange) và chờ broker xác nhận.
+     * Dùng cho consumer chuyển tiếp message (retry, DLQ): chỉ ack bản gốc khi bản sao đã nằm trong broker.
+     */
+    public boolean publishConfirmed(String queue, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
         try {
-            String jsonMessage = objectMapper.writeValueAsString(message);
-            rabbitTemplate.convertAndSend(RabbitConfig.EXCHANGE_NAME, RabbitConfig.NOTIFICATION_ROUTING_KEY, jsonMessage);
-            log.info("Notification message sent to queue for email: {} and type: {}", message.getEmail(), message.getType());
+            confirmedTemplate.send("", queue, message, correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (confirm.isAck()) {
+                return true;
+            }
+            log.warn("Broker nacked message {} for queue {}: {}",
+                    message.getMessageProperties().getMessageId(), queue, confirm.getReason());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            log.error("Failed to send notification message", e);
+            log.warn("Failed to publish message {} to queue {}", message.getMessageProperties().getMessageId(), queue, e);
+        }
+        return false;
+    }
+
+    private boolean enqueue(EmailMessage message, CompletableFuture<Boolean> delivered) {
+        Outgoing outgoing = toOutgoing(message, delivered);
+        if (outgoing == null) {
+            complete(delivered, false);
+            return false;
+        }
+        // Backpressure: a full buffer holds the caller for a bounded time, never for a broker round trip
+        boolean queued = false;
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            if (!outgoing.shared() || sharedSlots.tryAcquire(offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                queued = buffer.offer(outgoing, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!queued) {
+                    releaseSlot(outgoing);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            record("overflow");
+            log.error("Notification buffer full for {}ms, dropping {} ({} lane) for email: {}",
+                    offerTimeoutMs, message.getType(), laneOf(message).getKey(), message.getEmail());
+            complete(delivered, false);
+            return false;
+        }
+        log.debug("Notification queued for email: {} and type: {}", message.getEmail(), message.getType());
+        return true;
+    }
+
+    // Stop taking new work, push out what is buffered and give pending confirms a moment to arrive
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (publisher != null) {
+            publisher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!unconfirmed.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        if (!unconfirmed.isEmpty() || !buffer.isEmpty()) {
+            log.warn("Shutting down with {} unconfirmed and {} buffered notifications",
+                    unconfirmed.size(), buffer.size());
+        }
+        publisherConnectionFactory.destroy();
+    }
+
+    private void publishLoop() {
+        List<Outgoing> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Outgoing first = buffer.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                awaitConfirmCapacity();
+                if (!publish(batch)) {
+                    // Broker unreachable: give it a moment before the retried messages come round again
+                    Thread.sleep(PUBLISH_FAILURE_BACKOFF_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Notification publisher loop failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean publish(List<Outgoing> batch) {
+        int[] sent = {0};
+        try {
+            confirmedTemplate.invoke(operations -> {
+                for (Outgoing outgoing : batch) {
+                    track(outgoing);
+                    operations.send(RabbitConfig.EXCHANGE_NAME, outgoing.routingKey(), outgoing.message(), outgoing.correlation());
+                    sent[0]++;
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to publish {} of {} notification messages", batch.size() - sent[0], batch.size(), e);
+            // Messages never handed to the broker will never be confirmed either: settle them here
+            for (int i = sent[0]; i < batch.size(); i++) {
+                Outgoing outgoing = batch.get(i);
+                unconfirmed.remove(outgoing.id());
+                settle(outgoing, false, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    // Bounds memory held by unconfirmed messages when the broker is slow to confirm
+    private void awaitConfirmCapacity() throws InterruptedException {
+        while (unconfirmed.size() >= maxInFlight && running) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void track(Outgoing outgoing) {
+        unconfirmed.put(outgoing.id(), outgoing);
+        outgoing.correlation().getFuture().whenComplete((confirm, ex) -> {
+            if (unconfirmed.remove(outgoing.id()) == null) {
+                return;
+            }
+            boolean ack = ex == null && confirm != null && confirm.isAck();
+            settle(outgoing, ack, ex != null ? ex.getMessage() : confirm != null ? confirm.getReason() : null);
+        });
+    }
+
+    private void settle(Outgoing outgoing, boolean ack, String reason) {
+        if (ack) {
+            record("confirmed");
+            releaseSlot(outgoing);
+            complete(outgoing.delivered(), true);
+            return;
+        }
+        // A retry keeps the buffer slot taken at enqueue
+        Outgoing retry = outgoing.nextAttempt();
+        if (retry.attempt() <= maxAttempts && buffer.offer(retry)) {
+            record("nacked");
+            log.warn("Notification {} not confirmed ({}), retrying", outgoing.id(), reason);
+        } else {
+            record("dropped");
+            log.error("Dropping notification {} for routing key {} after {} attempt(s): {}",
+                    outgoing.id(), outgoing.routingKey(), outgoing.attempt(), reason);
+            releaseSlot(outgoing);
+            complete(outgoing.delivered(), false);
+        }
+    }
+
+    // Shared slots are held from enqueue until the message is acked or dropped
+    private void releaseSlot(Outgoing outgoing) {
+        if (outgoing.shared()) {
+            sharedSlots.release();
+        }
+    }
+
+    private static void complete(CompletableFuture<Boolean> delivered, boolean ack) {
+        if (delivered != null) {
+            delivered.complete(ack);
+        }
+    }
+
+    private Outgoing toOutgoing(EmailMessage message, CompletableFuture<Boolean> delivered) {
+        try {
+            String id = UUID.randomUUID().toString();
+            Message amqpMessage = MessageBuilder.withBody(smileMapper.writeValueAsBytes(message))
+                    .setContentType(SMILE_CONTENT_TYPE)
+                    .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                    .setMessageId(id)
+                    // Consumers measure end-to-end delivery latency from this timestamp
+                    .setTimestamp(new Date())
+                    .build();
+            return new Outgoing(id, routingKey(message), amqpMessage, laneOf(message) != NotificationLane.SECURITY,
+                    1, delivered);
+        } catch (Exception e) {
+            log.error("Failed to serialize notification message for email: {}", message.getEmail(), e);
+            return null;
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("notifications.publish", "outcome", outcome).increment();
+    }
+
+    public static NotificationLane laneOf(EmailMessage message) {
+        return message.getType() != null ? message.getType().getLane() : NotificationLane.TRANSACTIONAL;
+    }
+
+    private String routingKey(EmailMessage message) {
+        return RabbitConfig.laneRoutingKey(laneOf(message));
+    }
+
+    // delivered is completed once the message is finally acked or dropped; null when nobody waits for it.
+    // shared: holds one of the sharedSlots permits (every lane except security)
+    private record Outgoing(String id, String routingKey, Message message, boolean shared, int attempt,
+                            CompletableFuture<Boolean> delivered, CorrelationData correlation) {
+        private Outgoing(String id, String routingKey, Message message, boolean shared, int attempt,
+                         CompletableFuture<Boolean> delivered) {
+            this(id, routingKey, message, shared, attempt, delivered, new CorrelationData(id));
+        }
+
+        // A correlation future completes once, so every attempt gets a fresh one
+        private Outgoing nextAttempt() {
+            return new Outgoing(id, routingKey, message, shared, attempt + 1, delivered);
         }
     }
 
@@ -41,4 +362,4 @@ public class NotificationProducer {
         private SendEmailType type;
         private Map<String, Object> data = new HashMap<>();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.nos.backend_api.services._system;
+
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.stereotype.Component;
+
+import com.nos.backend_api.DTO.data.enums.NotificationLane;
+import com.nos.backend_api.configuration.RabbitConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Độ sâu hàng đợi của từng làn email và DLQ, đọc từ broker mỗi lần metrics được thu thập.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationQueueMetrics implements MeterBinder {
+    private final AmqpAdmin amqpAdmin;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (NotificationLane lane : NotificationLane.values()) {
+            register(registry, RabbitConfig.laneQueue(lane), lane.getKey());
+        }
+        register(registry, RabbitConfig.NOTIFICATION_DLQ, "dead_letter");
+    }
+
+    private void register(MeterRegistry registry, String queue, String lane) {
+        Gauge.builder("notifications.queue.depth", amqpAdmin, admin -> messageCount(admin, queue))
+                .tag("lane", lane)
+                .description("Messages waiting in the notification queue")
+                .register(registry);
+    }
+
+    private static double messageCount(AmqpAdmin admin, String queue) {
+        try {
+            QueueInformation info = admin.getQueueInfo(queue);
+            return info != null ? info.getMessageCount() : Double.NaN;
+        } catch (Exception e) {
+            // Broker unreachable: report a gap rather than failing the scrape
+            return Double.NaN;
+        }
+    }
+}
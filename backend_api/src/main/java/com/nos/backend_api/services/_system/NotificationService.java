@@ -1,47 +1,70 @@
 package com.nos.backend_api.services._system;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.HtmlUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nos.backend_api.DTO.data.enums.NotificationLane;
 import com.nos.backend_api.DTO.data.enums.SendEmailType;
 import com.nos.backend_api.configuration.RabbitConfig;
-import com.resend.Resend;
-import com.resend.core.exception.ResendException;
-import com.resend.services.emails.model.CreateEmailOptions;
-import com.resend.services.emails.model.CreateEmailResponse;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
 public class NotificationService {
+    // Number of failed sends so far; decides the retry tier and when to give up
+    private static final String ATTEMPT_HEADER = "x-notification-attempt";
+    private static final String ERROR_HEADER = "x-notification-error";
+
     private final Map<SendEmailType, EmailTemplate> emailTemplates;
-    private final Resend resend;
+    private final EmailTransport emailTransport;
+    private final String fromEmail;
+    private final String overrideRecipient;
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
+    private final NotificationProducer notificationProducer;
+    private final MeterRegistry meterRegistry;
+    private final SendThrottle sendThrottle;
+    private final int maxAttempts;
 
-    @Data
-    @NoArgsConstructor
+    @Getter
     @AllArgsConstructor
     public static class EmailTemplate {
-        private String subject;
-        private String content;
+        private CompiledTemplate subject;
+        private CompiledTemplate content;
+        private CompiledTemplate htmlContent; // null when there is no .html variant
     }
 
     @SneakyThrows(IOException.class)
-    public NotificationService(Resend resend,
+    public NotificationService(EmailTransport emailTransport,
+                           NotificationProducer notificationProducer,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.email.rate-per-second:2}") double ratePerSecond,
+                           @Value("${app.email.burst:2}") int burst,
+                           @Value("${app.notifications.retry.max-attempts:5}") int maxAttempts,
                            @Value("${app.email.from:Test App <onboarding@resend.dev>}") String fromEmail,
+                           @Value("${app.email.override-recipient:}") String overrideRecipient,
                            @Value("classpath:email_templates/welcome.txt") Resource welcomeTemplate,
                            @Value("classpath:email_templates/otp.txt") Resource otpTemplate,
                            @Value("classpath:email_templates/password_reset.txt") Resource resetPasswordTemplate,
@@ -50,95 +73,261 @@ public class NotificationService {
                            @Value("classpath:email_templates/order_cancelled.txt") Resource orderCancelledTemplate,
                            @Value("classpath:email_templates/order_shipped.txt") Resource orderShippedTemplate,
                            @Value("classpath:email_templates/order_delivered.txt") Resource orderDeliveredTemplate,
-                           @Value("classpath:email_templates/transaction_notification.txt") Resource transactionTemplate) {
-        this.resend = resend;
+                           @Value("classpath:email_templates/transaction_notification.txt") Resource transactionTemplate,
+                           @Value("classpath:email_templates/wallet_settlement.txt") Resource settlementTemplate,
+                           @Value("classpath:email_templates/transaction_digest.txt") Resource transactionDigestTemplate) {
+        this.emailTransport = emailTransport;
+        this.fromEmail = fromEmail;
+        this.overrideRecipient = overrideRecipient;
         this.objectMapper = new ObjectMapper();
-        this.emailTemplates = Map.of(
-            SendEmailType.WELCOME, new EmailTemplate(
-                    "Welcome to NoS TechStore!",
-                    new String(welcomeTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.OTP, new EmailTemplate(
-                    "Your OTP Code",
-                    new String(otpTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.PASSWORD_RESET, new EmailTemplate(
-                    "Password Reset Request",
-                    new String(resetPasswordTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.NOTIFICATION, new EmailTemplate(
-                    "Notification from NoS TechStore",
-                    new String(generalNotificationTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.ORDER_SUCCESS, new EmailTemplate(
-                    "Order Placed Successfully!",
-                    new String(orderSuccessTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.ORDER_CANCELLED, new EmailTemplate(
-                    "Order Cancelled",
-                    new String(orderCancelledTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.ORDER_SHIPPED, new EmailTemplate(
-                    "Order Shipped",
-                    new String(orderShippedTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.TRANSACTION_NOTIFICATION, new EmailTemplate(
-                    "Transaction Update",
-                    new String(transactionTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            ),
-            SendEmailType.ORDER_DELIVERED, new EmailTemplate(
-                    "Order Delivered",
-                    new String(orderDeliveredTemplate.getInputStream().readAllBytes(), StandardCharsets.UTF_8)
-            )
+        this.smileMapper = new ObjectMapper(new SmileFactory());
+        this.notificationProducer = notificationProducer;
+        this.meterRegistry = meterRegistry;
+        this.sendThrottle = new SendThrottle(ratePerSecond, burst);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.emailTemplates = Map.ofEntries(
+            Map.entry(SendEmailType.WELCOME, loadTemplate("Welcome to NoS TechStore!", welcomeTemplate)),
+            Map.entry(SendEmailType.OTP, loadTemplate("Your OTP Code", otpTemplate)),
+            Map.entry(SendEmailType.PASSWORD_RESET, loadTemplate("Password Reset Request", resetPasswordTemplate)),
+            Map.entry(SendEmailType.NOTIFICATION, loadTemplate("Notification from NoS TechStore", generalNotificationTemplate)),
+            Map.entry(SendEmailType.BROADCAST, loadTemplate("{subject}", generalNotificationTemplate)),
+            Map.entry(SendEmailType.ORDER_SUCCESS, loadTemplate("Order Placed Successfully!", orderSuccessTemplate)),
+            Map.entry(SendEmailType.ORDER_CANCELLED, loadTemplate("Order Cancelled", orderCancelledTemplate)),
+            Map.entry(SendEmailType.ORDER_SHIPPED, loadTemplate("Order Shipped", orderShippedTemplate)),
+            Map.entry(SendEmailType.TRANSACTION_NOTIFICATION, loadTemplate("Transaction Update", transactionTemplate)),
+            Map.entry(SendEmailType.ORDER_DELIVERED, loadTemplate("Order Delivered", orderDeliveredTemplate)),
+            Map.entry(SendEmailType.WALLET_SETTLEMENT, loadTemplate("Wallet Settlement Summary", settlementTemplate)),
+            Map.entry(SendEmailType.TRANSACTION_DIGEST, loadTemplate("Your Recent Transactions", transactionDigestTemplate))
         );
     }
 
-    @RabbitListener(queues = RabbitConfig.NOTIFICATION_QUEUE)
-    public void handleNotification(String messageJson) {
+    @RabbitListener(queues = RabbitConfig.SECURITY_NOTIFICATION_QUEUE,
+            containerFactory = RabbitConfig.NOTIFICATION_LISTENER_FACTORY,
+            concurrency = "${app.notifications.security.concurrency:2-4}")
+    public void handleSecurityNotification(Message amqpMessage) {
+        handleNotification(amqpMessage);
+    }
+
+    @RabbitListener(queues = RabbitConfig.TRANSACTIONAL_NOTIFICATION_QUEUE,
+            containerFactory = RabbitConfig.NOTIFICATION_LISTENER_FACTORY,
+            concurrency = "${app.notifications.transactional.concurrency:4-16}")
+    public void handleTransactionalNotification(Message amqpMessage) {
+        handleNotification(amqpMessage);
+    }
+
+    @RabbitListener(queues = RabbitConfig.MARKETING_NOTIFICATION_QUEUE,
+            containerFactory = RabbitConfig.NOTIFICATION_LISTENER_FACTORY,
+            concurrency = "${app.notifications.marketing.concurrency:1-4}")
+    public void handleMarketingNotification(Message amqpMessage) {
+        handleNotification(amqpMessage);
+    }
+
+    // Drains messages published before the lanes existed; they are retried on their lane
+    @RabbitListener(queues = RabbitConfig.NOTIFICATION_QUEUE,
+            containerFactory = RabbitConfig.NOTIFICATION_LISTENER_FACTORY,
+            concurrency = "1")
+    public void handleNotification(Message amqpMessage) {
+        NotificationProducer.EmailMessage message;
+        try {
+            message = readMessage(amqpMessage);
+        } catch (Exception e) {
+            // Will never parse on a later attempt either
+            log.error("Failed to parse notification message {}", amqpMessage.getMessageProperties().getMessageId(), e);
+            deadLetter(amqpMessage, "unknown", e);
+            return;
+        }
+
+        NotificationLane lane = NotificationProducer.laneOf(message);
+        String type = String.valueOf(message.getType());
         try {
-            NotificationProducer.EmailMessage message = objectMapper.readValue(messageJson, NotificationProducer.EmailMessage.class);
-            sendEmail(message);
+            if (sendEmail(message, lane)) {
+                recordDeliveryLatency(amqpMessage, lane);
+            }
+        } catch (ImmediateRequeueAmqpException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to process notification message: {}", messageJson, e);
-            // Dead letter queue or retry can be added here for stability
+            int failures = attemptOf(amqpMessage) + 1;
+            if (isRetryable(e) && failures < maxAttempts) {
+                log.warn("Failed to send email to {} (attempt {}/{}), retrying: {}",
+                        message.getEmail(), failures, maxAttempts, e.getMessage());
+                scheduleRetry(amqpMessage, lane, failures, type);
+            } else {
+                log.error("Failed to send email to {} after {} attempt(s), moving to DLQ",
+                        message.getEmail(), failures, e);
+                deadLetter(amqpMessage, type, e);
+            }
         }
     }
 
-    private void sendEmail(NotificationProducer.EmailMessage msg) {
+    // Smile from the current producer; plain JSON text from messages published before it
+    private NotificationProducer.EmailMessage readMessage(Message amqpMessage) throws IOException {
+        if (NotificationProducer.SMILE_CONTENT_TYPE.equals(amqpMessage.getMessageProperties().getContentType())) {
+            return smileMapper.readValue(amqpMessage.getBody(), NotificationProducer.EmailMessage.class);
+        }
+        return objectMapper.readValue(new String(amqpMessage.getBody(), StandardCharsets.UTF_8),
+                NotificationProducer.EmailMessage.class);
+    }
+
+    private boolean sendEmail(NotificationProducer.EmailMessage msg, NotificationLane lane) throws EmailTransportException {
         EmailTemplate template = emailTemplates.get(msg.getType());
         if (template == null) {
             log.warn("No template found for type: {}", msg.getType());
+            return false;
+        }
+
+        String type = String.valueOf(msg.getType());
+        long renderStart = System.nanoTime();
+        EmailTransport.OutgoingEmail email = new EmailTransport.OutgoingEmail(
+                fromEmail,
+                // Development setups route every email to one inbox
+                StringUtils.hasText(overrideRecipient) ? overrideRecipient : msg.getEmail(),
+                template.getSubject().render(msg.getData()),
+                template.getContent().render(msg.getData()),
+                template.getHtmlContent() != null
+                        ? template.getHtmlContent().render(msg.getData(), HtmlUtils::htmlEscape)
+                        : null);
+        // Subject, text and HTML rendering of one email
+        Timer.builder("notifications.email.render")
+                .tag("type", type)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - renderStart, TimeUnit.NANOSECONDS);
+
+        if (emailTransport.rateLimited()) {
+            awaitSendPermit(lane);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            emailTransport.send(email);
+            outcome = "success";
+            log.info("Email sent successfully for type: {} to: {}", msg.getType(), msg.getEmail());
+            return true;
+        } finally {
+            sample.stop(Timer.builder("notifications.email.send")
+                    .tag("type", type)
+                    .tag("outcome", outcome)
+                    .tag("transport", emailTransport.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            meterRegistry.counter("notifications.email", "type", type, "outcome", outcome).increment();
+        }
+    }
+
+    // Blocks the (virtual) consumer thread instead of letting the provider answer 429.
+    // Lower lanes may not book slots far ahead, so a burst of bulk mail cannot push an OTP back.
+    private void awaitSendPermit(NotificationLane lane) {
+        long startedAt = System.nanoTime();
+        try {
+            long waitNanos;
+            while ((waitNanos = sendThrottle.tryReserve(lane.getSendHorizon())) < 0) {
+                TimeUnit.NANOSECONDS.sleep(sendThrottle.intervalNanos);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Container is shutting down: hand the message back to the broker untouched
+            throw new ImmediateRequeueAmqpException("Interrupted while waiting for a send permit", e);
+        }
+        meterRegistry.timer("notifications.email.throttle", "lane", lane.getKey())
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    // Publish-to-sent time, including broker queueing, throttling and retries
+    private void recordDeliveryLatency(Message amqpMessage, NotificationLane lane) {
+        Date publishedAt = amqpMessage.getMessageProperties().getTimestamp();
+        if (publishedAt == null) {
             return;
         }
+        // Per transport: a run against the local sink measures the broker -> render -> transport pipeline alone
+        Timer.builder("notifications.delivery.latency")
+                .tag("lane", lane.getKey())
+                .tag("transport", emailTransport.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Math.max(0, System.currentTimeMillis() - publishedAt.getTime()), TimeUnit.MILLISECONDS);
+    }
 
-        String subject = replacePlaceholders(template.getSubject(), msg.getData());
-        String content = replacePlaceholders(template.getContent(), msg.getData());
+    private boolean isRetryable(Exception e) {
+        return !(e instanceof EmailTransportException transportException) || transportException.isRetryable();
+    }
 
-        // using test email for development
-        CreateEmailOptions params = CreateEmailOptions.builder()
-                .from("onboarding@resend.dev")
-                .to("kieuthanhtung0502@gmail.com")
-                .subject(subject)
-                .text(content)
+    private void scheduleRetry(Message amqpMessage, NotificationLane lane, int failures, String type) {
+        Message retry = MessageBuilder.fromMessage(amqpMessage)
+                .setHeader(ATTEMPT_HEADER, failures)
                 .build();
+        // Straight to the retry tier, whose TTL then sends the message back. The original is acked when
+        // this listener returns, so the copy must be confirmed first or the message would be lost.
+        forward(RabbitConfig.laneRetryQueue(lane, failures), retry);
+        meterRegistry.counter("notifications.email.retried", "type", type).increment();
+    }
 
-        try {
-            CreateEmailResponse response = resend.emails().send(params);
-            log.info("Email sent successfully for type: {} to: {}", msg.getType(), msg.getEmail());
-            log.info(response.toString());
-        } catch (ResendException e) {
-            log.error("Failed to send email to {}: {}", msg.getEmail(), e.getMessage());
+    private void deadLetter(Message amqpMessage, String type, Exception cause) {
+        Message dead = MessageBuilder.fromMessage(amqpMessage)
+                .setHeader(ERROR_HEADER, String.valueOf(cause.getMessage()))
+                .build();
+        forward(RabbitConfig.NOTIFICATION_DLQ, dead);
+        meterRegistry.counter("notifications.email.dead_lettered", "type", type).increment();
+    }
+
+    private void forward(String queue, Message copy) {
+        if (!notificationProducer.publishConfirmed(queue, copy)) {
+            // Keep the original on its queue; it comes back with the same attempt count
+            throw new ImmediateRequeueAmqpException("Broker did not confirm the copy sent to " + queue);
+        }
+    }
+
+    private int attemptOf(Message amqpMessage) {
+        Object attempt = amqpMessage.getMessageProperties().getHeader(ATTEMPT_HEADER);
+        return attempt instanceof Number number ? number.intValue() : 0;
+    }
+
+    // Templates are parsed once here; an optional sibling .html file becomes the HTML part
+    private static EmailTemplate loadTemplate(String subject, Resource textResource) throws IOException {
+        CompiledTemplate htmlContent = null;
+        String filename = textResource.getFilename();
+        if (filename != null && filename.endsWith(".txt")) {
+            Resource htmlResource = textResource.createRelative(filename.substring(0, filename.length() - 4) + ".html");
+            if (htmlResource.exists()) {
+                htmlContent = CompiledTemplate.compile(read(htmlResource));
+            }
         }
+        return new EmailTemplate(CompiledTemplate.compile(subject), CompiledTemplate.compile(read(textResource)), htmlContent);
     }
 
-    private String replacePlaceholders(String text, Map<String, Object> data) {
-        if (!StringUtils.hasText(text)) {
-            return text;
+    private static String read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
         }
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            String placeholder = "{" + entry.getKey() + "}";
-            text = text.replace(placeholder, String.valueOf(entry.getValue()));
+    }
+
+    /**
+     * Token bucket cục bộ theo giới hạn của nhà cung cấp email: mỗi lần gửi đặt trước một slot,
+     * thời gian rảnh tích lũy tối đa "burst" slot.
+     * Giới hạn tính theo từng pod: với N pod consumer, đặt app.email.rate-per-second = giới hạn của nhà cung cấp / N.
+     * Không dùng RateLimiterService vì mỗi lần gửi phải đặt slot theo horizon của lane, điều mà bucket Redis không hỗ trợ.
+     */
+    private static final class SendThrottle {
+        private final long intervalNanos;
+        private final long burstCreditNanos;
+        private long nextFreeAt = System.nanoTime();
+
+        private SendThrottle(double ratePerSecond, int burst) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, ratePerSecond));
+            this.burstCreditNanos = intervalNanos * (Math.max(1, burst) - 1);
+        }
+
+        // Returns how long the caller must wait before sending, or -1 if the next free slot
+        // is more than horizonSlots away (nothing is booked then)
+        private synchronized long tryReserve(int horizonSlots) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextFreeAt, now - burstCreditNanos);
+            long wait = Math.max(0, slot - now);
+            if (horizonSlots != Integer.MAX_VALUE && wait > horizonSlots * intervalNanos) {
+                return -1;
+            }
+            nextFreeAt = slot + intervalNanos;
+            return wait;
         }
-        return text;
     }
 }
\ No newline at end of file
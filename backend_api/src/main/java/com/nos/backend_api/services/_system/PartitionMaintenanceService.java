@@ -0,0 +1,225 @@
+package com.nos.backend_api.services._system;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Giữ cho các bảng phân vùng theo tháng (orders, order_details, wallet_transactions) luôn có
+ * phân vùng cho các tháng sắp tới, và tách các tháng quá hạn lưu trữ sang schema archive.
+ * Dòng rơi vào phân vùng DEFAULT (tháng chưa được tạo) được chuyển sang phân vùng tháng khi tháng đó được tạo.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+    // order_details must be detached before orders: it references orders(id, order_date)
+    private static final List<String> PARTITIONED_TABLES = List.of("order_details", "orders", "wallet_transactions");
+    private static final Map<String, String> PARTITION_KEYS = Map.of(
+            "order_details", "order_date",
+            "orders", "order_date",
+            "wallet_transactions", "transaction_date");
+    private static final String ARCHIVE_SCHEMA = "archive";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    // Longer than moving a month of rows out of the default partition
+    private static final long LOCK_MINUTES = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisService redisService;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       RedisService redisService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${app.partitions.retention-months:24}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisService = redisService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void maintainPartitions() {
+        // Every pod fires at startup and on the cron; concurrent CREATE/ATTACH of the same month would race
+        String token = redisService.tryLock(RedisData.PARTITION_MAINTENANCE_LOCK, LOCK_MINUTES, TimeUnit.MINUTES);
+        if (token == null) {
+            log.info("Partition maintenance already running elsewhere, skipping");
+            return;
+        }
+        try {
+            runMaintenance();
+        } finally {
+            redisService.releaseLock(RedisData.PARTITION_MAINTENANCE_LOCK, token);
+        }
+    }
+
+    private void runMaintenance() {
+        YearMonth current = YearMonth.now();
+        YearMonth archiveBefore = current.minusMonths(retentionMonths);
+
+        List<String> tables = new ArrayList<>();
+        for (String table : PARTITIONED_TABLES) {
+            if (isPartitioned(table)) {
+                tables.add(table);
+            } else {
+                log.warn("Table {} is not partitioned, skipping partition maintenance", table);
+            }
+        }
+        tables.forEach(this::createDefaultPartition);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartitions(tables, current.plusMonths(i));
+        }
+        for (String table : tables) {
+            archivePartitionsBefore(table, archiveBefore);
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = 'public' AND c.relname = ?",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private void createDefaultPartition(String table) {
+        try {
+            jdbcTemplate.execute(String.format("CREATE TABLE IF NOT EXISTS public.%s PARTITION OF public.%s DEFAULT",
+                    defaultPartitionName(table), table));
+        } catch (Exception e) {
+            log.error("Failed to create default partition of {}", table, e);
+        }
+    }
+
+    /**
+     * Tạo phân vùng của một tháng cho mọi bảng còn thiếu, trong một transaction.
+     * Bảng mới được tạo rời, nhận các dòng của tháng đó từ phân vùng DEFAULT rồi mới được ATTACH,
+     * vì PostgreSQL không cho tạo phân vùng khi DEFAULT đang giữ dòng thuộc khoảng của nó.
+     */
+    private void createPartitions(List<String> tables, YearMonth month) {
+        List<String> missing = tables.stream()
+                .filter(table -> !exists(partitionName(table, month)))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // order_details is staged before orders: its rows leave the default partition first,
+                // so deleting the orders rows finds nothing for ON DELETE CASCADE to remove
+                for (String table : missing) {
+                    stagePartition(table, month);
+                }
+                // Attached in reverse so orders is in place before order_details validates its foreign key
+                for (String table : missing.reversed()) {
+                    jdbcTemplate.execute(String.format(
+                            "ALTER TABLE public.%s ATTACH PARTITION public.%s FOR VALUES FROM ('%s') TO ('%s')",
+                            table, partitionName(table, month), month.atDay(1), month.plusMonths(1).atDay(1)));
+                }
+            });
+        } catch (Exception e) {
+            log.error("Failed to create {} partitions of {}", month, missing, e);
+        }
+    }
+
+    private void stagePartition(String table, YearMonth month) {
+        String partition = partitionName(table, month);
+        String defaultPartition = defaultPartitionName(table);
+        String key = PARTITION_KEYS.get(table);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE public.%s (LIKE public.%s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)", partition, table));
+        if (!exists(defaultPartition)) {
+            return;
+        }
+        // Blocks inserts routed to the default partition until the new month is attached
+        jdbcTemplate.execute(String.format("LOCK TABLE public.%s IN SHARE ROW EXCLUSIVE MODE", defaultPartition));
+        int moved = jdbcTemplate.update(String.format(
+                "WITH moved AS (DELETE FROM public.%s WHERE %s >= '%s' AND %s < '%s' RETURNING *) " +
+                "INSERT INTO public.%s SELECT * FROM moved",
+                defaultPartition, key, month.atDay(1), key, month.plusMonths(1).atDay(1), partition));
+        if (moved > 0) {
+            log.warn("Moved {} rows of {} from the default partition into {}", moved, table, partition);
+        }
+    }
+
+    private boolean exists(String partition) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + partition);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private void archivePartitionsBefore(String table, YearMonth archiveBefore) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent JOIN pg_namespace n ON n.oid = p.relnamespace " +
+                "WHERE n.nspname = 'public' AND p.relname = ?",
+                String.class, table);
+        Pattern pattern = Pattern.compile("^" + Pattern.quote(table) + "_p(\\d{4}_\\d{2})$");
+
+        for (String partition : partitions) {
+            Matcher matcher = pattern.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            try {
+                YearMonth month = YearMonth.parse(matcher.group(1), SUFFIX_FORMAT);
+                if (month.isBefore(archiveBefore)) {
+                    archivePartition(table, partition);
+                }
+            } catch (DateTimeParseException e) {
+                log.warn("Unexpected partition name {}", partition);
+            } catch (Exception e) {
+                log.error("Failed to archive partition {}", partition, e);
+            }
+        }
+    }
+
+    private void archivePartition(String table, String partition) {
+        log.info("Archiving partition {} of {} to schema {}", partition, table, ARCHIVE_SCHEMA);
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+        jdbcTemplate.execute(String.format("ALTER TABLE public.%s DETACH PARTITION public.%s", table, partition));
+
+        // A detached partition keeps its foreign keys; drop the ones pointing at the live partitioned
+        // tables so the referenced month can be detached next.
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT con.conname FROM pg_constraint con JOIN pg_partitioned_table pt ON pt.partrelid = con.confrelid " +
+                "WHERE con.contype = 'f' AND con.conrelid = ?::regclass",
+                String.class, "public." + partition);
+        for (String foreignKey : foreignKeys) {
+            jdbcTemplate.execute(String.format("ALTER TABLE public.%s DROP CONSTRAINT %s", partition, foreignKey));
+        }
+
+        jdbcTemplate.execute(String.format("ALTER TABLE public.%s SET SCHEMA %s", partition, ARCHIVE_SCHEMA));
+        log.info("Partition {} archived", partition);
+    }
+
+    private String defaultPartitionName(String table) {
+        return table + "_default";
+    }
+
+    private String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX_FORMAT);
+    }
+}
@@ -0,0 +1,118 @@
+package com.nos.backend_api.services._system;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Băm/kiểm tra mật khẩu và PIN (BCrypt) trên một pool CPU riêng có giới hạn.
+ * Khi hàng đợi đầy hoặc chờ quá lâu, request bị từ chối ngay với 429 thay vì
+ * chiếm hết thread của Tomcat và làm nghẽn các API đọc khác.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMs;
+
+    private final Timer hashTimer;
+    private final Counter rejectedFull;
+    private final Counter rejectedTimeout;
+
+    public PasswordHashingService(MeterRegistry meterRegistry,
+                                  @Value("${app.security.bcrypt-strength:10}") int strength,
+                                  @Value("${app.security.hashing.threads:0}") int threads,
+                                  @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.security.hashing.wait-timeout-ms:3000}") long waitTimeoutMs) {
+        this.passwordEncoder = new BCryptPasswordEncoder(strength);
+        // Hashing is pure CPU: more threads than cores only adds context switches
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimeoutMs = waitTimeoutMs;
+
+        Gauge.builder("security.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password/PIN hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("security.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        // Tagged by work factor with percentiles, so the cost can be chosen from production latencies
+        this.hashTimer = Timer.builder("security.hashing.duration")
+                .description("Time spent in one BCrypt encode/matches call on a hashing thread")
+                .tag("strength", String.valueOf(strength))
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedFull = Counter.builder("security.hashing.rejected").tag("reason", "queue_full").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("security.hashing.rejected").tag("reason", "timeout").register(meterRegistry);
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedFull.increment();
+            throw new AppException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The caller has given up; do not spend CPU on a hash nobody reads
+            future.cancel(false);
+            rejectedTimeout.increment();
+            throw new AppException(ErrorCode.TOO_MANY_REQUESTS);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.TOO_MANY_REQUESTS);
+        } catch (ExecutionException e) {
+            log.error("Password hashing failed", e.getCause());
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,136 @@
+package com.nos.backend_api.services._system;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token bucket dùng chung giữa các node, trạng thái nằm trong Redis và được cập nhật nguyên tử bằng Lua.
+ * Mỗi node giữ cache cục bộ ngắn hạn: token được "thuê" theo lô và trạng thái bị chặn (cho tới
+ * Retry-After), nên client gọi dồn dập không tạo thêm round trip tới Redis.
+ * Token thuê mà chưa dùng hết khi lease hết hạn được trả lại bucket ở lần gọi Redis kế tiếp.
+ */
+@Service
+@Slf4j
+public class RateLimiterService {
+    // Refill, give back the ARGV[4] tokens left over from this node's expired lease (capped at capacity),
+    // then take up to ARGV[3] tokens. Uses the Redis clock so nodes with skewed clocks agree.
+    // Returns {granted, retryAfterMs}.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) " +
+            "local refillPerMs = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local returned = tonumber(ARGV[4]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(state[1]) or capacity " +
+            "local ts = tonumber(state[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * refillPerMs + returned) " +
+            "local granted = 0 " +
+            "if tokens >= 1 then " +
+            "  granted = math.min(requested, math.floor(tokens)) " +
+            "  tokens = tokens - granted " +
+            "end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refillPerMs) + 1000) " +
+            "local retryAfterMs = 0 " +
+            "if granted == 0 then retryAfterMs = math.ceil((1 - tokens) / refillPerMs) end " +
+            "return {granted, retryAfterMs}",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long leaseMs;
+    private final Cache<String, LocalBucket> localBuckets;
+
+    public RateLimiterService(StringRedisTemplate stringRedisTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.rate-limit.local-lease-ms:1000}") long leaseMs,
+                              @Value("${app.rate-limit.local-max-keys:100000}") long localMaxKeys) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.leaseMs = leaseMs;
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(localMaxKeys)
+                .expireAfterAccess(Duration.ofMinutes(5))
+                .build();
+    }
+
+    /**
+     * Lấy một token. Trả về 0 nếu được phép, ngược lại là số giây client nên chờ (Retry-After).
+     */
+    public long tryAcquire(String name, String key, int capacity, long periodSeconds, int localBatch) {
+        String bucketKey = name + ":" + key;
+        LocalBucket local = localBuckets.get(bucketKey, k -> new LocalBucket());
+        long now = System.currentTimeMillis();
+
+        long blockedUntil = local.blockedUntil;
+        if (blockedUntil > now) {
+            record(name, "rejected", "local");
+            return toSeconds(blockedUntil - now);
+        }
+        if (local.leaseExpiresAt > now && local.leased.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            record(name, "allowed", "local");
+            return 0;
+        }
+
+        double refillPerMs = (double) capacity / (periodSeconds * 1000.0);
+        int requested = Math.max(1, Math.min(localBatch, capacity));
+        // Only an expired lease can still hold tokens here; getAndSet hands them back exactly once
+        int unused = local.leaseExpiresAt <= now ? local.leased.getAndSet(0) : 0;
+        List<?> result;
+        try {
+            result = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                    List.of(RedisData.RATE_LIMIT + ":" + bucketKey),
+                    String.valueOf(capacity), String.valueOf(refillPerMs), String.valueOf(requested),
+                    String.valueOf(unused));
+        } catch (Exception e) {
+            // Fail open: losing Redis must not take login and the catalog down with it
+            log.warn("Rate limiter unavailable for {}, allowing request", name, e);
+            record(name, "error", "redis");
+            return 0;
+        }
+
+        long granted = ((Number) result.get(0)).longValue();
+        if (granted > 0) {
+            // One token is used by this request, the rest serve the next calls on this node
+            local.leased.set((int) granted - 1);
+            local.leaseExpiresAt = now + leaseMs;
+            record(name, "allowed", "redis");
+            return 0;
+        }
+        long retryAfterMs = Math.max(1, ((Number) result.get(1)).longValue());
+        local.blockedUntil = now + retryAfterMs;
+        record(name, "rejected", "redis");
+        return toSeconds(retryAfterMs);
+    }
+
+    private long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private void record(String name, String outcome, String source) {
+        meterRegistry.counter("ratelimit.requests", "limiter", name, "outcome", outcome, "source", source).increment();
+    }
+
+    private static final class LocalBucket {
+        private final AtomicInteger leased = new AtomicInteger();
+        private volatile long leaseExpiresAt;
+        private volatile long blockedUntil;
+    }
+}
@@ -1,10 +1,17 @@
 package com.nos.backend_api.services._system;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -14,7 +21,35 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @RequiredArgsConstructor
 public class RedisService {
+    // Deletes every key listed in the index set, then the index itself, in one atomic step
+    private static final RedisScript<Long> DELETE_TRACKED_SCRIPT = new DefaultRedisScript<>(
+            "local keys = redis.call('SMEMBERS', KEYS[1]) " +
+            "for i = 1, #keys, 500 do " +
+            "  redis.call('DEL', unpack(keys, i, math.min(i + 499, #keys))) " +
+            "end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return #keys", Long.class);
+
+    // Rebuilds the list only if the version key still holds the value read before loading it
+    private static final RedisScript<Long> REPLACE_LIST_IF_VERSION_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "if #ARGV > 2 then " +
+            "  redis.call('RPUSH', KEYS[1], unpack(ARGV, 3)) " +
+            "  redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 1", Long.class);
+
+    // Lock scripts compare the owner token first: a holder whose lock expired cannot touch the next holder's
+    private static final RedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return 0", Long.class);
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
 
     public void saveToHash(String hashKey, String field, Object data) {
         redisTemplate.opsForHash().put(hashKey, field, data);
@@ -29,6 +64,10 @@ public class RedisService {
         return redisTemplate.opsForHash().get(hashKey, field);
     }
 
+    public Map<Object, Object> getHashEntries(String hashKey) {
+        return redisTemplate.opsForHash().entries(hashKey);
+    }
+
     public void deleteFromHash(String hashKey, String field) {
         redisTemplate.opsForHash().delete(hashKey, field);
     }
@@ -49,10 +88,124 @@ public class RedisService {
         redisTemplate.opsForValue().set(key, value, timeout, unit);
     }
 
+    public boolean setValueIfAbsent(String key, Object value, long timeout, TimeUnit unit) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit));
+    }
+
+    /**
+     * Ghi cache và ghi tên key vào set chỉ mục, để xóa đúng các key này mà không phải quét keyspace.
+     */
+    public void setTrackedValue(String indexKey, String key, Object value, long timeout, TimeUnit unit) {
+        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        stringRedisTemplate.opsForSet().add(indexKey, key);
+        // Every member shares the same TTL, so the index outlives them all
+        stringRedisTemplate.expire(indexKey, timeout, unit);
+    }
+
+    public long deleteTrackedKeys(String indexKey) {
+        Long deleted = stringRedisTemplate.execute(DELETE_TRACKED_SCRIPT, List.of(indexKey));
+        return deleted == null ? 0 : deleted;
+    }
+
     public Object getValue(String key) {
         return redisTemplate.opsForValue().get(key);
     }
 
+    public List<Object> getValues(List<String> keys) {
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * LPUSHX rồi LTRIM: chỉ thêm vào list đã được nạp, giữ tối đa maxSize phần tử.
+     */
+    public void pushToListIfPresent(String key, Object value, long maxSize) {
+        Long size = redisTemplate.opsForList().leftPushIfPresent(key, value);
+        if (size != null && size > maxSize) {
+            redisTemplate.opsForList().trim(key, 0, maxSize - 1);
+        }
+    }
+
+    /**
+     * Khóa phân tán với token riêng cho mỗi người giữ; trả về token, hoặc null nếu khóa đang bị giữ.
+     */
+    public String tryLock(String key, long timeout, TimeUnit unit) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key, token, timeout, unit);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    /**
+     * Gia hạn khóa nếu vẫn còn giữ; false nghĩa là khóa đã hết hạn (có thể đã sang người khác).
+     */
+    public boolean renewLock(String key, String token, long timeout, TimeUnit unit) {
+        Long renewed = stringRedisTemplate.execute(RENEW_LOCK_SCRIPT, List.of(key), token,
+                String.valueOf(unit.toMillis(timeout)));
+        return renewed != null && renewed == 1;
+    }
+
+    public void releaseLock(String key, String token) {
+        Long released = stringRedisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(key), token);
+        if (released == null || released == 0) {
+            log.warn("Lock {} was no longer held by this owner at release", key);
+        }
+    }
+
+    public String getVersion(String versionKey) {
+        String version = stringRedisTemplate.opsForValue().get(versionKey);
+        return version == null ? "0" : version;
+    }
+
+    public void bumpVersion(String versionKey, long timeout, TimeUnit unit) {
+        stringRedisTemplate.opsForValue().increment(versionKey);
+        stringRedisTemplate.expire(versionKey, timeout, unit);
+    }
+
+    /**
+     * Thay toàn bộ list nếu version chưa đổi kể từ lúc đọc (so sánh và ghi trong Lua);
+     * trả về false nếu đã có ghi mới hơn, khi đó giữ nguyên list.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean replaceListIfVersion(String key, String versionKey, String expectedVersion,
+                                        List<?> values, long timeout, TimeUnit unit) {
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<String> args = new ArrayList<>(values.size() + 2);
+        args.add(expectedVersion);
+        args.add(String.valueOf(unit.toMillis(timeout)));
+        // Same bytes the template would write, so reads through redisTemplate see ordinary entries
+        values.forEach(v -> args.add(new String(serializer.serialize(v), StandardCharsets.UTF_8)));
+        Long replaced = stringRedisTemplate.execute(REPLACE_LIST_IF_VERSION_SCRIPT,
+                List.of(key, versionKey), args.toArray());
+        return replaced != null && replaced == 1;
+    }
+
+    public List<Object> getListRange(String key, long start, long end) {
+        return redisTemplate.opsForList().range(key, start, end);
+    }
+
+    public boolean hasKey(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    /**
+     * SCAN thay vì KEYS: không chặn Redis khi số key lớn.
+     */
+    public List<String> scanKeys(String pattern, int batchSize) {
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    public void publish(String channel, Object message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    public Object deserializeMessage(byte[] body) {
+        return redisTemplate.getValueSerializer().deserialize(body);
+    }
+
     public void deleteKey(String key) {
         redisTemplate.delete(key);
     }
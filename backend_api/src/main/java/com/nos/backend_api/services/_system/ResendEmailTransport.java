@@ -0,0 +1,52 @@
+package com.nos.backend_api.services._system;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.resend.Resend;
+import com.resend.core.exception.ResendException;
+import com.resend.services.emails.model.CreateEmailOptions;
+import com.resend.services.emails.model.CreateEmailResponse;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Component
+@ConditionalOnProperty(name = "app.email.transport", havingValue = "resend", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ResendEmailTransport implements EmailTransport {
+    private final Resend resend;
+
+    @Override
+    public String name() {
+        return "resend";
+    }
+
+    @Override
+    public void send(OutgoingEmail email) throws EmailTransportException {
+        CreateEmailOptions.Builder builder = CreateEmailOptions.builder()
+                .from(email.from())
+                .to(email.to())
+                .subject(email.subject())
+                .text(email.text());
+        if (email.html() != null) {
+            builder.html(email.html());
+        }
+        try {
+            CreateEmailResponse response = resend.emails().send(builder.build());
+            log.debug("Resend accepted email {}", response.getId());
+        } catch (ResendException e) {
+            throw new EmailTransportException(e.getMessage(), isRetryable(e), e);
+        }
+    }
+
+    // 4xx other than 429 means the request itself is wrong; sending it again will not help
+    private boolean isRetryable(ResendException e) {
+        if (e.getStatusCode() == null) {
+            return true;
+        }
+        int status = e.getStatusCode();
+        return status == 429 || status >= 500 || status < 400;
+    }
+}
@@ -0,0 +1,54 @@
+package com.nos.backend_api.services._system;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gửi qua SMTP bằng JavaMailSender của Spring Boot (cấu hình spring.mail.*).
+ */
+@Component
+@ConditionalOnProperty(name = "app.email.transport", havingValue = "smtp")
+@RequiredArgsConstructor
+public class SmtpEmailTransport implements EmailTransport {
+    private final JavaMailSender mailSender;
+
+    @Override
+    public String name() {
+        return "smtp";
+    }
+
+    @Override
+    public void send(OutgoingEmail email) throws EmailTransportException {
+        try {
+            MimeMessage mimeMessage = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, email.html() != null,
+                    StandardCharsets.UTF_8.name());
+            helper.setFrom(email.from());
+            helper.setTo(email.to());
+            helper.setSubject(email.subject());
+            if (email.html() != null) {
+                helper.setText(email.text(), email.html());
+            } else {
+                helper.setText(email.text());
+            }
+            mailSender.send(mimeMessage);
+        } catch (MessagingException | MailParseException | MailPreparationException | MailAuthenticationException e) {
+            // Bad address, bad content or bad credentials: the next attempt fails the same way
+            throw new EmailTransportException(e.getMessage(), false, e);
+        } catch (MailException e) {
+            throw new EmailTransportException(e.getMessage(), true, e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.nos.backend_api.services.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.Getter;
+
+/**
+ * Sự kiện nghiệp vụ làm thay đổi một chỉ số trên dashboard. Được publish trong transaction nghiệp vụ
+ * và chỉ được áp dụng vào bộ đếm sau khi transaction commit.
+ */
+public record AnalyticsEvent(Metric metric, BigDecimal delta, LocalDate day) {
+
+    public static AnalyticsEvent daily(Metric metric, LocalDate day, BigDecimal delta) {
+        return new AnalyticsEvent(metric, delta, day);
+    }
+
+    public static AnalyticsEvent daily(Metric metric, LocalDate day, long delta) {
+        return new AnalyticsEvent(metric, BigDecimal.valueOf(delta), day);
+    }
+
+    public static AnalyticsEvent total(Metric metric, BigDecimal delta) {
+        return new AnalyticsEvent(metric, delta, null);
+    }
+
+    public static AnalyticsEvent total(Metric metric, long delta) {
+        return new AnalyticsEvent(metric, BigDecimal.valueOf(delta), null);
+    }
+
+    @Getter
+    public enum Metric {
+        REVENUE("revenue", true, true),
+        ORDERS("orders", true, false),
+        NEW_USERS("new_users", true, false),
+        ACTIVE_USERS("active_users", false, false),
+        CART_ITEMS("cart_items", false, false),
+        WALLET_FLOAT("wallet_float", false, true);
+
+        private final String field;
+        private final boolean daily; // Reset mỗi ngày (key theo ngày) hay tổng tích lũy
+        private final boolean money; // Lưu theo đơn vị xu (x100) để HINCRBY giữ chính xác
+
+        Metric(String field, boolean daily, boolean money) {
+            this.field = field;
+            this.daily = daily;
+            this.money = money;
+        }
+    }
+}
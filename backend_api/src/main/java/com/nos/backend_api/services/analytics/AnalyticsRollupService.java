@@ -0,0 +1,340 @@
+package com.nos.backend_api.services.analytics;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.nos.backend_api.DTO.data.enums.ReportGranularity;
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.request.RequestDto.RollupBackfillRequest;
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.ReportRollupResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.repositories.ReportHourlyRepository;
+import com.nos.backend_api.repositories.ShoppingCartRepository;
+import com.nos.backend_api.services._system.LockKeeper;
+import com.nos.backend_api.services._system.RedisService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bảng report_hourly: mỗi giờ một dòng, tính bằng một câu GROUP BY cho cả một khoảng giờ và ghi bằng upsert.
+ * Job mỗi giờ tính các giờ vừa kết thúc (và bù các giờ bị lỡ); ngày có đơn được giao muộn được đánh dấu
+ * và tính lại. Backfill chia khoảng thời gian thành các chunk chạy song song.
+ * Báo cáo ngày/tuần/tháng chỉ cộng dồn các dòng theo giờ.
+ */
+@Service
+@Slf4j
+public class AnalyticsRollupService {
+    // One statement per range: every source is grouped by hour, then joined onto the full hour series
+    // so quiet hours get a zero row and stale values are overwritten
+    private static final String ROLLUP_SQL =
+            "WITH o AS (" +
+            "  SELECT date_trunc('hour', o.order_date) AS bucket, SUM(o.total_amount) AS revenue, COUNT(*) AS orders " +
+            "  FROM orders o WHERE o.status = 'DELIVERED' AND o.order_date >= ? AND o.order_date < ? GROUP BY 1), " +
+            "d AS (" +
+            "  SELECT date_trunc('hour', od.order_date) AS bucket, SUM(od.quantity_ordered) AS sold " +
+            "  FROM order_details od JOIN orders o ON o.id = od.order_id AND o.order_date = od.order_date " +
+            "  WHERE o.status = 'DELIVERED' AND od.order_date >= ? AND od.order_date < ? " +
+            "  AND o.order_date >= ? AND o.order_date < ? GROUP BY 1), " +
+            "u AS (" +
+            "  SELECT date_trunc('hour', a.created_at) AS bucket, COUNT(*) AS users " +
+            "  FROM accounts a WHERE a.created_at >= ? AND a.created_at < ? GROUP BY 1), " +
+            "r AS (" +
+            "  SELECT date_trunc('hour', r.created_at) AS bucket, " +
+            "  COUNT(*) FILTER (WHERE r.rating >= 4) AS positive, COUNT(*) FILTER (WHERE r.rating < 3) AS negative " +
+            "  FROM reviews r WHERE r.created_at >= ? AND r.created_at < ? GROUP BY 1) " +
+            "INSERT INTO report_hourly (bucket_start, total_revenue, total_orders, total_products_sold, " +
+            "new_users_registered, positive_reviews, negative_reviews, computed_at) " +
+            "SELECT h.bucket, COALESCE(o.revenue, 0), COALESCE(o.orders, 0), COALESCE(d.sold, 0), " +
+            "COALESCE(u.users, 0), COALESCE(r.positive, 0), COALESCE(r.negative, 0), NOW() " +
+            "FROM generate_series(?::timestamptz, ?::timestamptz - INTERVAL '1 hour', INTERVAL '1 hour') AS h(bucket) " +
+            "LEFT JOIN o ON o.bucket = h.bucket LEFT JOIN d ON d.bucket = h.bucket " +
+            "LEFT JOIN u ON u.bucket = h.bucket LEFT JOIN r ON r.bucket = h.bucket " +
+            "ON CONFLICT (bucket_start) DO UPDATE SET total_revenue = EXCLUDED.total_revenue, " +
+            "total_orders = EXCLUDED.total_orders, total_products_sold = EXCLUDED.total_products_sold, " +
+            "new_users_registered = EXCLUDED.new_users_registered, positive_reviews = EXCLUDED.positive_reviews, " +
+            "negative_reviews = EXCLUDED.negative_reviews, computed_at = NOW()";
+    // Cart contents cannot be reconstructed later, so only the live run records them
+    private static final String CART_SNAPSHOT_SQL =
+            "UPDATE report_hourly SET items_in_active_carts = ? WHERE bucket_start = ?";
+    private static final String LATEST_CART_SNAPSHOT =
+            "(array_agg(items_in_active_carts ORDER BY bucket_start DESC) " +
+            "FILTER (WHERE items_in_active_carts IS NOT NULL))[1]";
+    private static final String SUMMARY_SQL =
+            "SELECT date_trunc(?, bucket_start) AS period_start, SUM(total_revenue) AS total_revenue, " +
+            "SUM(total_orders) AS total_orders, SUM(total_products_sold) AS total_products_sold, " +
+            "SUM(new_users_registered) AS new_users_registered, SUM(positive_reviews) AS positive_reviews, " +
+            "SUM(negative_reviews) AS negative_reviews, " + LATEST_CART_SNAPSHOT + " AS items_in_active_carts " +
+            "FROM report_hourly WHERE bucket_start >= ? AND bucket_start < ? GROUP BY 1 ORDER BY 1";
+    private static final String DAILY_REPORT_SQL =
+            "INSERT INTO report_daily (report_date, total_revenue, total_orders, total_products_sold, " +
+            "new_users_registered, total_items_in_active_cart, positive_reviews, negative_reviews, " +
+            "best_selling_products_json, created_at, updated_at, version) " +
+            "SELECT ?, COALESCE(SUM(total_revenue), 0), COALESCE(SUM(total_orders), 0), " +
+            "COALESCE(SUM(total_products_sold), 0), COALESCE(SUM(new_users_registered), 0), " +
+            "COALESCE(" + LATEST_CART_SNAPSHOT + ", ?::int), " +
+            "COALESCE(SUM(positive_reviews), 0), COALESCE(SUM(negative_reviews), 0), '{}', NOW(), NOW(), 0 " +
+            "FROM report_hourly WHERE bucket_start >= ? AND bucket_start < ? " +
+            "ON CONFLICT (report_date) DO UPDATE SET total_revenue = EXCLUDED.total_revenue, " +
+            "total_orders = EXCLUDED.total_orders, total_products_sold = EXCLUDED.total_products_sold, " +
+            "new_users_registered = EXCLUDED.new_users_registered, " +
+            "total_items_in_active_cart = COALESCE(EXCLUDED.total_items_in_active_cart, report_daily.total_items_in_active_cart), " +
+            "positive_reviews = EXCLUDED.positive_reviews, negative_reviews = EXCLUDED.negative_reviews, " +
+            "updated_at = NOW(), version = report_daily.version + 1";
+    // Each mark bumps the day's score; a day is dropped only if its score is still the one read before recomputing
+    private static final RedisScript<Long> REMOVE_IF_UNMARKED_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+            "if score and tonumber(score) == tonumber(ARGV[2]) then return redis.call('ZREM', KEYS[1], ARGV[1]) end " +
+            "return 0",
+            Long.class);
+    // Short TTL kept alive by LockKeeper, so a dead node frees the lock quickly but a long backfill keeps it
+    private static final long LOCK_TTL_MINUTES = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisService redisService;
+    private final ReportHourlyRepository hourlyRepository;
+    private final ShoppingCartRepository cartRepository;
+    private final long maxCatchUpHours;
+    private final long backfillChunkHours;
+    private final int backfillParallelism;
+    private final long maxBackfillDays;
+    private final Timer hourlyTimer;
+    private final Timer backfillTimer;
+    private final Counter hoursRolledUp;
+
+    public AnalyticsRollupService(JdbcTemplate jdbcTemplate,
+                                  StringRedisTemplate stringRedisTemplate,
+                                  RedisService redisService,
+                                  ReportHourlyRepository hourlyRepository,
+                                  ShoppingCartRepository cartRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.analytics.rollup.max-catch-up-hours:168}") long maxCatchUpHours,
+                                  @Value("${app.analytics.rollup.backfill-chunk-hours:24}") long backfillChunkHours,
+                                  @Value("${app.analytics.rollup.backfill-parallelism:4}") int backfillParallelism,
+                                  @Value("${app.analytics.rollup.max-backfill-days:366}") long maxBackfillDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisService = redisService;
+        this.hourlyRepository = hourlyRepository;
+        this.cartRepository = cartRepository;
+        this.maxCatchUpHours = Math.max(1, maxCatchUpHours);
+        this.backfillChunkHours = Math.max(1, backfillChunkHours);
+        this.backfillParallelism = Math.max(1, backfillParallelism);
+        this.maxBackfillDays = Math.max(1, maxBackfillDays);
+        this.hourlyTimer = Timer.builder("analytics.rollup.duration").tag("mode", "hourly").register(meterRegistry);
+        this.backfillTimer = Timer.builder("analytics.rollup.duration").tag("mode", "backfill").register(meterRegistry);
+        this.hoursRolledUp = Counter.builder("analytics.rollup.hours").register(meterRegistry);
+    }
+
+    // Revenue is bucketed by order date, so delivering an old order changes an hour that was already rolled up
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAnalyticsEvent(AnalyticsEvent event) {
+        if (event.metric() != AnalyticsEvent.Metric.REVENUE || event.day() == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().incrementScore(RedisData.ANALYTICS_ROLLUP_DIRTY, event.day().toString(), 1);
+        } catch (Exception e) {
+            log.warn("Failed to mark {} for a rollup recompute", event.day(), e);
+        }
+    }
+
+    @Scheduled(cron = "${app.analytics.rollup.cron:0 5 * * * ?}")
+    public void scheduledRollup() {
+        LockKeeper lock = acquireLock();
+        if (lock == null) {
+            log.info("Analytics rollup already running elsewhere, skipping");
+            return;
+        }
+        try (lock) {
+            hourlyTimer.record(() -> rollupPending(lock));
+        } catch (Exception e) {
+            log.error("Analytics rollup failed", e);
+        }
+    }
+
+    // POST /admin/analytics/backfill
+    public ApiResponse<BooleanResponse> triggerBackfill(RollupBackfillRequest request) {
+        LocalDate today = LocalDate.now();
+        if (request.getFromDate().isAfter(request.getToDate()) || request.getFromDate().isAfter(today)
+                || ChronoUnit.DAYS.between(request.getFromDate(), request.getToDate()) >= maxBackfillDays) {
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        LockKeeper lock = acquireLock();
+        if (lock == null) {
+            return ApiResponse.success(BooleanResponse.builder().success(false).build(), "Rollup is already running");
+        }
+        Thread.ofVirtual().name("analytics-backfill").start(() -> {
+            try (lock) {
+                backfillTimer.recordCallable(() -> backfill(request.getFromDate(), request.getToDate(), lock));
+            } catch (Exception e) {
+                log.error("Analytics backfill from {} to {} failed", request.getFromDate(), request.getToDate(), e);
+            }
+        });
+        return ApiResponse.success(BooleanResponse.builder().success(true).build(), "Backfill started");
+    }
+
+    /**
+     * Cộng dồn các dòng theo giờ trong [fromDate, toDate] theo giờ/ngày/tuần/tháng.
+     */
+    public List<ReportRollupResponse> summarize(LocalDate fromDate, LocalDate toDate, ReportGranularity granularity) {
+        return jdbcTemplate.query(SUMMARY_SQL, (rs, rowNum) -> ReportRollupResponse.builder()
+                        .periodStart(rs.getTimestamp("period_start").toLocalDateTime())
+                        .totalRevenue(rs.getBigDecimal("total_revenue"))
+                        .totalOrders(rs.getInt("total_orders"))
+                        .totalProductsSold(rs.getInt("total_products_sold"))
+                        .newUsersRegistered(rs.getInt("new_users_registered"))
+                        .positiveReviews(rs.getInt("positive_reviews"))
+                        .negativeReviews(rs.getInt("negative_reviews"))
+                        .itemsInActiveCarts(rs.getObject("items_in_active_carts", Integer.class))
+                        .build(),
+                granularity.getTruncUnit(),
+                Timestamp.valueOf(fromDate.atStartOfDay()),
+                Timestamp.valueOf(toDate.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Tính lại các giờ đã kết thúc của một ngày.
+     */
+    public int rollupDay(LocalDate date) {
+        LocalDateTime end = min(date.plusDays(1).atStartOfDay(), currentHour());
+        return rollup(date.atStartOfDay(), end);
+    }
+
+    /**
+     * Ghi (hoặc ghi đè) report_daily của một ngày từ các dòng theo giờ.
+     * itemsInCartFallback được dùng khi ngày đó không có ảnh chụp giỏ hàng nào.
+     */
+    public void writeDailyReport(LocalDate date, Integer itemsInCartFallback) {
+        jdbcTemplate.update(DAILY_REPORT_SQL,
+                Date.valueOf(date),
+                itemsInCartFallback,
+                Timestamp.valueOf(date.atStartOfDay()),
+                Timestamp.valueOf(date.plusDays(1).atStartOfDay()));
+    }
+
+    private void rollupPending(LockKeeper lock) {
+        LocalDateTime currentHour = currentHour();
+        LocalDateTime earliest = currentHour.minusHours(maxCatchUpHours);
+        LocalDateTime from = hourlyRepository.findTopByOrderByBucketStartDesc()
+                .map(latest -> latest.getBucketStart().plusHours(1))
+                .orElse(currentHour.minusHours(1));
+        if (from.isBefore(earliest)) {
+            log.warn("Analytics rollup is {} hours behind, catching up the last {} only; backfill the rest",
+                    ChronoUnit.HOURS.between(from, currentHour), maxCatchUpHours);
+            from = earliest;
+        }
+        rollup(from, currentHour);
+        jdbcTemplate.update(CART_SNAPSHOT_SQL, cartRepository.sumItemsInActiveCarts(),
+                Timestamp.valueOf(currentHour.minusHours(1)));
+
+        Set<TypedTuple<String>> dirtyDays = stringRedisTemplate.opsForZSet()
+                .rangeWithScores(RedisData.ANALYTICS_ROLLUP_DIRTY, 0, -1);
+        if (dirtyDays == null || dirtyDays.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        for (TypedTuple<String> day : dirtyDays) {
+            lock.ensureHeld();
+            LocalDate date = LocalDate.parse(day.getValue());
+            rollupDay(date);
+            if (date.isBefore(today)) {
+                writeDailyReport(date, null);
+            }
+            // A day marked again during the recompute has a higher score now and stays for the next run
+            stringRedisTemplate.execute(REMOVE_IF_UNMARKED_SCRIPT, List.of(RedisData.ANALYTICS_ROLLUP_DIRTY),
+                    day.getValue(), String.valueOf(day.getScore().longValue()));
+        }
+        log.info("Recomputed rollups of {} day(s) with late deliveries", dirtyDays.size());
+    }
+
+    private int backfill(LocalDate fromDate, LocalDate toDate, LockKeeper lock) throws Exception {
+        LocalDateTime start = fromDate.atStartOfDay();
+        LocalDateTime end = min(toDate.plusDays(1).atStartOfDay(), currentHour());
+        AtomicInteger hours = new AtomicInteger();
+        Semaphore permits = new Semaphore(backfillParallelism);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (LocalDateTime chunkStart = start; chunkStart.isBefore(end); chunkStart = chunkStart.plusHours(backfillChunkHours)) {
+                LocalDateTime from = chunkStart;
+                LocalDateTime to = min(chunkStart.plusHours(backfillChunkHours), end);
+                futures.add(executor.submit(() -> {
+                    // Virtual threads are cheap, database connections are not
+                    permits.acquire();
+                    try {
+                        lock.ensureHeld();
+                        hours.addAndGet(rollup(from, to));
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Finished days get their daily report derived again from the fresh rollups
+        LocalDate today = LocalDate.now();
+        for (LocalDate date = fromDate; !date.isAfter(toDate) && date.isBefore(today); date = date.plusDays(1)) {
+            lock.ensureHeld();
+            writeDailyReport(date, null);
+        }
+        log.info("Analytics backfill from {} to {} rolled up {} hours", fromDate, toDate, hours.get());
+        return hours.get();
+    }
+
+    private int rollup(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+        Timestamp lo = Timestamp.valueOf(from);
+        Timestamp hi = Timestamp.valueOf(to);
+        int rows = jdbcTemplate.update(ROLLUP_SQL, lo, hi, lo, hi, lo, hi, lo, hi, lo, hi, lo, hi);
+        hoursRolledUp.increment(rows);
+        return rows;
+    }
+
+    private static LocalDateTime currentHour() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private LockKeeper acquireLock() {
+        return LockKeeper.tryAcquire(redisService, RedisData.ANALYTICS_ROLLUP_LOCK, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+}
@@ -1,43 +1,40 @@
 package com.nos.backend_api.services.analytics;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import com.nos.backend_api.DTO.data.enums.OrderStatus;
+import com.nos.backend_api.DTO.data.enums.ReportGranularity;
 import com.nos.backend_api.DTO.request.RequestDto.ReportSearchRequest;
+import com.nos.backend_api.DTO.request.RequestDto.RollupBackfillRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.AnalyticsOverviewResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.ReportDailyResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.ReportRollupResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
 import com.nos.backend_api.models.admin.ReportDaily;
-import com.nos.backend_api.repositories.AccountRepository;
-import com.nos.backend_api.repositories.OrderDetailRepository;
-import com.nos.backend_api.repositories.OrderRepository;
 import com.nos.backend_api.repositories.ReportDailyRepository;
-import com.nos.backend_api.repositories.ReviewRepository;
 import com.nos.backend_api.repositories.ShoppingCartRepository;
-import com.nos.backend_api.repositories.WalletRepository;
 
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
+    private static final int DAILY_REPORT_CATCH_UP_DAYS = 7;
+
     private final ReportDailyRepository reportDailyRepository;
-    private final OrderRepository orderRepository;
-    private final ReviewRepository reviewRepository;
-    private final AccountRepository accountRepository;
     private final ShoppingCartRepository cartRepository;
-    private final OrderDetailRepository orderDetailRepository;
-    private final WalletRepository walletRepository;
+    private final AnalyticsRollupService rollupService;
+    private final LiveAnalyticsService liveAnalyticsService;
 
     // GET /admin/analytics/daily
     @Transactional(readOnly = true)
@@ -47,54 +44,40 @@ public class AnalyticsService {
     }
 
     // GET /admin/analytics/overview
-    @Transactional(readOnly = true)
     public ApiResponse<AnalyticsOverviewResponse> getOverview() {
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        
-        BigDecimal todayRevenue = orderRepository.getTotalRevenueFromDate(todayStart);
-        int todayOrders = (int) orderRepository.countByOrderDateGreaterThanEqualAndStatus(todayStart, OrderStatus.DELIVERED);
-        int activeUsers = (int) accountRepository.countByActive(true);
-        BigDecimal totalBalance = walletRepository.getTotalActiveBalance();
-        
-        AnalyticsOverviewResponse overview = AnalyticsOverviewResponse.builder()
-                .todayRevenue(todayRevenue != null ? todayRevenue : BigDecimal.ZERO)
-                .todayOrders(todayOrders)
-                .activeUsers(activeUsers)
-                .totalBalance(totalBalance != null ? totalBalance : BigDecimal.ZERO)
-                .build();
-        return ApiResponse.success(overview);
+        return ApiResponse.success(liveAnalyticsService.getOverview());
     }
 
-    @Scheduled(cron = "0 0 1 * * ?")
-    @Transactional
-    public void generateDailyReport() {
-        LocalDate date = LocalDate.now().minusDays(1);
-        if (reportDailyRepository.existsById(date)) return;
+    // GET /admin/analytics/stream
+    public SseEmitter streamOverview() {
+        return liveAnalyticsService.subscribe();
+    }
 
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = date.atTime(LocalTime.MAX);
+    // GET /admin/analytics/rollups
+    public ApiResponse<List<ReportRollupResponse>> getRollups(ReportSearchRequest request) {
+        if (request.getFromDate() == null || request.getToDate() == null || request.getFromDate().isAfter(request.getToDate())) {
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        ReportGranularity granularity = request.getGranularity() != null ? request.getGranularity() : ReportGranularity.DAY;
+        return ApiResponse.success(rollupService.summarize(request.getFromDate(), request.getToDate(), granularity));
+    }
 
-        BigDecimal revenue = orderRepository.getTotalRevenueFromDate(start);
-        int orders = (int) orderRepository.countByOrderDateBetweenAndStatus(start, end, OrderStatus.DELIVERED);
-        int productsSold = orderDetailRepository.sumQuantityByOrderDateBetween(start, end);
-        int newUsers = (int) accountRepository.countByCreatedAtBetween(start, end);
-        int itemsInCart = cartRepository.sumItemsInActiveCarts();
-        int positiveReviews = (int) reviewRepository.countByCreatedAtBetweenAndRatingGreaterThanEqual(start, end, 4);
-        int negativeReviews = (int) reviewRepository.countByCreatedAtBetweenAndRatingLessThan(start, end, 3);
-        String bestProducts = getBestSellingJson(date);
+    // POST /admin/analytics/backfill
+    public ApiResponse<BooleanResponse> backfill(RollupBackfillRequest request) {
+        return rollupService.triggerBackfill(request);
+    }
 
-        ReportDaily report = ReportDaily.builder()
-                .reportDate(date)
-                .totalRevenue(revenue != null ? revenue : BigDecimal.ZERO)
-                .totalOrders(orders)
-                .totalProductsSold(productsSold)
-                .newUsersRegistered(newUsers)
-                .totalItemsInActiveCart(itemsInCart)
-                .positiveReviews(positiveReviews)
-                .negativeReviews(negativeReviews)
-                .bestSellingProductsJson(bestProducts)
-                .build();
-        reportDailyRepository.save(report);
+    // Also fills days missed while the job was down; older gaps go through the backfill endpoint
+    @Scheduled(cron = "0 0 1 * * ?")
+    @Transactional
+    public void generateDailyReport() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        for (LocalDate date = yesterday.minusDays(DAILY_REPORT_CATCH_UP_DAYS - 1); !date.isAfter(yesterday); date = date.plusDays(1)) {
+            if (reportDailyRepository.existsById(date)) continue;
+            rollupService.rollupDay(date);
+            // The live cart total stands in when the hourly job recorded no snapshot that day
+            rollupService.writeDailyReport(date, cartRepository.sumItemsInActiveCarts());
+        }
     }
 
     private ReportDailyResponse mapToReportDailyResponse(ReportDaily report) {
@@ -110,8 +93,4 @@ public class AnalyticsService {
                 .bestSellingProducts(report.getBestSellingProductsJson())
                 .build();
     }
-
-    private String getBestSellingJson(LocalDate date) {
-        return "{}";  // JSON string
-    }
 }
\ No newline at end of file
@@ -0,0 +1,346 @@
+package com.nos.backend_api.services.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.nos.backend_api.DTO.data.enums.OrderStatus;
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.response.ResponseDto.AnalyticsDeltaResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.AnalyticsOverviewResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.repositories.AccountRepository;
+import com.nos.backend_api.repositories.OrderRepository;
+import com.nos.backend_api.repositories.ShoppingCartRepository;
+import com.nos.backend_api.repositories.WalletRepository;
+import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent.Metric;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bộ đếm dashboard (doanh thu, đơn, user mới trong ngày; user active, hàng trong giỏ, tổng số dư ví)
+ * được cập nhật tăng dần từ AnalyticsEvent sau khi transaction commit, lưu trong hash Redis dùng chung
+ * giữa các node. Key chưa có được nạp từ DB ở lần đọc đầu tiên; mỗi giờ nạp lại để sửa sai lệch.
+ * Mỗi delta được publish qua pub/sub, mọi node đẩy xuống các SSE admin đang kết nối với nó.
+ */
+@Service
+@Slf4j
+public class LiveAnalyticsService implements MessageListener {
+    // Only counts on a seeded hash: incrementing a missing key would start it from zero instead of the DB total.
+    // Every seed in progress also gets the delta in the journal, since its DB snapshot may predate it
+    private static final RedisScript<Long> INCR_IF_SEEDED_SCRIPT = new DefaultRedisScript<>(
+            "for _, f in ipairs(redis.call('HKEYS', KEYS[2])) do " +
+            "  if string.sub(f, 1, 4) == 'run:' then " +
+            "    redis.call('HINCRBY', KEYS[2], string.sub(f, 5) .. ':' .. ARGV[1], ARGV[2]) " +
+            "  end " +
+            "end " +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return false end " +
+            "return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])",
+            Long.class);
+    // Writes the DB snapshot plus whatever was journaled for this run since before the snapshot was read,
+    // in one step so no increment lands between the write and the journal read
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> APPLY_SEED_SCRIPT = new DefaultRedisScript<>(
+            "local values = {} " +
+            "for i = 3, #ARGV, 2 do " +
+            "  local pending = redis.call('HGET', KEYS[2], ARGV[1] .. ':' .. ARGV[i]) " +
+            "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "  if pending then " +
+            "    redis.call('HINCRBY', KEYS[1], ARGV[i], pending) " +
+            "    redis.call('HDEL', KEYS[2], ARGV[1] .. ':' .. ARGV[i]) " +
+            "  end " +
+            "  table.insert(values, redis.call('HGET', KEYS[1], ARGV[i])) " +
+            "end " +
+            "redis.call('HDEL', KEYS[2], 'run:' .. ARGV[1]) " +
+            "if tonumber(ARGV[2]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return values",
+            List.class);
+    // An abandoned journal (node died mid-seed) only has to outlive one DB load
+    private static final Duration SEED_JOURNAL_TTL = Duration.ofMinutes(10);
+    // Late events (an old order delivered today) still land on the day they belong to
+    private static final Duration DAY_KEY_TTL = Duration.ofDays(2);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisService redisService;
+    private final OrderRepository orderRepository;
+    private final AccountRepository accountRepository;
+    private final ShoppingCartRepository cartRepository;
+    private final WalletRepository walletRepository;
+    private final MeterRegistry meterRegistry;
+    private final long sseTimeoutMs;
+    private final int maxSubscribers;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private volatile LocalDate snapshotDay = LocalDate.now();
+
+    public LiveAnalyticsService(StringRedisTemplate stringRedisTemplate,
+                                RedisService redisService,
+                                RedisMessageListenerContainer listenerContainer,
+                                OrderRepository orderRepository,
+                                AccountRepository accountRepository,
+                                ShoppingCartRepository cartRepository,
+                                WalletRepository walletRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.analytics.live.sse-timeout-ms:1800000}") long sseTimeoutMs,
+                                @Value("${app.analytics.live.max-subscribers:50}") int maxSubscribers) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisService = redisService;
+        this.orderRepository = orderRepository;
+        this.accountRepository = accountRepository;
+        this.cartRepository = cartRepository;
+        this.walletRepository = walletRepository;
+        this.meterRegistry = meterRegistry;
+        this.sseTimeoutMs = sseTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder("analytics.live.subscribers", subscribers, List::size).register(meterRegistry);
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisData.ANALYTICS_LIVE_CHANNEL));
+    }
+
+    // Rolled-back business transactions never reach the counters
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAnalyticsEvent(AnalyticsEvent event) {
+        long delta = toUnits(event.metric(), event.delta());
+        if (delta == 0) {
+            return;
+        }
+        String key = event.metric().isDaily() ? dayKey(event.day()) : RedisData.ANALYTICS_LIVE_TOTALS;
+        try {
+            Long value = stringRedisTemplate.execute(INCR_IF_SEEDED_SCRIPT, List.of(key, journalKey(key)),
+                    event.metric().getField(), String.valueOf(delta));
+            if (value == null) {
+                // Seeded from the DB on the next read, which already includes this change
+                record(event.metric(), "unseeded");
+                return;
+            }
+            record(event.metric(), "applied");
+            if (!event.metric().isDaily() || LocalDate.now().equals(event.day())) {
+                redisService.publish(RedisData.ANALYTICS_LIVE_CHANNEL,
+                        Map.of("metric", event.metric().name(), "delta", delta, "value", value));
+            }
+        } catch (Exception e) {
+            // The hourly resync corrects the counter; the business write already committed
+            record(event.metric(), "error");
+            log.warn("Failed to apply analytics event {}", event, e);
+        }
+    }
+
+    public AnalyticsOverviewResponse getOverview() {
+        LocalDate today = LocalDate.now();
+        Map<?, ?> day;
+        Map<?, ?> totals;
+        try {
+            totals = stringRedisTemplate.opsForHash().entries(RedisData.ANALYTICS_LIVE_TOTALS);
+            if (totals.isEmpty()) {
+                totals = seedTotals();
+            }
+            day = stringRedisTemplate.opsForHash().entries(dayKey(today));
+            if (day.isEmpty()) {
+                day = seedDay(today);
+            }
+        } catch (Exception e) {
+            log.warn("Live analytics counters unavailable, reading the overview from the database", e);
+            day = loadDay(today);
+            totals = loadTotals();
+        }
+        return AnalyticsOverviewResponse.builder()
+                .todayRevenue(fromUnits(Metric.REVENUE, parse(day.get(Metric.REVENUE.getField()))))
+                .todayOrders((int) parse(day.get(Metric.ORDERS.getField())))
+                .newUsers((int) parse(day.get(Metric.NEW_USERS.getField())))
+                .activeUsers((int) parse(totals.get(Metric.ACTIVE_USERS.getField())))
+                .itemsInActiveCarts((int) parse(totals.get(Metric.CART_ITEMS.getField())))
+                .totalBalance(fromUnits(Metric.WALLET_FLOAT, parse(totals.get(Metric.WALLET_FLOAT.getField()))))
+                .build();
+    }
+
+    /**
+     * Mở một SSE stream: gửi event "snapshot" (AnalyticsOverviewResponse) ngay khi kết nối,
+     * sau đó là các event "delta" (AnalyticsDeltaResponse) và một snapshot mới khi sang ngày.
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new AppException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        send(emitter, SseEmitter.event().name("snapshot").data(getOverview(), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (subscribers.isEmpty() || !(redisService.deserializeMessage(message.getBody()) instanceof Map<?, ?> payload)) {
+            return;
+        }
+        try {
+            Metric metric = Metric.valueOf(payload.get("metric").toString());
+            AnalyticsDeltaResponse delta = AnalyticsDeltaResponse.builder()
+                    .metric(metric.name())
+                    .delta(fromUnits(metric, ((Number) payload.get("delta")).longValue()))
+                    .value(fromUnits(metric, ((Number) payload.get("value")).longValue()))
+                    .build();
+            broadcast(SseEmitter.event().name("delta").data(delta, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed analytics delta {}", payload, e);
+        }
+    }
+
+    // Keeps proxies from closing idle streams; at midnight the "today" tiles restart from a fresh snapshot
+    @Scheduled(fixedDelayString = "${app.analytics.live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        if (!today.equals(snapshotDay)) {
+            snapshotDay = today;
+            broadcast(SseEmitter.event().name("snapshot").data(getOverview(), MediaType.APPLICATION_JSON));
+            return;
+        }
+        broadcast(SseEmitter.event().comment("heartbeat"));
+    }
+
+    /**
+     * Nạp lại bộ đếm từ DB (cộng thêm các delta đến trong lúc đọc DB), sửa các delta bị mất do Redis lỗi.
+     */
+    @Scheduled(cron = "${app.analytics.live.resync-cron:0 0 * * * ?}")
+    public void resync() {
+        try {
+            seedTotals();
+            seedDay(LocalDate.now());
+        } catch (Exception e) {
+            log.warn("Failed to resync live analytics counters", e);
+            return;
+        }
+        if (!subscribers.isEmpty()) {
+            broadcast(SseEmitter.event().name("snapshot").data(getOverview(), MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private Map<String, String> seedTotals() {
+        return seed(RedisData.ANALYTICS_LIVE_TOTALS, null, this::loadTotals);
+    }
+
+    private Map<String, String> seedDay(LocalDate date) {
+        return seed(dayKey(date), DAY_KEY_TTL, () -> loadDay(date));
+    }
+
+    // The journal run is opened before the DB read, so increments committed while loading are re-applied
+    // on top of the snapshot instead of being overwritten by it
+    private Map<String, String> seed(String key, Duration ttl, Supplier<Map<String, String>> loader) {
+        String journal = journalKey(key);
+        String run = UUID.randomUUID().toString();
+        stringRedisTemplate.opsForHash().put(journal, "run:" + run, "1");
+        stringRedisTemplate.expire(journal, SEED_JOURNAL_TTL);
+
+        Map<String, String> snapshot = loader.get();
+        List<String> fields = List.copyOf(snapshot.keySet());
+        List<String> args = new ArrayList<>();
+        args.add(run);
+        args.add(String.valueOf(ttl != null ? ttl.toMillis() : 0));
+        for (String field : fields) {
+            args.add(field);
+            args.add(snapshot.get(field));
+        }
+        List<?> values = stringRedisTemplate.execute(APPLY_SEED_SCRIPT, List.of(key, journal), args.toArray());
+        Map<String, String> seeded = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = values != null && i < values.size() ? values.get(i) : null;
+            seeded.put(fields.get(i), value != null ? value.toString() : snapshot.get(fields.get(i)));
+        }
+        return seeded;
+    }
+
+    private Map<String, String> loadTotals() {
+        BigDecimal walletFloat = walletRepository.getTotalActiveBalance();
+        return Map.of(
+                Metric.ACTIVE_USERS.getField(), String.valueOf(accountRepository.countByActive(true)),
+                Metric.CART_ITEMS.getField(), String.valueOf(cartRepository.sumItemsInActiveCarts()),
+                Metric.WALLET_FLOAT.getField(), String.valueOf(toUnits(Metric.WALLET_FLOAT, walletFloat)));
+    }
+
+    private Map<String, String> loadDay(LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.atTime(LocalTime.MAX);
+        BigDecimal revenue = orderRepository.getTotalRevenueBetween(start, date.plusDays(1).atStartOfDay());
+        return Map.of(
+                Metric.REVENUE.getField(), String.valueOf(toUnits(Metric.REVENUE, revenue)),
+                Metric.ORDERS.getField(), String.valueOf(orderRepository.countByOrderDateBetweenAndStatus(start, end, OrderStatus.DELIVERED)),
+                Metric.NEW_USERS.getField(), String.valueOf(accountRepository.countByCreatedAtBetween(start, end)));
+    }
+
+    private void broadcast(SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : subscribers) {
+            send(emitter, event);
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (Exception e) {
+            // Client went away; completing triggers the callback that unregisters it
+            subscribers.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void record(Metric metric, String outcome) {
+        meterRegistry.counter("analytics.live.events", "metric", metric.name(), "outcome", outcome).increment();
+    }
+
+    private static String journalKey(String key) {
+        return key + RedisData.ANALYTICS_LIVE_JOURNAL_SUFFIX;
+    }
+
+    private String dayKey(LocalDate date) {
+        return RedisData.ANALYTICS_LIVE_DAY + ":" + (date != null ? date : LocalDate.now());
+    }
+
+    // Money is counted in cents so HINCRBY stays exact
+    private static long toUnits(Metric metric, BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        BigDecimal units = metric.isMoney() ? amount.movePointRight(2) : amount;
+        return units.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromUnits(Metric metric, long units) {
+        return metric.isMoney() ? BigDecimal.valueOf(units, 2) : BigDecimal.valueOf(units);
+    }
+
+    private static long parse(Object value) {
+        return value != null ? Long.parseLong(value.toString()) : 0;
+    }
+}
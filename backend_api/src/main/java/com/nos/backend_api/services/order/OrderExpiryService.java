@@ -0,0 +1,102 @@
+package com.nos.backend_api.services.order;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.enums.SendEmailType;
+import com.nos.backend_api.models.payment.Order;
+import com.nos.backend_api.services._system.NotificationProducer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tự động hủy các đơn PENDING quá hạn để trả lại tồn kho đã giữ trong createOrder.
+ * Mỗi chunk chạy trong một transaction riêng; thông báo chỉ được gửi sau khi chunk đã commit.
+ */
+@Service
+@Slf4j
+public class OrderExpiryService {
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID KEYSET_START_ID = new UUID(0L, 0L);
+    private static final String EXPIRY_REASON = "Đơn hàng không được xử lý trong thời hạn cho phép";
+
+    private final OrderService orderService;
+    private final NotificationProducer notificationProducer;
+    private final long pendingTtlHours;
+    private final int batchSize;
+
+    public OrderExpiryService(OrderService orderService,
+                              NotificationProducer notificationProducer,
+                              @Value("${app.orders.pending-ttl-hours:24}") long pendingTtlHours,
+                              @Value("${app.orders.expiry-batch-size:500}") int batchSize) {
+        this.orderService = orderService;
+        this.notificationProducer = notificationProducer;
+        this.pendingTtlHours = pendingTtlHours;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.expiry-check-interval-ms:300000}")
+    public void cancelExpiredOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(pendingTtlHours);
+        LocalDateTime afterDate = KEYSET_START;
+        UUID afterId = KEYSET_START_ID;
+        int total = 0;
+
+        while (true) {
+            List<Order> cancelled;
+            try {
+                cancelled = orderService.cancelExpiredPendingOrders(cutoff, afterDate, afterId, batchSize);
+            } catch (Exception e) {
+                log.error("Failed to cancel expired orders after ({}, {})", afterDate, afterId, e);
+                break;
+            }
+            if (cancelled.isEmpty()) {
+                break;
+            }
+            total += cancelled.size();
+            notifyCancelled(cancelled);
+
+            Order last = cancelled.get(cancelled.size() - 1);
+            afterDate = last.getOrderDate();
+            afterId = last.getId();
+            if (cancelled.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Expired {} pending orders older than {}", total, cutoff);
+        }
+    }
+
+    private void notifyCancelled(List<Order> orders) {
+        LocalDateTime cancelledDate = LocalDateTime.now();
+        List<NotificationProducer.EmailMessage> messages = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (order.getUser() == null) {
+                continue;
+            }
+            Map<String, Object> emailData = new HashMap<>();
+            emailData.put("userName", order.getUser().getFullName());
+            emailData.put("orderId", order.getId());
+            emailData.put("reason", EXPIRY_REASON);
+            emailData.put("refundAmount", order.getTotalAmount());
+            emailData.put("cancelledDate", cancelledDate);
+            messages.add(new NotificationProducer.EmailMessage(
+                    order.getUser().getEmail(),
+                    SendEmailType.ORDER_CANCELLED,
+                    emailData));
+        }
+        if (!messages.isEmpty()) {
+            notificationProducer.sendNotifications(messages);
+        }
+    }
+}
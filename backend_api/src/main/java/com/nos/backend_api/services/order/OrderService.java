@@ -3,13 +3,18 @@ package com.nos.backend_api.services.order;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -17,9 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.nos.backend_api.DTO.data.enums.OrderStatus;
 import com.nos.backend_api.DTO.data.enums.SendEmailType;
-import com.nos.backend_api.DTO.data.enums.TransactionStatus;
 import com.nos.backend_api.DTO.data.enums.TransactionType;
-import com.nos.backend_api.DTO.data.enums.UserRole;
 import com.nos.backend_api.DTO.request.RequestDto.AdminOrderSearchRequest;
 import com.nos.backend_api.DTO.request.RequestDto.CancelOrderRequest;
 import com.nos.backend_api.DTO.request.RequestDto.CreateOrderRequest;
@@ -32,11 +35,12 @@ import com.nos.backend_api.DTO.response.ResponseDto.OrderDetailResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.OrderResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.ReviewResponse;
 import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.configuration.AuthPrincipal;
+import com.nos.backend_api.configuration.RetryOnConflict;
 import com.nos.backend_api.exceptions.ErrorCode;
 import com.nos.backend_api.models.payment.Order;
 import com.nos.backend_api.models.payment.OrderDetail;
 import com.nos.backend_api.models.payment.PaymentMethod;
-import com.nos.backend_api.models.payment.WalletTransaction;
 import com.nos.backend_api.models.product.ProductVariant;
 import com.nos.backend_api.models.product.Review;
 import com.nos.backend_api.models.product.ReviewAttachment;
@@ -44,6 +48,7 @@ import com.nos.backend_api.models.shopping_cart.CartItem;
 import com.nos.backend_api.models.shopping_cart.ShoppingCart;
 import com.nos.backend_api.models.user_info.Account;
 import com.nos.backend_api.models.user_info.Address;
+import com.nos.backend_api.models.user_info.Wallet;
 import com.nos.backend_api.repositories.AccountRepository;
 import com.nos.backend_api.repositories.AddressRepository;
 import com.nos.backend_api.repositories.CartItemRepository;
@@ -52,10 +57,15 @@ import com.nos.backend_api.repositories.OrderRepository;
 import com.nos.backend_api.repositories.PaymentMethodRepository;
 import com.nos.backend_api.repositories.ProductRepository;
 import com.nos.backend_api.repositories.ShoppingCartRepository;
+import com.nos.backend_api.repositories.UserPurchasedProductRepository;
 import com.nos.backend_api.repositories.WalletRepository;
 import com.nos.backend_api.repositories.WalletTransactionRepository;
+import com.nos.backend_api.services._system.AfterCommit;
 import com.nos.backend_api.services._system.NotificationProducer;
 import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
+import com.nos.backend_api.services.wallet.WalletHistoryCache;
+import com.nos.backend_api.services.wallet.WalletLedgerService;
 import com.nos.backend_api.DTO.data.redis_cache.RedisData;
 
 import lombok.RequiredArgsConstructor;
@@ -76,16 +86,24 @@ public class OrderService {
     private final AccountRepository accountRepository;
     private final WalletTransactionRepository txnRepository;
     private final WalletRepository walletRepository;
+    private final UserPurchasedProductRepository purchasedProductRepository;
+    private final WalletLedgerService ledgerService;
+    private final WalletHistoryCache walletHistoryCache;
     private final NotificationProducer notificationProducer;
     private final RedisService redisService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final long TERMINAL_ORDER_CACHE_DAYS = 30;
 
     // =====================================
     // POST /orders
     // =====================================
+    @RetryOnConflict
     @Transactional
-    public ApiResponse<OrderResponse> createOrder(UUID userId, CreateOrderRequest request) {
-        Account user = accountRepository.findById(userId)
-                .orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
+    public ApiResponse<OrderResponse> createOrder(AuthPrincipal principal, CreateOrderRequest request) {
+        UUID userId = principal.userId();
+        // The order only needs the foreign key; name and email come from the token
+        Account user = accountRepository.getReferenceById(userId);
         Address address = addressRepository.findById(request.getAddressId())
                 .filter(a -> a.getUser().getId().equals(userId))
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
@@ -113,6 +131,7 @@ public class OrderService {
                 .orderDate(LocalDateTime.now())
                 .build());
         java.util.Set<UUID> productIdsToEvict = new java.util.HashSet<>();
+        List<OrderDetail> details = new ArrayList<>(items.size());
 
         items.forEach(item -> {
             ProductVariant variant = item.getProductVariant();
@@ -128,50 +147,41 @@ public class OrderService {
 
             OrderDetail detail = OrderDetail.builder()
                     .order(order)
+                    .orderDate(order.getOrderDate())
                     .productVariant(variant)
+                    .productId(variant.getProduct().getId())
+                    .productName(variant.getProduct().getName())
+                    .sku(variant.getSku())
+                    .attributeSummary(summarizeAttributes(variant.getAttributes()))
+                    .thumbnailUrl(findThumbnailUrl(variant))
                     .quantity(item.getQuantity())
                     .priceEach(variant.getPrice())
 
                     .build();
-            orderDetailRepository.save(detail);
+            details.add(orderDetailRepository.save(detail));
         });
 
         evictProductCacheAfterOrder(productIdsToEvict);
         cartItemRepository.deleteAllByCartId(cart.getId());
+        eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.CART_ITEMS,
+                -items.stream().mapToLong(CartItem::getQuantity).sum()));
 
         log.info(pm.getMethodName());
         if (pm.getMethodName() != null && pm.getMethodName().equalsIgnoreCase("Wallet")) {
             log.info("Processing Wallet payment for order: {}, user: {}, amount: {}", order.getId(), userId,
                     total.add(shippingFee));
 
-            if (user.getWallet() == null) {
+            Wallet wallet = walletRepository.findByUserId(userId).orElse(null);
+            if (wallet == null) {
                 log.error("User {} does not have a wallet", userId);
                 throw new AppException(ErrorCode.BAD_REQUEST);
             }
 
             BigDecimal requiredAmount = total.add(shippingFee);
-            BigDecimal currentBalance = user.getWallet().getBalance();
-
-            if (currentBalance.compareTo(requiredAmount) < 0) {
-                log.warn("Insufficient wallet balance. Required: {}, Available: {}", requiredAmount, currentBalance);
-                throw new AppException(ErrorCode.BAD_REQUEST);
-            }
-
-            WalletTransaction txn = WalletTransaction.builder()
-                    .wallet(user.getWallet())
-                    .transactionType(TransactionType.PURCHASE)
-                    .transactionStatus(TransactionStatus.COMPLETED)
-                    .amount(requiredAmount.negate())
-                    .order(order)
-                    .description("Order " + order.getId())
-                    .build();
-            txnRepository.save(txn);
+            ledgerService.post(wallet, TransactionType.PURCHASE, requiredAmount,
+                    "Order " + order.getId(), order);
 
-            BigDecimal newBalance = currentBalance.subtract(requiredAmount);
-            user.getWallet().setBalance(newBalance);
-            walletRepository.save(user.getWallet());
-
-            log.info("Wallet payment successful. New balance: {}", newBalance);
+            log.info("Wallet payment successful. New balance: {}", wallet.getBalance());
 
             evictWalletCache(userId);
         } else {
@@ -180,14 +190,19 @@ public class OrderService {
 
         try {
             Map<String, Object> emailData = new HashMap<>();
-            emailData.put("userName", user.getFullName());
+            emailData.put("userName", principal.fullName() != null ? principal.fullName() : address.getRecipientFullName());
             emailData.put("orderId", order.getId());
             emailData.put("totalAmount", order.getTotalAmount());
             emailData.put("orderDate", order.getOrderDate());
             emailData.put("shippingAddress",
                     address.getDistrict() + ", " + address.getCity() + ", " + address.getCountry());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
-                    user.getEmail(),
+            emailData.put("items", details.stream()
+                    .map(d -> "- " + d.getProductName()
+                            + (d.getAttributeSummary() != null ? " (" + d.getAttributeSummary() + ")" : "")
+                            + " x" + d.getQuantity())
+                    .collect(Collectors.joining("\n")));
+            sendNotificationAfterCommit(new NotificationProducer.EmailMessage(
+                    principal.email(),
                     SendEmailType.ORDER_SUCCESS,
                     emailData));
         } catch (Exception e) {
@@ -200,11 +215,11 @@ public class OrderService {
     // GET /orders/{id}
     // =====================================
     @Transactional(readOnly = true)
-    public ApiResponse<OrderResponse> getOrder(UUID id, UUID userId) {
+    public ApiResponse<OrderResponse> getOrder(UUID id, AuthPrincipal principal) {
         Order order = orderRepository.findById(id)
-                .filter(o -> o.getUser().getId().equals(userId) || isAdmin(userId))
+                .filter(o -> o.getUser().getId().equals(principal.userId()) || principal.isAdmin())
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
-        return ApiResponse.success(mapToOrderResponse(order));
+        return ApiResponse.success(mapToOrderResponses(List.of(order)).get(0));
     }
 
     // =====================================
@@ -215,7 +230,8 @@ public class OrderService {
             Pageable pageable) {
         Specification<Order> spec = buildSpec(request, userId);
         Page<Order> page = orderRepository.findAll(spec, pageable);
-        Page<OrderResponse> dtoPage = page.map(this::mapToOrderResponse);
+        Page<OrderResponse> dtoPage = new PageImpl<>(mapToOrderResponses(page.getContent()), pageable,
+                page.getTotalElements());
 
         ResponseDto.PagedResponse<OrderResponse> pagedResponse = ResponseDto.PagedResponse.<OrderResponse>builder()
                 .content(dtoPage.getContent())
@@ -239,7 +255,8 @@ public class OrderService {
         if (request.getUserId() != null)
             spec = spec.and((root, q, cb) -> cb.equal(root.get("user").get("id"), request.getUserId()));
         Page<Order> page = orderRepository.findAll(spec, pageable);
-        Page<OrderResponse> dtoPage = page.map(this::mapToOrderResponse);
+        Page<OrderResponse> dtoPage = new PageImpl<>(mapToOrderResponses(page.getContent()), pageable,
+                page.getTotalElements());
 
         ResponseDto.PagedResponse<OrderResponse> pagedResponse = ResponseDto.PagedResponse.<OrderResponse>builder()
                 .content(dtoPage.getContent())
@@ -273,7 +290,7 @@ public class OrderService {
             emailData.put("totalAmount", order.getTotalAmount());
             emailData.put("orderDate", order.getOrderDate());
             emailData.put("shippingAddress", order.getAddress());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            sendNotificationAfterCommit(new NotificationProducer.EmailMessage(
                     order.getUser().getEmail(),
                     SendEmailType.ORDER_SUCCESS,
                     emailData));
@@ -286,6 +303,7 @@ public class OrderService {
     // =====================================
     // PUT /admin/orders/{id}/cancel
     // =====================================
+    @RetryOnConflict
     @Transactional
     public ApiResponse<OrderResponse> cancelOrder(UUID id, CancelOrderRequest request) {
         Order order = orderRepository.findById(id)
@@ -297,20 +315,8 @@ public class OrderService {
 
         if (order.getPaymentMethod().getMethodName() != null &&
                 order.getPaymentMethod().getMethodName().equalsIgnoreCase("Wallet")) {
-            WalletTransaction refund = WalletTransaction.builder()
-                    .wallet(order.getUser().getWallet())
-                    .transactionType(TransactionType.REFUND)
-                    .transactionStatus(TransactionStatus.COMPLETED)
-
-                    .amount(order.getTotalAmount())
-                    .order(order)
-                    .description("Refund for cancelled order " + id + ": " + request.getReason())
-                    .build();
-            txnRepository.save(refund);
-
-            order.getUser().getWallet().setBalance(
-                    order.getUser().getWallet().getBalance().add(order.getTotalAmount()));
-            walletRepository.save(order.getUser().getWallet());
+            ledgerService.post(order.getUser().getWallet(), TransactionType.REFUND, order.getTotalAmount(),
+                    "Refund for cancelled order " + id + ": " + request.getReason(), order);
 
             evictWalletCache(order.getUser().getId());
         }
@@ -322,7 +328,7 @@ public class OrderService {
             emailData.put("reason", request.getReason());
             emailData.put("refundAmount", order.getTotalAmount());
             emailData.put("cancelledDate", LocalDateTime.now());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            sendNotificationAfterCommit(new NotificationProducer.EmailMessage(
                     order.getUser().getEmail(),
                     SendEmailType.ORDER_CANCELLED,
                     emailData));
@@ -332,6 +338,53 @@ public class OrderService {
         return ApiResponse.success(mapToOrderResponse(order));
     }
 
+    // =====================================
+    // SCHEDULED: expire stale PENDING orders
+    // =====================================
+    /**
+     * Hủy một chunk đơn PENDING quá hạn bằng các câu lệnh theo tập hợp:
+     * khóa chunk (SKIP LOCKED), hoàn kho theo từng product, hoàn tiền ví theo từng user.
+     * Trả về các đơn đã hủy (đã fetch user và payment method) để gửi thông báo sau khi commit.
+     */
+    @Transactional
+    public List<Order> cancelExpiredPendingOrders(LocalDateTime cutoff, LocalDateTime afterDate, UUID afterId, int limit) {
+        List<UUID> ids = orderRepository.lockExpiredPendingIds(cutoff, afterDate, afterId, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Order> orders = orderRepository.findAllWithUserAndPaymentMethodByIdIn(ids);
+        List<UUID> productIds = orderDetailRepository.findProductIdsByOrderIds(ids, cutoff);
+
+        orderRepository.cancelPendingByIds(ids, cutoff);
+        productRepository.restoreStockForOrders(ids, cutoff);
+
+        List<UUID> walletOrderIds = new ArrayList<>();
+        java.util.Set<UUID> walletUserIds = new java.util.HashSet<>();
+        for (Order order : orders) {
+            // A deleted user's wallet went with the account, so there is nothing to refund into
+            if (order.getUser() != null && order.getPaymentMethod().getMethodName() != null &&
+                    order.getPaymentMethod().getMethodName().equalsIgnoreCase("Wallet")) {
+                walletOrderIds.add(order.getId());
+                walletUserIds.add(order.getUser().getId());
+            }
+        }
+        if (!walletOrderIds.isEmpty()) {
+            txnRepository.insertRefundsForOrders(walletOrderIds, cutoff, "Refund for expired order ");
+            walletRepository.refundOrders(walletOrderIds, cutoff);
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.WALLET_FLOAT, orders.stream()
+                    .filter(order -> walletOrderIds.contains(order.getId()))
+                    .map(Order::getTotalAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)));
+            walletUserIds.forEach(this::evictWalletCache);
+            // Refund rows were inserted in bulk, bypassing the ledger's head append
+            walletUserIds.forEach(walletHistoryCache::invalidate);
+        }
+
+        evictProductCacheAfterOrder(new java.util.HashSet<>(productIds));
+        log.info("Cancelled {} expired pending orders ({} wallet refunds)", orders.size(), walletOrderIds.size());
+        return orders;
+    }
+
     // =====================================
     // PUT /admin/orders/{id}/ship
     // =====================================
@@ -355,7 +408,7 @@ public class OrderService {
             emailData.put("trackingNumber", order.getTrackingNumber());
             emailData.put("estimatedDeliveryDate", order.getEstimatedDeliveryDate());
             emailData.put("shippedDate", order.getShippedDate());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            sendNotificationAfterCommit(new NotificationProducer.EmailMessage(
                     order.getUser().getEmail(),
                     SendEmailType.ORDER_SHIPPED,
                     emailData));
@@ -369,9 +422,9 @@ public class OrderService {
     // PUT /orders/{id}/track
     // =====================================
     @Transactional
-    public ApiResponse<OrderResponse> updateLocation(UUID id, UpdateOrderLocationRequest request, UUID userId) {
+    public ApiResponse<OrderResponse> updateLocation(UUID id, UpdateOrderLocationRequest request, AuthPrincipal principal) {
         Order order = orderRepository.findById(id)
-                .filter(o -> o.getUser().getId().equals(userId) || isAdmin(userId))
+                .filter(o -> o.getUser().getId().equals(principal.userId()) || principal.isAdmin())
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
         if (order.getStatus() != OrderStatus.SHIPPED)
             throw new AppException(ErrorCode.BAD_REQUEST);
@@ -399,6 +452,12 @@ public class OrderService {
 
         order.setStatus(OrderStatus.DELIVERED);
         order = orderRepository.save(order);
+        purchasedProductRepository.recordDeliveredOrder(order.getUser().getId(), order.getId(), order.getOrderDate());
+        // Revenue is attributed to the day the order was placed, like the daily report
+        eventPublisher.publishEvent(AnalyticsEvent.daily(AnalyticsEvent.Metric.REVENUE,
+                order.getOrderDate().toLocalDate(), order.getTotalAmount()));
+        eventPublisher.publishEvent(AnalyticsEvent.daily(AnalyticsEvent.Metric.ORDERS,
+                order.getOrderDate().toLocalDate(), 1));
 
         try {
             Map<String, Object> emailData = new HashMap<>();
@@ -406,7 +465,7 @@ public class OrderService {
             emailData.put("orderId", order.getId());
             emailData.put("deliveredDate", LocalDateTime.now()); // Dùng ngày hiện tại
 
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            sendNotificationAfterCommit(new NotificationProducer.EmailMessage(
                     order.getUser().getEmail(),
                     SendEmailType.ORDER_DELIVERED,
                     emailData));
@@ -447,11 +506,62 @@ public class OrderService {
                 .build();
     }
 
+    /**
+     * DELIVERED/CANCELLED orders never change again, so their responses are cached per (id, version)
+     * and read with a single MGET; only in-flight orders are assembled from the database.
+     */
+    private List<OrderResponse> mapToOrderResponses(List<Order> orders) {
+        List<String> cacheKeys = orders.stream()
+                .map(o -> isTerminal(o) ? getOrderResponseKey(o) : null)
+                .collect(Collectors.toList());
+        List<String> terminalKeys = cacheKeys.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Map<String, Object> cached = new HashMap<>();
+        if (!terminalKeys.isEmpty()) {
+            List<Object> values = redisService.getValues(terminalKeys);
+            for (int i = 0; values != null && i < terminalKeys.size(); i++) {
+                if (values.get(i) != null) {
+                    cached.put(terminalKeys.get(i), values.get(i));
+                }
+            }
+        }
+
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            String cacheKey = cacheKeys.get(i);
+            if (cacheKey != null && cached.get(cacheKey) instanceof OrderResponse hit) {
+                log.debug("Cache hit for {}", cacheKey);
+                responses.add(hit);
+                continue;
+            }
+            OrderResponse response = mapToOrderResponse(orders.get(i));
+            if (cacheKey != null) {
+                redisService.setValue(cacheKey, response, TERMINAL_ORDER_CACHE_DAYS, TimeUnit.DAYS);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private boolean isTerminal(Order order) {
+        return order.getStatus() == OrderStatus.DELIVERED || order.getStatus() == OrderStatus.CANCELLED;
+    }
+
+    public static String getOrderResponseKey(Order order) {
+        return RedisData.ORDER_RESPONSE + ":" + order.getId() + ":v" + order.getVersion();
+    }
+
     private OrderDetailResponse mapToDetailResponse(OrderDetail detail) {
+        // Lines written before the snapshot columns existed fall back to the live catalog
+        boolean legacy = detail.getProductName() == null && detail.getProductVariant() != null;
         return ResponseDto.OrderDetailResponse.builder()
                 .id(detail.getId())
-                .productVariantId(detail.getProductVariant().getId())
-                .productName(detail.getProductVariant().getProduct().getName())
+                .productVariantId(detail.getProductVariant() != null ? detail.getProductVariant().getId() : null)
+                .productId(legacy ? detail.getProductVariant().getProduct().getId() : detail.getProductId())
+                .productName(legacy ? detail.getProductVariant().getProduct().getName() : detail.getProductName())
+                .sku(legacy ? detail.getProductVariant().getSku() : detail.getSku())
+                .attributeSummary(legacy ? summarizeAttributes(detail.getProductVariant().getAttributes())
+                        : detail.getAttributeSummary())
+                .thumbnailUrl(detail.getThumbnailUrl())
                 .quantity(detail.getQuantity())
                 .priceEach(detail.getPriceEach())
 
@@ -459,6 +569,26 @@ public class OrderService {
                 .build();
     }
 
+    private String summarizeAttributes(Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty())
+            return null;
+        return attributes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + ": " + e.getValue())
+                .collect(Collectors.joining(", "));
+    }
+
+    private String findThumbnailUrl(ProductVariant variant) {
+        if (variant.getImages() == null || variant.getImages().isEmpty())
+            return null;
+        return variant.getImages().stream()
+                .filter(img -> img.isThumbnail())
+                .findFirst()
+                .or(() -> variant.getImages().stream().findFirst())
+                .map(img -> img.getImageUrl())
+                .orElse(null);
+    }
+
     private ReviewResponse mapToReviewResponse(Review review) {
         if (review == null)
             return null;
@@ -479,12 +609,6 @@ public class OrderService {
         return BigDecimal.valueOf(5.00);
     }
 
-    private boolean isAdmin(UUID userId) {
-        return accountRepository.findById(userId)
-                .map(u -> u.getRole() == UserRole.ADMIN)
-                .orElse(false);
-    }
-
     /**
      * Xóa cache của các product sau khi đặt hàng
      * Vì quantityInStock và quantitySales đã thay đổi
@@ -496,24 +620,32 @@ public class OrderService {
 
         log.info("Evicting cache for {} products after order creation", productIds.size());
 
-        for (UUID productId : productIds) {
-            redisService.deleteFromHash(RedisData.PRODUCT_DATA, productId.toString());
-            log.debug("Evicted cache for product: {}", productId);
-        }
+        AfterCommit.run(() -> {
+            for (UUID productId : productIds) {
+                redisService.deleteFromHash(RedisData.PRODUCT_DATA, productId.toString());
+                log.debug("Evicted cache for product: {}", productId);
+            }
 
-        redisService.deleteKeysByPattern("products:*");
+            redisService.deleteTrackedKeys(RedisData.PRODUCT_PAGE_KEYS);
 
-        log.info("Product cache evicted successfully");
+            log.info("Product cache evicted successfully");
+        });
     }
 
     // =====================================
     // WALLET CACHE EVICTION
     // =====================================
     private void evictWalletCache(UUID userId) {
-        log.info("Evicting wallet caches for user {}", userId);
-        redisService.deleteKey("wallet:" + userId.toString());
-        redisService.deleteKeysByPattern("wallet:txns:" + userId.toString() + ":*");
-        log.info("Wallet cache evicted successfully for user {}", userId);
+        AfterCommit.run(() -> {
+            log.info("Evicting wallet caches for user {}", userId);
+            redisService.deleteKey("wallet:" + userId.toString());
+            log.info("Wallet cache evicted successfully for user {}", userId);
+        });
+    }
+
+    // @RetryOnConflict re-runs the whole method: only the attempt that commits may notify the customer
+    private void sendNotificationAfterCommit(NotificationProducer.EmailMessage message) {
+        AfterCommit.run(() -> notificationProducer.sendNotification(message));
     }
 
     // =====================================
@@ -149,7 +149,7 @@ public class ProductService {
 
                 .last(dtoPage.isLast())
                 .build();
-        redisService.setValue(cacheKey, pagedResponse, 2, java.util.concurrent.TimeUnit.DAYS);
+        redisService.setTrackedValue(RedisData.PRODUCT_PAGE_KEYS, cacheKey, pagedResponse, 2, java.util.concurrent.TimeUnit.DAYS);
         return ApiResponse.success(pagedResponse);
     }
 
@@ -435,7 +435,7 @@ public class ProductService {
     }
 
     private void evictProductCacheOnly(UUID productId) {
-        redisService.deleteKeysByPattern("products:*");
+        redisService.deleteTrackedKeys(RedisData.PRODUCT_PAGE_KEYS);
         if (productId != null) {
             redisService.deleteFromHash(RedisData.PRODUCT_DATA, productId.toString());
         }
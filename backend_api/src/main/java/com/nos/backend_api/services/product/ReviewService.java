@@ -3,8 +3,11 @@ package com.nos.backend_api.services.product;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -16,19 +19,24 @@ import com.nos.backend_api.DTO.data.redis_cache.RedisData;
 import com.nos.backend_api.DTO.request.RequestDto.CreateReviewRequest;
 import com.nos.backend_api.DTO.request.RequestDto.UpdateReviewRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.ReviewResponse;
 import com.nos.backend_api.exceptions.AppException;
 import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.models.payment.Order;
 import com.nos.backend_api.models.product.Review;
 import com.nos.backend_api.models.product.ReviewAttachment;
+import com.nos.backend_api.models.user_info.UserPurchasedProductId;
 import com.nos.backend_api.repositories.AccountRepository;
-import com.nos.backend_api.repositories.OrderDetailRepository;
 import com.nos.backend_api.repositories.ProductRepository;
 import com.nos.backend_api.repositories.ReviewAttachmentRepository;
 import com.nos.backend_api.repositories.ReviewRepository;
+import com.nos.backend_api.repositories.UserPurchasedProductRepository;
+import com.nos.backend_api.services._system.AfterCommit;
 import com.nos.backend_api.services._system.CloudinaryService;
 import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.order.OrderService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -38,7 +46,7 @@ import lombok.extern.slf4j.Slf4j;
 public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final ReviewAttachmentRepository attachmentRepository;
-    private final OrderDetailRepository orderDetailRepository;
+    private final UserPurchasedProductRepository purchasedProductRepository;
     private final AccountRepository accountRepository;
     private final ProductRepository productRepository;
     private final CloudinaryService cloudinaryService;
@@ -69,7 +77,7 @@ public class ReviewService {
                 .totalPages(dtoPage.getTotalPages())
                 .last(dtoPage.isLast())
                 .build();
-        redisService.setValue(cacheKey, pagedResponse, 1, java.util.concurrent.TimeUnit.HOURS);
+        redisService.setTrackedValue(getReviewPageKeysKey(productId), cacheKey, pagedResponse, 1, java.util.concurrent.TimeUnit.HOURS);
         
         return ApiResponse.success(pagedResponse);
     }
@@ -77,12 +85,13 @@ public class ReviewService {
     // POST /reviews/products/{productId}
     @Transactional
     public ApiResponse<ReviewResponse> createReview(UUID userId, UUID productId, CreateReviewRequest request, List<MultipartFile> attachments) {
-        if (!orderDetailRepository.existsByUserPurchase(userId, productId)) {
+        if (!hasPurchased(userId, productId)) {
             throw new AppException(ErrorCode.BAD_REQUEST);
         }
         Review review = reviewRepository.save(Review.builder()
-                .user(accountRepository.findById(userId).orElseThrow())
-                .product(productRepository.findById(productId).orElseThrow())
+                .user(accountRepository.getReferenceById(userId))
+                // hasPurchased above already proved the product exists
+                .product(productRepository.getReferenceById(productId))
                 .rating(request.getRating())
                 .comment(request.getComment())
                 .build());
@@ -104,9 +113,34 @@ public class ReviewService {
         }
         
         evictReviewCache(productId);
+        evictOrderResponseCache(review);
         return ApiResponse.success(mapToReviewResponse(review));
     }
 
+    /**
+     * Nạp quyền đánh giá từ các đơn đã giao trước khi có bảng user_purchased_products.
+     * Idempotent (ON CONFLICT DO NOTHING); đánh dấu trong Redis để không quét lại ở mỗi lần khởi động.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillPurchasedProducts() {
+        if (redisService.hasKey(RedisData.PURCHASED_BACKFILL_DONE)) {
+            return;
+        }
+        int inserted = purchasedProductRepository.backfillFromDeliveredOrders();
+        AfterCommit.run(() -> redisService.setValue(RedisData.PURCHASED_BACKFILL_DONE, "done", 365, TimeUnit.DAYS));
+        log.info("Backfilled {} purchased products from delivered orders", inserted);
+    }
+
+    // GET /reviews/products/{productId}/eligibility
+    public ApiResponse<BooleanResponse> checkReviewEligibility(UUID userId, UUID productId) {
+        return ApiResponse.success(BooleanResponse.builder().success(hasPurchased(userId, productId)).build());
+    }
+
+    private boolean hasPurchased(UUID userId, UUID productId) {
+        return purchasedProductRepository.existsById(new UserPurchasedProductId(userId, productId));
+    }
+
     // PUT /reviews/{id}
     @Transactional
     public ApiResponse<ReviewResponse> updateReview(UUID userId, Long id, UpdateReviewRequest request) {
@@ -116,6 +150,7 @@ public class ReviewService {
         if (request.getComment() != null) review.setComment(request.getComment());
         review = reviewRepository.save(review);
         evictReviewCache(review.getProduct().getId());
+        evictOrderResponseCache(review);
         return ApiResponse.success(mapToReviewResponse(review));
     }
 
@@ -127,6 +162,7 @@ public class ReviewService {
         review.getAttachments().forEach(att -> cloudinaryService.delete(att.getCloudinaryPublicId()));
         reviewRepository.delete(review);
         evictReviewCache(review.getProduct().getId()); // Sửa
+        evictOrderResponseCache(review);
         return ApiResponse.success(null, "Review deleted");
     }
 
@@ -155,18 +191,37 @@ public class ReviewService {
                 sortStr);
     }
     
+    private String getReviewPageKeysKey(UUID productId) {
+        return RedisData.REVIEW_PAGE_KEYS + ":" + productId;
+    }
+
+    // Cached responses of terminal orders embed the review of each detail
+    private void evictOrderResponseCache(Review review) {
+        if (review.getOrderDetail() == null) {
+            return;
+        }
+        // Reviews never bump the order version, so this is the only cached key for the order
+        Order order = review.getOrderDetail().getOrder();
+        String key = OrderService.getOrderResponseKey(order);
+        AfterCommit.run(() -> {
+            redisService.deleteKey(key);
+            log.info("Evicted cached response of order {} due to review change", order.getId());
+        });
+    }
+
     private void evictReviewCache(UUID productId) {
-        String keyPattern = "reviews:product:" + productId.toString() + ":*";
-        redisService.deleteKeysByPattern(keyPattern);
-        redisService.deleteKeysByPattern("products:*");
-        redisService.deleteFromHash(RedisData.PRODUCT_DATA, productId.toString());
-        log.info("Evicting categories and brands cache due to review change");
-        redisService.deleteKey("categories:all"); 
-        redisService.deleteKey(RedisData.CATEGORY_IDS);
-        redisService.deleteKey(RedisData.CATEGORY_DATA);
-        
-        redisService.deleteKey("brands:all"); 
-        redisService.deleteKey(RedisData.BRAND_IDS);
-        redisService.deleteKey(RedisData.BRAND_DATA);
+        AfterCommit.run(() -> {
+            redisService.deleteTrackedKeys(getReviewPageKeysKey(productId));
+            redisService.deleteTrackedKeys(RedisData.PRODUCT_PAGE_KEYS);
+            redisService.deleteFromHash(RedisData.PRODUCT_DATA, productId.toString());
+            log.info("Evicting categories and brands cache due to review change");
+            redisService.deleteKey("categories:all");
+            redisService.deleteKey(RedisData.CATEGORY_IDS);
+            redisService.deleteKey(RedisData.CATEGORY_DATA);
+
+            redisService.deleteKey("brands:all");
+            redisService.deleteKey(RedisData.BRAND_IDS);
+            redisService.deleteKey(RedisData.BRAND_DATA);
+        });
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +25,7 @@ import com.nos.backend_api.repositories.CartItemRepository;
 import com.nos.backend_api.repositories.ProductVariantRepository;
 import com.nos.backend_api.repositories.ShoppingCartRepository;
 import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,7 @@ public class CartService {
     private final ProductVariantRepository variantRepository;
     private final AccountRepository accountRepository;
     private final RedisService redisService;
+    private final ApplicationEventPublisher eventPublisher;
 
     
     private String getCartKey(UUID userId) { return "cart:" + userId.toString(); 
@@ -79,6 +82,7 @@ public class CartService {
         item.setQuantity(item.getQuantity() + request.getQuantity()); 
         cartItemRepository.save(item); 
         cartItemRepository.flush(); 
+        publishCartItems(request.getQuantity());
         cart = cartRepository.findById(cart.getId()).orElseThrow();
         evictCartCache(userId); 
         return ApiResponse.success(buildCartResponse(cart)); 
@@ -92,11 +96,14 @@ public class CartService {
         CartItemId id = new CartItemId(cart.getId(), variantId); 
         CartItem item = cartItemRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND)); 
+        int previousQuantity = item.getQuantity();
         if (request.getQuantity() == null || request.getQuantity() <= 0) { 
             cartItemRepository.delete(item); 
+            publishCartItems(-previousQuantity);
         } else {
             item.setQuantity(request.getQuantity()); 
             cartItemRepository.save(item); 
+            publishCartItems(request.getQuantity() - previousQuantity);
         }
         
         evictCartCache(userId); 
@@ -109,11 +116,11 @@ public class CartService {
         ShoppingCart cart = cartRepository.findByUserId(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND)); 
         CartItemId id = new CartItemId(cart.getId(), variantId); 
-        if (!cartItemRepository.existsById(id)) {
-             throw new AppException(ErrorCode.NOT_FOUND); 
-        }
+        CartItem item = cartItemRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND)); 
     
-        cartItemRepository.deleteById(id); 
+        cartItemRepository.delete(item); 
+        publishCartItems(-item.getQuantity());
         
         evictCartCache(userId); 
         return ApiResponse.success(null, "Item deleted"); 
@@ -123,14 +130,20 @@ public class CartService {
     @Transactional
     public ApiResponse<Void> clearCart(UUID userId) {
         cartRepository.findByUserId(userId).orElseThrow(); 
+        int quantity = cartItemRepository.sumQuantityByUserId(userId);
         cartItemRepository.deleteByUserId(userId); 
+        publishCartItems(-quantity);
         
         evictCartCache(userId); 
         return ApiResponse.success(null, "Cart cleared"); 
     }
 
+    private void publishCartItems(long delta) {
+        eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.CART_ITEMS, delta));
+    }
+
     private ShoppingCart createCart(UUID userId) {
-        Account user = accountRepository.findById(userId).orElseThrow(); 
+        Account user = accountRepository.getReferenceById(userId);
         ShoppingCart cart = ShoppingCart.builder().user(user).build(); 
         return cartRepository.save(cart); 
     }
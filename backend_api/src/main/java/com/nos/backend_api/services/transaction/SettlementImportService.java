@@ -0,0 +1,563 @@
+package com.nos.backend_api.services.transaction;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nos.backend_api.DTO.data.enums.ExportFormat;
+import com.nos.backend_api.DTO.data.enums.SendEmailType;
+import com.nos.backend_api.DTO.data.enums.TransactionStatus;
+import com.nos.backend_api.DTO.data.enums.TransactionType;
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.ImportRowError;
+import com.nos.backend_api.DTO.response.ResponseDto.SettlementImportResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.services._system.NotificationProducer;
+import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
+import com.nos.backend_api.services.wallet.WalletHistoryCache;
+import com.nos.backend_api.services.wallet.WalletLedgerService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhập file đối soát (settlement) của đối tác thanh toán vào ledger ví.
+ * Body được đọc từng dòng; mỗi chunk chạy trong một transaction: khóa các ví theo thứ tự id,
+ * cộng dồn delta theo ví rồi cập nhật số dư bằng một câu UPDATE, và ghi ledger bằng JDBC batch.
+ * Delta của một ví trong một chunk được áp dụng trọn vẹn hoặc không: nếu số dư không đủ,
+ * các dòng của ví đó được ghi với trạng thái FAILED.
+ * Idempotent theo settlementId: mỗi dòng có một external_ref được ghi vào settlement_rows trong cùng
+ * transaction với ledger, nên nhập lại sau khi lỗi giữa chừng chỉ áp dụng các dòng chưa áp dụng.
+ */
+@Service
+@Slf4j
+public class SettlementImportService {
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("wallet_id", "type", "amount");
+    private static final String DEFAULT_DESCRIPTION = "Settlement import";
+    private static final int MAX_REPORTED_ERRORS = 500;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    // NUMERIC(15, 2)
+    private static final int MAX_INTEGER_DIGITS = 13;
+    // VARCHAR(100) / VARCHAR(255) in settlement_batches / settlement_rows
+    private static final int MAX_SETTLEMENT_ID_LENGTH = 100;
+    private static final int MAX_REFERENCE_LENGTH = 150;
+
+    // Row locks taken in id order, so concurrent imports touching the same wallets cannot deadlock
+    private static final String LOCK_WALLETS_SQL =
+            "SELECT w.id, w.user_id, w.balance, w.is_active, a.email, a.full_name " +
+            "FROM wallets w JOIN accounts a ON a.id = w.user_id " +
+            "WHERE w.id = ANY(?) ORDER BY w.id FOR UPDATE OF w";
+    private static final String APPLY_DELTAS_SQL =
+            "UPDATE wallets w SET balance = w.balance + d.delta, updated_at = NOW() " +
+            "FROM unnest(?::uuid[], ?::numeric[]) AS d(wallet_id, delta) " +
+            "WHERE w.id = d.wallet_id AND w.balance + d.delta >= 0 RETURNING w.id, w.balance";
+    private static final String START_BATCH_SQL =
+            "INSERT INTO settlement_batches (settlement_id) VALUES (?) ON CONFLICT (settlement_id) DO NOTHING";
+    private static final String BATCH_COMPLETED_SQL =
+            "SELECT completed_at IS NOT NULL FROM settlement_batches WHERE settlement_id = ?";
+    private static final String COMPLETE_BATCH_SQL =
+            "UPDATE settlement_batches SET completed_at = NOW() WHERE settlement_id = ?";
+    // Refs recorded by an earlier upload are not returned; a concurrent upload blocks until the other chunk commits
+    private static final String CLAIM_ROWS_SQL =
+            "INSERT INTO settlement_rows (external_ref, settlement_id) " +
+            "SELECT r, ? FROM unnest(?::text[]) AS r ON CONFLICT (external_ref) DO NOTHING RETURNING external_ref";
+    private static final String INSERT_LEDGER_SQL =
+            "INSERT INTO wallet_transactions (id, wallet_id, transaction_type, transaction_status, " +
+            "transaction_date, description, amount, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, NOW(), NOW(), 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader jsonReader;
+    private final RedisService redisService;
+    private final WalletHistoryCache historyCache;
+    private final NotificationProducer notificationProducer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public SettlementImportService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper,
+                                   RedisService redisService,
+                                   WalletHistoryCache historyCache,
+                                   NotificationProducer notificationProducer,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${app.settlement.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Amounts are money: never let them go through double
+        this.jsonReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        this.redisService = redisService;
+        this.historyCache = historyCache;
+        this.notificationProducer = notificationProducer;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // POST /admin/transactions/import
+    public ApiResponse<SettlementImportResponse> importSettlement(String settlementId, InputStream body, ExportFormat format) {
+        String batchKey = startBatch(settlementId);
+        ImportState state = new ImportState(batchKey);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> csvHeader = null;
+            List<SettlementRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == ExportFormat.CSV && csvHeader == null) {
+                    csvHeader = parseCsvHeader(line);
+                    continue;
+                }
+                state.totalRows++;
+                try {
+                    chunk.add(format == ExportFormat.CSV
+                            ? parseCsvRow(lineNumber, line, csvHeader)
+                            : parseJsonRow(lineNumber, line));
+                } catch (IllegalArgumentException e) {
+                    state.reject(lineNumber, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    processChunk(chunk, state);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, state);
+            }
+        } catch (IOException e) {
+            log.error("Failed to read settlement import body after {} rows", state.totalRows, e);
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+
+        // A chunk that rolled back left its rows unrecorded: keep the batch open so a re-upload applies them
+        if (!state.incomplete) {
+            jdbcTemplate.update(COMPLETE_BATCH_SQL, batchKey);
+        }
+        notifyWallets(state);
+        log.info("Settlement import {}: {} rows, {} applied, {} failed, {} rejected, {} skipped, {} wallets",
+                batchKey, state.totalRows, state.appliedRows, state.failedRows, state.rejectedRows,
+                state.skippedRows, state.wallets.size());
+
+        return ApiResponse.success(SettlementImportResponse.builder()
+                .totalRows(state.totalRows)
+                .appliedRows(state.appliedRows)
+                .failedRows(state.failedRows)
+                .rejectedRows(state.rejectedRows)
+                .skippedRows(state.skippedRows)
+                .walletsAffected(state.wallets.size())
+                .errors(state.errors)
+                .build());
+    }
+
+    private String startBatch(String settlementId) {
+        if (settlementId == null || settlementId.isBlank() || settlementId.trim().length() > MAX_SETTLEMENT_ID_LENGTH) {
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        String batchKey = settlementId.trim();
+        jdbcTemplate.update(START_BATCH_SQL, batchKey);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(BATCH_COMPLETED_SQL, Boolean.class, batchKey))) {
+            log.warn("Settlement {} was already imported, refusing to apply it again", batchKey);
+            throw new AppException(ErrorCode.SETTLEMENT_ALREADY_IMPORTED);
+        }
+        return batchKey;
+    }
+
+    private void processChunk(List<SettlementRow> rows, ImportState state) {
+        ChunkResult result = null;
+        for (int attempt = 1; result == null; attempt++) {
+            try {
+                result = transactionTemplate.execute(status -> applyChunk(state.batchKey, rows));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS) {
+                    log.error("Settlement chunk starting at line {} kept conflicting, rejecting it", rows.get(0).line(), e);
+                    rows.forEach(row -> state.reject(row.line(), "Wallet is being updated concurrently, row not imported"));
+                    state.incomplete = true;
+                    return;
+                }
+                log.warn("Settlement chunk starting at line {} conflicted, retrying ({}/{})", rows.get(0).line(), attempt, MAX_CHUNK_ATTEMPTS);
+            } catch (Exception e) {
+                log.error("Settlement chunk starting at line {} failed", rows.get(0).line(), e);
+                rows.forEach(row -> state.reject(row.line(), "Row not imported: chunk failed"));
+                state.incomplete = true;
+                return;
+            }
+        }
+
+        for (SettlementRow row : result.unknownWallet()) {
+            state.reject(row.line(), "Wallet not found: " + row.walletId());
+        }
+        state.skippedRows += result.alreadyApplied();
+        // Committed: drop cached balances and history heads of every wallet that got ledger rows
+        for (Map.Entry<UUID, WalletOwner> entry : result.owners().entrySet()) {
+            WalletOwner owner = entry.getValue();
+            WalletSummary summary = state.wallets.computeIfAbsent(entry.getKey(), id -> new WalletSummary(owner));
+            BigDecimal newBalance = result.balances().get(entry.getKey());
+            summary.balance = newBalance != null ? newBalance : owner.balance();
+            evictWalletCache(owner.userId());
+        }
+        for (SettlementRow row : result.written()) {
+            WalletSummary summary = state.wallets.get(row.walletId());
+            if (result.balances().containsKey(row.walletId())) {
+                state.appliedRows++;
+                summary.appliedCount++;
+                summary.netAmount = summary.netAmount.add(row.signedAmount());
+            } else {
+                state.failedRows++;
+                summary.failedCount++;
+            }
+        }
+    }
+
+    private ChunkResult applyChunk(String batchKey, List<SettlementRow> rows) {
+        UUID[] walletIds = rows.stream().map(SettlementRow::walletId).distinct().toArray(UUID[]::new);
+        Map<UUID, WalletOwner> owners = lockWallets(walletIds);
+
+        List<SettlementRow> known = new ArrayList<>(rows.size());
+        List<SettlementRow> unknownWallet = new ArrayList<>();
+        for (SettlementRow row : rows) {
+            if (owners.containsKey(row.walletId())) {
+                known.add(row);
+            } else {
+                unknownWallet.add(row);
+            }
+        }
+
+        Set<String> claimed = claimRows(batchKey, known);
+        List<SettlementRow> written = new ArrayList<>(known.size());
+        Map<UUID, BigDecimal> deltas = new LinkedHashMap<>();
+        for (SettlementRow row : known) {
+            // remove: a reference repeated inside the file is applied once
+            if (!claimed.remove(externalRef(batchKey, row))) {
+                continue;
+            }
+            written.add(row);
+            deltas.merge(row.walletId(), row.signedAmount(), BigDecimal::add);
+        }
+
+        Map<UUID, BigDecimal> balances = applyDeltas(deltas);
+        insertLedgerRows(written, balances.keySet());
+        // Published inside the chunk transaction, so the counter only moves if the chunk commits
+        BigDecimal floatDelta = balances.keySet().stream()
+                .filter(walletId -> owners.get(walletId).active())
+                .map(deltas::get)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.WALLET_FLOAT, floatDelta));
+        return new ChunkResult(owners, balances, written, unknownWallet, known.size() - written.size());
+    }
+
+    // Records the rows in the chunk's transaction and returns the refs not applied by an earlier upload
+    private Set<String> claimRows(String batchKey, List<SettlementRow> rows) {
+        Set<String> claimed = new HashSet<>();
+        if (rows.isEmpty()) {
+            return claimed;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CLAIM_ROWS_SQL);
+            ps.setString(1, batchKey);
+            ps.setArray(2, connection.createArrayOf("text",
+                    rows.stream().map(row -> externalRef(batchKey, row)).toArray()));
+            return ps;
+        }, rs -> {
+            claimed.add(rs.getString("external_ref"));
+        });
+        return claimed;
+    }
+
+    // The provider's own reference is global; without one the line number is stable across re-uploads of the same file
+    private static String externalRef(String batchKey, SettlementRow row) {
+        return row.reference() != null ? "ref:" + row.reference() : batchKey + ":" + row.line();
+    }
+
+    private Map<UUID, WalletOwner> lockWallets(UUID[] walletIds) {
+        Map<UUID, WalletOwner> owners = new LinkedHashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOCK_WALLETS_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", walletIds));
+            return ps;
+        }, rs -> {
+            owners.put(rs.getObject("id", UUID.class), new WalletOwner(
+                    rs.getObject("user_id", UUID.class),
+                    rs.getString("email"),
+                    rs.getString("full_name"),
+                    rs.getBigDecimal("balance"),
+                    rs.getBoolean("is_active")));
+        });
+        return owners;
+    }
+
+    /**
+     * Áp dụng delta đã cộng dồn cho tất cả ví trong một câu lệnh.
+     * Chỉ các ví không bị âm mới được trả về, kèm số dư mới.
+     */
+    private Map<UUID, BigDecimal> applyDeltas(Map<UUID, BigDecimal> deltas) {
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        if (deltas.isEmpty()) {
+            return balances;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(APPLY_DELTAS_SQL);
+            Array ids = connection.createArrayOf("uuid", deltas.keySet().toArray(UUID[]::new));
+            Array amounts = connection.createArrayOf("numeric", deltas.values().toArray(BigDecimal[]::new));
+            ps.setArray(1, ids);
+            ps.setArray(2, amounts);
+            return ps;
+        }, rs -> {
+            balances.put(rs.getObject("id", UUID.class), rs.getBigDecimal("balance"));
+        });
+        return balances;
+    }
+
+    private void insertLedgerRows(List<SettlementRow> rows, Set<UUID> appliedWallets) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, rows, rows.size(), (ps, row) -> {
+            TransactionStatus status = appliedWallets.contains(row.walletId())
+                    ? TransactionStatus.COMPLETED
+                    : TransactionStatus.FAILED;
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, row.walletId());
+            // Types.OTHER lets PostgreSQL cast the text to the enum column type
+            ps.setObject(3, row.type().name(), Types.OTHER);
+            ps.setObject(4, status.name(), Types.OTHER);
+            ps.setTimestamp(5, now);
+            ps.setString(6, row.description());
+            ps.setBigDecimal(7, WalletLedgerService.storedAmount(row.type(), row.signedAmount()));
+        });
+    }
+
+    private void notifyWallets(ImportState state) {
+        List<NotificationProducer.EmailMessage> messages = new ArrayList<>(Math.min(chunkSize, state.wallets.size()));
+        for (WalletSummary summary : state.wallets.values()) {
+            Map<String, Object> emailData = new HashMap<>();
+            emailData.put("userName", summary.owner.fullName());
+            emailData.put("transactionCount", summary.appliedCount);
+            emailData.put("failedCount", summary.failedCount);
+            emailData.put("netAmount", summary.netAmount);
+            emailData.put("newBalance", summary.balance);
+            messages.add(new NotificationProducer.EmailMessage(
+                    summary.owner.email(),
+                    SendEmailType.WALLET_SETTLEMENT,
+                    emailData));
+            if (messages.size() >= chunkSize) {
+                sendNotifications(messages);
+                messages = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!messages.isEmpty()) {
+            sendNotifications(messages);
+        }
+    }
+
+    private void sendNotifications(List<NotificationProducer.EmailMessage> messages) {
+        try {
+            notificationProducer.sendNotifications(messages);
+        } catch (Exception e) {
+            log.error("Failed to send {} settlement summary emails", messages.size(), e);
+        }
+    }
+
+    private void evictWalletCache(UUID userId) {
+        redisService.deleteKey("wallet:" + userId.toString());
+        historyCache.invalidate(userId);
+    }
+
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> columns = splitCsv(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!header.keySet().containsAll(REQUIRED_CSV_COLUMNS)) {
+            log.warn("Settlement CSV header is missing required columns: {}", line);
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        return header;
+    }
+
+    private SettlementRow parseCsvRow(long line, String text, Map<String, Integer> header) {
+        List<String> fields = splitCsv(text);
+        return toRow(line,
+                field(fields, header.get("wallet_id")),
+                field(fields, header.get("type")),
+                field(fields, header.get("amount")),
+                field(fields, header.get("description")),
+                field(fields, header.get("reference")));
+    }
+
+    private SettlementRow parseJsonRow(long line, String text) {
+        JsonNode node;
+        try {
+            node = jsonReader.readTree(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        JsonNode amount = node.path("amount");
+        return toRow(line,
+                node.path("walletId").asText(null),
+                node.path("type").asText(null),
+                amount.isNumber() ? amount.decimalValue().toPlainString() : amount.asText(null),
+                node.path("description").asText(null),
+                node.path("reference").asText(null));
+    }
+
+    private SettlementRow toRow(long line, String walletId, String type, String amount, String description, String reference) {
+        UUID parsedWalletId;
+        TransactionType parsedType;
+        BigDecimal parsedAmount;
+        try {
+            parsedWalletId = UUID.fromString(require(walletId, "wallet_id"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid wallet_id: " + walletId);
+        }
+        try {
+            parsedType = TransactionType.valueOf(require(type, "type").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid type: " + type);
+        }
+        if (parsedType == TransactionType.PURCHASE) {
+            throw new IllegalArgumentException("PURCHASE rows must come from an order");
+        }
+        try {
+            parsedAmount = new BigDecimal(require(amount, "amount"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        if (parsedAmount.scale() > 2 || parsedAmount.precision() - parsedAmount.scale() > MAX_INTEGER_DIGITS) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        if (parsedType == TransactionType.ADJUSTMENT ? parsedAmount.signum() == 0 : parsedAmount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be " + (parsedType == TransactionType.ADJUSTMENT ? "non-zero" : "positive"));
+        }
+        String parsedDescription = description == null || description.isBlank() ? DEFAULT_DESCRIPTION : description.trim();
+        if (reference != null && reference.trim().length() > MAX_REFERENCE_LENGTH) {
+            throw new IllegalArgumentException("Reference too long: " + reference);
+        }
+        return new SettlementRow(line, parsedWalletId, parsedType,
+                WalletLedgerService.signedAmount(parsedType, parsedAmount), parsedDescription,
+                reference == null || reference.isBlank() ? null : reference.trim());
+    }
+
+    private String require(String value, String column) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value.trim();
+    }
+
+    private String field(List<String> fields, Integer index) {
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    // RFC 4180 on a single line: quoted fields may contain commas and doubled quotes
+    private List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private record SettlementRow(long line, UUID walletId, TransactionType type, BigDecimal signedAmount,
+                                 String description, String reference) {}
+
+    private record WalletOwner(UUID userId, String email, String fullName, BigDecimal balance, boolean active) {}
+
+    private record ChunkResult(Map<UUID, WalletOwner> owners, Map<UUID, BigDecimal> balances,
+                               List<SettlementRow> written, List<SettlementRow> unknownWallet, int alreadyApplied) {}
+
+    private static class WalletSummary {
+        private final WalletOwner owner;
+        private long appliedCount;
+        private long failedCount;
+        private BigDecimal netAmount = BigDecimal.ZERO;
+        private BigDecimal balance;
+
+        private WalletSummary(WalletOwner owner) {
+            this.owner = owner;
+        }
+    }
+
+    private static class ImportState {
+        private final String batchKey;
+        private final Map<UUID, WalletSummary> wallets = new LinkedHashMap<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        private long totalRows;
+        private long appliedRows;
+        private long failedRows;
+        private long rejectedRows;
+        private long skippedRows;
+        private boolean incomplete;
+
+        private ImportState(String batchKey) {
+            this.batchKey = batchKey;
+        }
+
+        private void reject(long line, String message) {
+            rejectedRows++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(ImportRowError.builder().line(line).message(message).build());
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.nos.backend_api.services.transaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nos.backend_api.DTO.data.enums.ExportFormat;
+import com.nos.backend_api.DTO.request.RequestDto.StatementExportRequest;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Xuất sao kê ví dạng CSV/NDJSON bằng cursor JDBC chỉ-đọc-tiến (fetch size cố định),
+ * ghi thẳng từng dòng ra output stream nên bộ nhớ không phụ thuộc số dòng.
+ */
+@Service
+@Slf4j
+public class TransactionExportService {
+    private static final String CSV_HEADER = "transaction_id,transaction_date,type,status,amount,order_id,description";
+    private static final String SELECT_COLUMNS =
+            "SELECT t.id, t.transaction_date, t.transaction_type, t.transaction_status, t.amount, t.order_id, t.description " +
+            "FROM wallet_transactions t JOIN wallets w ON w.id = t.wallet_id ";
+    // Bounds on transaction_date let the planner prune monthly partitions
+    private static final String DATE_RANGE_ORDER =
+            "AND t.transaction_date >= ? AND t.transaction_date < ? ORDER BY t.transaction_date, t.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public TransactionExportService(JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    // GET /transactions/export
+    public StreamingResponseBody exportForUser(UUID userId, StatementExportRequest request) {
+        return export("WHERE w.user_id = ? ", userId, request);
+    }
+
+    // GET /transactions/admin/export
+    public StreamingResponseBody exportForWallet(StatementExportRequest request) {
+        if (request.getWalletId() == null) {
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        return export("WHERE t.wallet_id = ? ", request.getWalletId(), request);
+    }
+
+    public String getFileName(StatementExportRequest request) {
+        return String.format("statement_%s_%s.%s", request.getFromDate(), resolveToDate(request), resolveFormat(request).getExtension());
+    }
+
+    public ExportFormat resolveFormat(StatementExportRequest request) {
+        return request.getFormat() != null ? request.getFormat() : ExportFormat.CSV;
+    }
+
+    private LocalDate resolveToDate(StatementExportRequest request) {
+        return request.getToDate() != null ? request.getToDate() : LocalDate.now();
+    }
+
+    private StreamingResponseBody export(String ownerFilter, UUID ownerId, StatementExportRequest request) {
+        LocalDate fromDate = request.getFromDate();
+        LocalDate toDate = resolveToDate(request);
+        if (fromDate == null || fromDate.isAfter(toDate)) {
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+        ExportFormat format = resolveFormat(request);
+        String sql = SELECT_COLUMNS + ownerFilter + DATE_RANGE_ORDER;
+        Timestamp from = Timestamp.valueOf(fromDate.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(toDate.plusDays(1).atStartOfDay());
+
+        // Runs on the MVC async thread once the controller has returned. The PostgreSQL driver
+        // only streams with a fetch size inside a transaction (autocommit off).
+        return outputStream -> readOnlyTransaction.executeWithoutResult(status -> {
+            try {
+                long rows = format == ExportFormat.CSV
+                        ? writeCsv(sql, ownerId, from, to, outputStream)
+                        : writeNdjson(sql, ownerId, from, to, outputStream);
+                log.info("Exported {} wallet transactions for {} ({} - {})", rows, ownerId, fromDate, toDate);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long writeCsv(String sql, UUID ownerId, Timestamp from, Timestamp to, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = stream(sql, ownerId, from, to, rs -> {
+            writer.write(rs.getString("id"));
+            writer.write(',');
+            writer.write(rs.getTimestamp("transaction_date").toLocalDateTime().toString());
+            writer.write(',');
+            writer.write(rs.getString("transaction_type"));
+            writer.write(',');
+            writer.write(rs.getString("transaction_status"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("amount").toPlainString());
+            writer.write(',');
+            String orderId = rs.getString("order_id");
+            writer.write(orderId != null ? orderId : "");
+            writer.write(',');
+            writer.write(escapeCsv(rs.getString("description")));
+            writer.write('\n');
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long writeNdjson(String sql, UUID ownerId, Timestamp from, Timestamp to, OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        // Jackson puts a space between root values by default; each line must start with the object itself
+        generator.setRootValueSeparator(null);
+        long rows = stream(sql, ownerId, from, to, rs -> {
+            generator.writeStartObject();
+            generator.writeStringField("transactionId", rs.getString("id"));
+            generator.writeStringField("transactionDate", rs.getTimestamp("transaction_date").toLocalDateTime().toString());
+            generator.writeStringField("type", rs.getString("transaction_type"));
+            generator.writeStringField("status", rs.getString("transaction_status"));
+            generator.writeNumberField("amount", rs.getBigDecimal("amount"));
+            generator.writeStringField("orderId", rs.getString("order_id"));
+            generator.writeStringField("description", rs.getString("description"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+        return rows;
+    }
+
+    private long stream(String sql, UUID ownerId, Timestamp from, Timestamp to, RowWriter rowWriter) throws IOException {
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setObject(1, ownerId);
+                ps.setTimestamp(2, from);
+                ps.setTimestamp(3, to);
+                return ps;
+            }, rs -> {
+                try {
+                    rowWriter.write(rs);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away mid-download; the cursor is closed by the rollback
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
@@ -1,6 +1,5 @@
 package com.nos.backend_api.services.transaction;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
@@ -23,14 +22,19 @@ import com.nos.backend_api.DTO.request.RequestDto.UpdateTransactionRequest;
 import com.nos.backend_api.DTO.response.ApiResponse;
 import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
+import com.nos.backend_api.configuration.RetryOnConflict;
 import com.nos.backend_api.exceptions.AppException;
 import com.nos.backend_api.exceptions.ErrorCode;
 import com.nos.backend_api.models.payment.WalletTransaction;
 import com.nos.backend_api.models.user_info.Wallet;
 import com.nos.backend_api.repositories.WalletRepository;
 import com.nos.backend_api.repositories.WalletTransactionRepository;
+import com.nos.backend_api.services._system.AfterCommit;
+import com.nos.backend_api.services._system.NotificationCoalescer;
 import com.nos.backend_api.services._system.NotificationProducer;
 import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.wallet.WalletHistoryCache;
+import com.nos.backend_api.services.wallet.WalletLedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,8 +44,10 @@ import lombok.extern.slf4j.Slf4j;
 public class TransactionService {
     private final WalletTransactionRepository txnRepository;
     private final WalletRepository walletRepository;
-    private final NotificationProducer notificationProducer;
+    private final NotificationCoalescer notificationCoalescer;
     private final RedisService redisService;
+    private final WalletLedgerService ledgerService;
+    private final WalletHistoryCache historyCache;
 
     // GET /transactions
     @Transactional(readOnly = true)
@@ -87,23 +93,12 @@ public class TransactionService {
     }
 
     // POST /admin/transactions
+    @RetryOnConflict
     @Transactional
     public ApiResponse<WalletTransactionResponse> createTransaction(CreateTransactionRequest request) {
         Wallet wallet = walletRepository.findById(request.getWalletId()).orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
-        WalletTransaction txn = WalletTransaction.builder()
-                .wallet(wallet)
-                .transactionType(request.getType())
-                .transactionStatus(TransactionStatus.COMPLETED)
-                .amount(request.getAmount())
-                .order(/* find if id */ null)
-            
-                .description(request.getDescription())
-                .build();
-        txn = txnRepository.save(txn);
-        BigDecimal delta = request.getType() == TransactionType.DEPOSIT ||
-            request.getType() == TransactionType.REFUND ? request.getAmount() : request.getAmount().negate();
-        wallet.setBalance(wallet.getBalance().add(delta));
-        walletRepository.save(wallet);
+        WalletTransaction txn = ledgerService.post(wallet, request.getType(), request.getAmount(),
+                request.getDescription(), /* find if id */ null);
 
         evictWalletCache(wallet.getUser().getId());
 
@@ -118,7 +113,7 @@ public class TransactionService {
 
             emailData.put("transactionId", txn.getId());
             emailData.put("status", txn.getTransactionStatus().name());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            notificationCoalescer.submit(new NotificationProducer.EmailMessage(
                 wallet.getUser().getEmail(),
                 SendEmailType.TRANSACTION_NOTIFICATION,
                 emailData
@@ -131,24 +126,27 @@ public class TransactionService {
     }
 
     // PUT /admin/transactions/{id}
+    @RetryOnConflict
     @Transactional
     public ApiResponse<WalletTransactionResponse> updateTransaction(UUID id, UpdateTransactionRequest request) {
         WalletTransaction txn = txnRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
         TransactionStatus oldStatus = txn.getTransactionStatus();
+        // The reversal already cancelled this row's effect; moving it out of COMPLETED would apply it again
+        if (txn.getReversedBy() != null && request.getStatus() != null && request.getStatus() != oldStatus) {
+            throw new AppException(ErrorCode.TRANSACTION_ALREADY_REVERSED);
+        }
         if (request.getStatus() != null) txn.setTransactionStatus(request.getStatus());
         if (request.getDescription() != null) txn.setDescription(request.getDescription());
         txn = txnRepository.save(txn);
+        // An existing row changed, so the cached head may hold a stale copy of it
+        historyCache.invalidate(txn.getWallet().getUser().getId());
+        // The balance always equals the sum of COMPLETED ledger rows: entering or leaving COMPLETED moves it
         if (oldStatus != TransactionStatus.COMPLETED && request.getStatus() == TransactionStatus.COMPLETED) {
-            BigDecimal delta = txn.getTransactionType() == TransactionType.DEPOSIT ||
-                txn.getTransactionType() == TransactionType.REFUND ? txn.getAmount() : txn.getAmount().negate();
-            txn.getWallet().setBalance(txn.getWallet().getBalance().add(delta));
-            walletRepository.save(txn.getWallet());
+            ledgerService.applyDelta(txn.getWallet(), WalletLedgerService.signedAmount(txn.getTransactionType(), txn.getAmount()));
             evictWalletCache(txn.getWallet().getUser().getId());
-        } else if (oldStatus == TransactionStatus.COMPLETED && request.getStatus() != TransactionStatus.COMPLETED) {
-            BigDecimal delta = txn.getTransactionType() == TransactionType.DEPOSIT ||
-                txn.getTransactionType() == TransactionType.REFUND ? txn.getAmount().negate() : txn.getAmount();
-            txn.getWallet().setBalance(txn.getWallet().getBalance().add(delta));
-            walletRepository.save(txn.getWallet());
+        } else if (oldStatus == TransactionStatus.COMPLETED && request.getStatus() != null
+                && request.getStatus() != TransactionStatus.COMPLETED) {
+            ledgerService.applyDelta(txn.getWallet(), WalletLedgerService.signedAmount(txn.getTransactionType(), txn.getAmount()).negate());
             evictWalletCache(txn.getWallet().getUser().getId());
         }
 
@@ -161,7 +159,7 @@ public class TransactionService {
                 emailData.put("status", txn.getTransactionStatus().name());
                 emailData.put("amount", txn.getAmount());
                 emailData.put("description", txn.getDescription());
-                notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+                notificationCoalescer.submit(new NotificationProducer.EmailMessage(
                     txn.getWallet().getUser().getEmail(),
                     SendEmailType.TRANSACTION_NOTIFICATION,
                     emailData
@@ -175,18 +173,27 @@ public class TransactionService {
     }
 
     // DELETE /admin/transactions/{id}
+    @RetryOnConflict
     @Transactional
     public ApiResponse<Void> deleteTransaction(UUID id) {
         WalletTransaction txn = txnRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
         UUID userId = txn.getWallet().getUser().getId();
+        if (txn.getReversedBy() != null) {
+            throw new AppException(ErrorCode.TRANSACTION_ALREADY_REVERSED);
+        }
         if (txn.getTransactionStatus() == TransactionStatus.COMPLETED) {
-            BigDecimal delta = txn.getTransactionType() == TransactionType.DEPOSIT ||
-                txn.getTransactionType() == TransactionType.REFUND ? txn.getAmount().negate() : txn.getAmount();
-            txn.getWallet().setBalance(txn.getWallet().getBalance().add(delta));
-            walletRepository.save(txn.getWallet());
+            // Completed rows are never removed from the ledger; a reversing entry is appended instead
+            WalletTransaction reversal = ledgerService.post(txn.getWallet(), TransactionType.ADJUSTMENT,
+                    WalletLedgerService.signedAmount(txn.getTransactionType(), txn.getAmount()).negate(),
+                    "Reversal of transaction " + txn.getId(), txn.getOrder());
+            // Version check on the original: a concurrent DELETE of the same row loses, retries and is rejected above
+            txn.setReversedBy(reversal.getId());
+            txnRepository.save(txn);
             evictWalletCache(userId);
+            return ApiResponse.success(null, "Transaction reversed");
         }
         txnRepository.delete(txn);
+        historyCache.invalidate(userId);
         return ApiResponse.success(null, "Transaction deleted");
     }
 
@@ -213,10 +220,11 @@ public class TransactionService {
     // WALLET CACHE EVICTION
     // =====================================
     private void evictWalletCache(UUID userId) {
-        log.info("Evicting wallet caches for user {}", userId);
-        redisService.deleteKey("wallet:" + userId.toString());
-        redisService.deleteKeysByPattern("wallet:txns:" + userId.toString() + ":*");
-        log.info("Wallet cache evicted successfully for user {}", userId);
+        AfterCommit.run(() -> {
+            log.info("Evicting wallet caches for user {}", userId);
+            redisService.deleteKey("wallet:" + userId.toString());
+            log.info("Wallet cache evicted successfully for user {}", userId);
+        });
     }
 
     private WalletTransactionResponse mapToTxnResponse(WalletTransaction txn) {
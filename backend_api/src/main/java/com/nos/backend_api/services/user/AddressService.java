@@ -43,9 +43,8 @@ public class AddressService {
     // POST /addresses
     @Transactional
     public ApiResponse<AddressResponse> createAddress(UUID userId, CreateAddressRequest request) {
-        Account user = accountRepository.findById(userId)
-                .orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
-        
+        Account user = accountRepository.getReferenceById(userId);
+
         Address address = Address.builder()
                 .user(user)
                 .recipientFullName(request.getRecipientFullName())
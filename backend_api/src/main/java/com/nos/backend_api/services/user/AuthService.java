@@ -2,6 +2,7 @@ package com.nos.backend_api.services.user;
 
 import java.text.ParseException;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Map;
@@ -9,9 +10,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,15 +42,15 @@ import com.nos.backend_api.DTO.response.ResponseDto.AuthResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.IntrospectResponse;
 import com.nos.backend_api.exceptions.AppException;
 import com.nos.backend_api.exceptions.ErrorCode;
-import com.nos.backend_api.models.auth.InvalidatedToken;
 import com.nos.backend_api.models.auth.RefreshToken;
 import com.nos.backend_api.models.user_info.Account;
 import com.nos.backend_api.models.user_info.Wallet;
 import com.nos.backend_api.repositories.AccountRepository;
-import com.nos.backend_api.repositories.InvalidatedTokenRepository;
 import com.nos.backend_api.repositories.RefreshTokenRepository;
 import com.nos.backend_api.repositories.WalletRepository;
 import com.nos.backend_api.services._system.NotificationProducer;
+import com.nos.backend_api.services._system.PasswordHashingService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
 
 import lombok.RequiredArgsConstructor;
 
@@ -59,25 +59,25 @@ import lombok.RequiredArgsConstructor;
 public class AuthService {
     private final AccountRepository accountRepository;
     private final RefreshTokenRepository refreshTokenRepository;
-    private final InvalidatedTokenRepository invalidatedTokenRepository;
     private final NotificationProducer notificationProducer;
     private final WalletRepository walletRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${jwt.signer-key}")
     private String SIGNER_KEY;
 
     private final Long ACCESS_TOKEN_DURATION = ChronoUnit.HOURS.getDuration().toMillis();  // 1h
-    private final Long REFRESH_TOKEN_DURATION = ChronoUnit.DAYS.getDuration().toMillis() * 7;  // 7 days
     private final Long OTP_EXPIRY = 5 * 60 * 1000L;  // 5 min
 
-    private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-
     // POST /auth/login
     @Transactional
     public ApiResponse<AuthResponse> login(LoginRequest request) {
         Optional<Account> optAccount = accountRepository.findByEmail(request.getEmail());
-        if (optAccount.isEmpty() || !passwordEncoder.matches(request.getPassword(), optAccount.get().getPassword())) {
+        if (optAccount.isEmpty() || !passwordHashingService.matches(request.getPassword(), optAccount.get().getPassword())) {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
         Account user = optAccount.get();
@@ -113,7 +113,7 @@ public class AuthService {
         }
         Account account = Account.builder()
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .fullName(request.getFullName())
                 .dateOfBirth(request.getDateOfBirth())
                 .role(UserRole.USER)
@@ -129,6 +129,7 @@ public class AuthService {
         walletRepository.save(wallet);
         account.setWallet(wallet);
         account = accountRepository.save(account);
+        eventPublisher.publishEvent(AnalyticsEvent.daily(AnalyticsEvent.Metric.NEW_USERS, LocalDate.now(), 1));
         // Send OTP via email
         generateOtp(request.getEmail(), OtpType.REGISTER);
         Map<String, Object> welcomeData = Map.of(
@@ -143,15 +144,23 @@ public class AuthService {
     // POST /auth/refresh-token
     @Transactional
     public ApiResponse<AuthResponse> refreshToken(RefreshTokenRequest request) {
-        Optional<RefreshToken> optRefresh = refreshTokenRepository.findById(request.getRefreshToken());
-        if (optRefresh.isEmpty() || optRefresh.get().getExpiryDate().isBefore(Instant.now()) || !optRefresh.get().isActive()) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
+        Account user;
+        String newRefreshToken;
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokenService.rotate(request.getRefreshToken());
+        if (rotation.isPresent()) {
+            user = accountRepository.findById(rotation.get().userId())
+                    .orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
+            newRefreshToken = rotation.get().refreshToken();
+        } else {
+            // Tokens issued before the move to Redis live in the table until they expire or are purged
+            RefreshToken legacy = refreshTokenRepository.findById(request.getRefreshToken())
+                    .filter(token -> token.isActive() && token.getExpiryDate().isAfter(Instant.now()))
+                    .orElseThrow(() -> new AppException(ErrorCode.UNAUTHENTICATED));
+            user = legacy.getUser();
+            refreshTokenRepository.delete(legacy);
+            newRefreshToken = generateRefreshToken(user);
         }
-        Account user = optRefresh.get().getUser();
         String newAccessToken = generateAccessToken(user);
-        String newRefreshToken = generateRefreshToken(user);
-        refreshTokenRepository.delete(optRefresh.get());
-        // Rotate refresh or keep
         return ApiResponse.success(AuthResponse.builder()
                 .accessToken(newAccessToken)
                 .refreshToken(newRefreshToken)
@@ -167,10 +176,7 @@ public class AuthService {
         SignedJWT signedJWT = verifyToken(token);
         String jit = signedJWT.getJWTClaimsSet().getJWTID();
         Date expiry = signedJWT.getJWTClaimsSet().getExpirationTime();
-        invalidatedTokenRepository.save(InvalidatedToken.builder()
-                .tokenId(jit)
-                .expiryTime(expiry.toInstant())
-                .build());
+        tokenRevocationService.revoke(jit, expiry.toInstant());
         // Optional: revoke refresh if provided
         return ApiResponse.success(null, "Logged out");
     }
@@ -190,7 +196,10 @@ public class AuthService {
         "type", type.name().toLowerCase(),
         "expiry", "5 minutes"
         );
-        notificationProducer.sendNotification(new NotificationProducer.EmailMessage(email, SendEmailType.OTP, otpDataEmail));
+        if (!notificationProducer.sendNotification(new NotificationProducer.EmailMessage(email, SendEmailType.OTP, otpDataEmail))) {
+            // The code would never arrive; let the client retry instead of waiting for it
+            throw new AppException(ErrorCode.TOO_MANY_REQUESTS);
+        }
         return ApiResponse.success(null, "OTP sent");
     }
 
@@ -207,6 +216,9 @@ public class AuthService {
             System.out.println("Activating user account for " + request.getEmail());
             Optional<Account> optAccount = accountRepository.findByEmail(request.getEmail());
             Account user = optAccount.get();
+            if (!user.isActive()) {
+                eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.ACTIVE_USERS, 1));
+            }
             user.setActive(true);
             accountRepository.save(user);
         }
@@ -229,7 +241,7 @@ public class AuthService {
         Optional<Account> optAccount = accountRepository.findByEmail(request.getEmail());
         if (optAccount.isPresent()) {
             Account account = optAccount.get();
-            account.setPassword(passwordEncoder.encode(request.getNewPassword()));
+            account.setPassword(passwordHashingService.encode(request.getNewPassword()));
             accountRepository.save(account);
         }
         return ApiResponse.success(null, "Password reset");
@@ -256,6 +268,7 @@ public class AuthService {
                     .expirationTime(new Date(Instant.now().plusMillis(ACCESS_TOKEN_DURATION).toEpochMilli()))
                     .claim("role", user.getRole().name())
                     .claim("email", user.getEmail())
+                    .claim("name", user.getFullName())
                     .build();
             JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.HS256).build();
             JWSObject jwsObject = new JWSObject(header, new Payload(claimsSet.toJSONObject()));
@@ -266,14 +279,8 @@ public class AuthService {
         }
     }
 
-    @Transactional
     private String generateRefreshToken(Account user) {
-        return refreshTokenRepository.save(RefreshToken.builder()
-                .refreshToken(UUID.randomUUID().toString())
-                .user(user)
-                .expiryDate(Instant.now().plusMillis(REFRESH_TOKEN_DURATION))
-                .active(true)
-                .build()).getRefreshToken();
+        return refreshTokenService.issue(user.getId());
     }
 
     private SignedJWT verifyToken(String token) throws JOSEException, ParseException {
@@ -285,7 +292,7 @@ public class AuthService {
         if (signedJWT.getJWTClaimsSet().getExpirationTime().before(new Date())) {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID())) {
+        if (tokenRevocationService.isRevoked(signedJWT.getJWTClaimsSet().getJWTID())) {
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
         return signedJWT;
@@ -0,0 +1,71 @@
+package com.nos.backend_api.services.user;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Xóa dần các dòng token đã hết hạn còn lại trong DB (refresh token cũ trước khi chuyển sang Redis,
+ * và bảng invalidated_tokens không còn được ghi). Mỗi lần xóa một chunk nhỏ ở chế độ autocommit
+ * để không giữ khóa lâu và để autovacuum kịp thu hồi chỗ trống.
+ */
+@Service
+@Slf4j
+public class AuthTokenPurgeService {
+    // table -> expiry column
+    private static final List<String[]> EXPIRING_TABLES = List.of(
+            new String[] { "refresh_tokens", "expiry_date" },
+            new String[] { "invalidated_tokens", "expiry_time" });
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public AuthTokenPurgeService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.auth.purge-batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(cron = "${app.auth.purge-cron:0 30 3 * * ?}")
+    public void purgeExpiredTokens() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String[] table : EXPIRING_TABLES) {
+            if (!tableExists(table[0])) {
+                continue;
+            }
+            try {
+                long deleted = purge(table[0], table[1], now);
+                if (deleted > 0) {
+                    log.info("Purged {} expired rows from {}", deleted, table[0]);
+                }
+            } catch (Exception e) {
+                log.error("Failed to purge expired rows from {}", table[0], e);
+            }
+        }
+    }
+
+    private long purge(String table, String expiryColumn, Timestamp now) {
+        String sql = String.format(
+                "DELETE FROM %1$s WHERE ctid IN (SELECT ctid FROM %1$s WHERE %2$s < ? LIMIT ?)",
+                table, expiryColumn);
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, "public." + table));
+    }
+}
@@ -0,0 +1,65 @@
+package com.nos.backend_api.services.user;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+
+/**
+ * Refresh token lưu trong Redis với TTL gốc: auth:refresh:{token} -> userId.
+ * Việc đổi token (rotate-on-use) chạy trong một script Lua nên một token chỉ đổi được một lần,
+ * kể cả khi hai request dùng cùng token đến đồng thời.
+ */
+@Service
+public class RefreshTokenService {
+    // GET + DEL + SET in one atomic step: the old token is gone before anyone can reuse it
+    private static final RedisScript<String> ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local userId = redis.call('GET', KEYS[1]) " +
+            "if not userId then return false end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('SET', KEYS[2], userId, 'PX', ARGV[1]) " +
+            "return userId",
+            String.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long ttlMs;
+
+    public RefreshTokenService(StringRedisTemplate stringRedisTemplate,
+                               @Value("${app.auth.refresh-token-ttl-days:7}") long ttlDays) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttlMs = TimeUnit.DAYS.toMillis(ttlDays);
+    }
+
+    public String issue(UUID userId) {
+        String token = UUID.randomUUID().toString();
+        stringRedisTemplate.opsForValue().set(getKey(token), userId.toString(), ttlMs, TimeUnit.MILLISECONDS);
+        return token;
+    }
+
+    /**
+     * Đổi token cũ lấy token mới. Trả về rỗng nếu token không tồn tại, đã hết hạn hoặc đã được dùng.
+     */
+    public Optional<Rotation> rotate(String token) {
+        String newToken = UUID.randomUUID().toString();
+        String userId = stringRedisTemplate.execute(ROTATE_SCRIPT,
+                List.of(getKey(token), getKey(newToken)), String.valueOf(ttlMs));
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Rotation(UUID.fromString(userId), newToken));
+    }
+
+    private String getKey(String token) {
+        return RedisData.REFRESH_TOKEN + ":" + token;
+    }
+
+    public record Rotation(UUID userId, String refreshToken) {}
+}
@@ -0,0 +1,246 @@
+package com.nos.backend_api.services.user;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.services._system.RedisService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Danh sách JWT đã bị thu hồi (logout). Nguồn sự thật là Redis (TTL = thời gian còn lại của token);
+ * mỗi node giữ một Bloom filter cục bộ, đồng bộ qua pub/sub và nạp lại định kỳ từ Redis.
+ * Token không có trong filter được chấp nhận mà không cần gọi Redis; chỉ khi filter báo
+ * "có thể" mới kiểm tra Redis để loại bỏ dương tính giả.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService implements MessageListener {
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final RedisService redisService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int expectedRevocations;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Receives revocations that arrive while a resync is scanning Redis
+    private BloomFilter pending;
+    // Until the first load from Redis succeeds the filter proves nothing, so every check goes to Redis
+    private volatile boolean synced;
+
+    public TokenRevocationService(RedisService redisService,
+                                  JdbcTemplate jdbcTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  @Value("${app.security.revocation.expected-revocations:100000}") int expectedRevocations,
+                                  @Value("${app.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisService = redisService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedRevocations = Math.max(1000, expectedRevocations);
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(this.expectedRevocations, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(RedisData.TOKEN_REVOCATION_CHANNEL));
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        long ttlMs = expiresAt.toEpochMilli() - System.currentTimeMillis();
+        if (jti == null || ttlMs <= 0) {
+            return;
+        }
+        redisService.setValue(getKey(jti), true, ttlMs, TimeUnit.MILLISECONDS);
+        addLocal(jti);
+        try {
+            redisService.publish(RedisData.TOKEN_REVOCATION_CHANNEL, jti);
+        } catch (Exception e) {
+            // Other nodes pick it up on their next resync
+            log.warn("Failed to publish revocation of token {}", jti, e);
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (synced && !filter.mightContain(jti)) {
+            return false;
+        }
+        try {
+            return redisService.hasKey(getKey(jti));
+        } catch (Exception e) {
+            // Fail open: an unreachable Redis must not log every user out
+            log.warn("Failed to check revocation of token {}", jti, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object jti = redisService.deserializeMessage(message.getBody());
+        if (jti != null) {
+            addLocal(jti.toString());
+        }
+    }
+
+    /**
+     * Dựng lại filter từ Redis: bỏ các token đã hết hạn (Redis đã xóa key) và bù các
+     * message pub/sub bị lỡ khi mất kết nối.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.security.revocation.resync-interval-ms:300000}")
+    public void resync() {
+        BloomFilter rebuilt = new BloomFilter(expectedRevocations, falsePositiveRate);
+        synchronized (this) {
+            pending = rebuilt;
+        }
+        try {
+            String prefix = RedisData.REVOKED_TOKEN + ":";
+            List<String> keys = redisService.scanKeys(prefix + "*", SCAN_BATCH_SIZE);
+            for (String key : keys) {
+                rebuilt.put(key.substring(prefix.length()));
+            }
+            synchronized (this) {
+                filter = rebuilt;
+                pending = null;
+                synced = true;
+            }
+            if (keys.size() > expectedRevocations) {
+                log.warn("{} revoked tokens exceed the Bloom filter sizing of {}, more checks will reach Redis",
+                        keys.size(), expectedRevocations);
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                pending = null;
+            }
+            log.warn("Failed to resync token revocations from Redis", e);
+        }
+    }
+
+    /**
+     * Chuyển các token còn hạn trong bảng invalidated_tokens cũ (trước khi có danh sách thu hồi trên Redis)
+     * sang Redis một lần, để token đã logout trước lần deploy không hợp lệ trở lại.
+     * Đi qua revoke() nên các node khác nhận qua pub/sub; đánh dấu trong Redis để không chạy lại.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyRevocations() {
+        try {
+            if (redisService.hasKey(RedisData.LEGACY_REVOCATIONS_MIGRATED)) {
+                return;
+            }
+            Boolean tableExists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('public.invalidated_tokens') IS NOT NULL", Boolean.class);
+            int migrated = 0;
+            if (Boolean.TRUE.equals(tableExists)) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT token_id, expiry_time FROM invalidated_tokens WHERE expiry_time > NOW()");
+                for (Map<String, Object> row : rows) {
+                    revoke(row.get("token_id").toString(), toInstant(row.get("expiry_time")));
+                }
+                migrated = rows.size();
+            }
+            // Every migrated token expires well within this
+            redisService.setValue(RedisData.LEGACY_REVOCATIONS_MIGRATED, "done", 365, TimeUnit.DAYS);
+            log.info("Migrated {} unexpired revocations from invalidated_tokens", migrated);
+        } catch (Exception e) {
+            // Not marked done: the next startup tries again
+            log.error("Failed to migrate revocations from invalidated_tokens", e);
+        }
+    }
+
+    private static Instant toInstant(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toInstant();
+        }
+        if (value instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.toInstant();
+        }
+        throw new IllegalArgumentException("Unexpected expiry_time " + value);
+    }
+
+    // Serialized with the swap in resync, so a revocation cannot land only in the discarded filter
+    private synchronized void addLocal(String jti) {
+        filter.put(jti);
+        BloomFilter rebuilding = pending;
+        if (rebuilding != null) {
+            rebuilding.put(jti);
+        }
+    }
+
+    private String getKey(String jti) {
+        return RedisData.REVOKED_TOKEN + ":" + jti;
+    }
+
+    /**
+     * Bloom filter an toàn đa luồng (bit set trên AtomicLongArray), băm kép từ một hash 64 bit.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int wordCount = (int) Math.max(1, (bits + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = words.get(index);
+                } while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a followed by the SplitMix64 finalizer to spread the bits
+        private static long hash64(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.nos.backend_api.services.user;
 
+import java.time.LocalDate;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,8 +24,11 @@ import com.nos.backend_api.exceptions.ErrorCode;
 import com.nos.backend_api.models.user_info.Account;
 import com.nos.backend_api.models.user_info.Wallet;
 import com.nos.backend_api.repositories.AccountRepository;
+import com.nos.backend_api.repositories.ShoppingCartRepository;
 import com.nos.backend_api.repositories.WalletRepository;
+import com.nos.backend_api.services._system.PasswordHashingService;
 import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j; 
@@ -35,8 +39,10 @@ import lombok.extern.slf4j.Slf4j;
 public class UserService {
     private final AccountRepository accountRepository;
     private final WalletRepository walletRepository;
+    private final ShoppingCartRepository cartRepository;
     private final RedisService redisService;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHashingService passwordHashingService;
+    private final ApplicationEventPublisher eventPublisher;
     private static final String USERS_PAGE_PREFIX = "users:page:";
 
     // GET /users/profile
@@ -92,7 +98,10 @@ public class UserService {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
         if (request.getFullName() != null) account.setFullName(request.getFullName());
         if (request.getDateOfBirth() != null) account.setDateOfBirth(request.getDateOfBirth());
-        if (request.getActive() != null) account.setActive(request.getActive());
+        if (request.getActive() != null && request.getActive() != account.isActive()) {
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.ACTIVE_USERS, request.getActive() ? 1 : -1));
+            account.setActive(request.getActive());
+        }
         if (request.getRole() != null) account.setRole(request.getRole());
         account = accountRepository.save(account);
         
@@ -103,10 +112,10 @@ public class UserService {
     // Admin: DELETE /users/{id}
     @Transactional
     public ApiResponse<Void> deleteUser(UUID id) {
-        if (!accountRepository.existsById(id)) {
-            throw new AppException(ErrorCode.USER_NOT_EXISTED);
-        }
-        accountRepository.deleteById(id);
+        Account account = accountRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        publishDeletedUserDeltas(account);
+        accountRepository.delete(account);
         
         evictUserCache(id);
         return ApiResponse.success(null, "User deleted");
@@ -149,7 +158,7 @@ public class UserService {
         }
         Account account = Account.builder()
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.encode(request.getPassword()))
                 .fullName(request.getFullName())
                 .dateOfBirth(request.getDateOfBirth())
                 .active(true)
@@ -166,11 +175,32 @@ public class UserService {
         walletRepository.save(wallet);
         account.setWallet(wallet);
         account = accountRepository.save(account);
+        eventPublisher.publishEvent(AnalyticsEvent.daily(AnalyticsEvent.Metric.NEW_USERS, LocalDate.now(), 1));
+        eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.ACTIVE_USERS, 1));
 
         evictUserCache(account.getId());
         return ApiResponse.success(mapToUserResponse(account));
     }
 
+    // The cart and wallet rows cascade with the account, so their share leaves the live counters too
+    private void publishDeletedUserDeltas(Account account) {
+        if (account.isActive()) {
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.ACTIVE_USERS, -1));
+        }
+        if (account.getCreatedAt() != null) {
+            eventPublisher.publishEvent(AnalyticsEvent.daily(AnalyticsEvent.Metric.NEW_USERS,
+                    account.getCreatedAt().toLocalDate(), -1));
+        }
+        int cartItems = cartRepository.sumItemsByUserId(account.getId());
+        if (cartItems > 0) {
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.CART_ITEMS, -cartItems));
+        }
+        Wallet wallet = account.getWallet();
+        if (wallet != null && wallet.isActive() && wallet.getBalance().signum() != 0) {
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.WALLET_FLOAT, wallet.getBalance().negate()));
+        }
+    }
+
     private UserResponse mapToUserResponse(Account account) {
         return UserResponse.builder()
                 .id(account.getId())
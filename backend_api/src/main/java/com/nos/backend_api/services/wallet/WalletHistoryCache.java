@@ -0,0 +1,139 @@
+package com.nos.backend_api.services.wallet;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
+import com.nos.backend_api.services._system.AfterCommit;
+import com.nos.backend_api.services._system.RedisService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache phần đầu (mới nhất) của lịch sử giao dịch mỗi user dưới dạng Redis list có giới hạn.
+ * Giao dịch mới được LPUSH sau khi commit thay vì xóa cache; chỉ các thao tác sửa/xóa
+ * dòng cũ (hiếm, do admin) mới xóa list.
+ * Mỗi lần ghi tăng generation; lần nạp từ DB chỉ được ghi đè list nếu generation chưa đổi.
+ */
+@Service
+@Slf4j
+public class WalletHistoryCache {
+    // Bounds how long a head can miss an entry written while it was being loaded
+    private static final long HEAD_TTL_MINUTES = 30;
+    // Far longer than any load, so an expired generation cannot be mistaken for the one read
+    private static final long GENERATION_TTL_HOURS = 24;
+
+    private final RedisService redisService;
+    private final int headSize;
+
+    public WalletHistoryCache(RedisService redisService,
+                              @Value("${app.wallet.history-head-size:50}") int headSize) {
+        this.redisService = redisService;
+        this.headSize = headSize;
+    }
+
+    public int getHeadSize() {
+        return headSize;
+    }
+
+    /**
+     * Trả về tối đa limit giao dịch mới nhất, hoặc null nếu cache không trả lời được
+     * (chưa nạp, hoặc limit vượt quá phần đầu đang giữ).
+     */
+    public List<WalletTransactionResponse> readHead(UUID userId, int limit) {
+        if (limit > headSize) {
+            return null;
+        }
+        try {
+            List<Object> cached = redisService.getListRange(getKey(userId), 0, limit - 1);
+            if (cached == null || cached.isEmpty()) {
+                return null;
+            }
+            // A full head shorter than the request means older rows were trimmed away
+            if (cached.size() < limit && cached.size() >= headSize) {
+                return null;
+            }
+            return cached.stream().map(WalletTransactionResponse.class::cast).toList();
+        } catch (Exception e) {
+            log.warn("Failed to read wallet history head for user {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Đọc trước khi query DB; truyền lại cho fillHead để bỏ qua lần nạp đã cũ.
+     */
+    public String readGeneration(UUID userId) {
+        try {
+            return redisService.getVersion(getGenerationKey(userId));
+        } catch (Exception e) {
+            log.warn("Failed to read wallet history generation for user {}", userId, e);
+            return null;
+        }
+    }
+
+    public void fillHead(UUID userId, String generation, List<WalletTransactionResponse> newestFirst) {
+        if (generation == null) {
+            return;
+        }
+        try {
+            List<WalletTransactionResponse> head = newestFirst.size() > headSize
+                    ? newestFirst.subList(0, headSize)
+                    : newestFirst;
+            // A commit since the generation was read may already be in the list; the DB copy would lose it
+            if (!redisService.replaceListIfVersion(getKey(userId), getGenerationKey(userId), generation,
+                    head, HEAD_TTL_MINUTES, TimeUnit.MINUTES)) {
+                log.debug("Skipped stale wallet history head fill for user {}", userId);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to fill wallet history head for user {}", userId, e);
+        }
+    }
+
+    /**
+     * Thêm giao dịch vào đầu list sau khi transaction hiện tại commit thành công.
+     */
+    public void appendAfterCommit(UUID userId, WalletTransactionResponse entry) {
+        AfterCommit.run(() -> append(userId, entry));
+    }
+
+    /**
+     * Xóa list sau khi transaction hiện tại commit, để lần nạp lại đọc được dòng đã sửa.
+     */
+    public void invalidate(UUID userId) {
+        AfterCommit.run(() -> drop(userId));
+    }
+
+    private void drop(UUID userId) {
+        try {
+            redisService.bumpVersion(getGenerationKey(userId), GENERATION_TTL_HOURS, TimeUnit.HOURS);
+            redisService.deleteKey(getKey(userId));
+        } catch (Exception e) {
+            log.warn("Failed to drop wallet history head for user {}", userId, e);
+        }
+    }
+
+    private void append(UUID userId, WalletTransactionResponse entry) {
+        try {
+            // Bump first: a fill that started before this commit must not replace the list afterwards
+            redisService.bumpVersion(getGenerationKey(userId), GENERATION_TTL_HOURS, TimeUnit.HOURS);
+            redisService.pushToListIfPresent(getKey(userId), entry, headSize);
+        } catch (Exception e) {
+            log.warn("Failed to append to wallet history head for user {}, dropping it", userId, e);
+            drop(userId);
+        }
+    }
+
+    private String getKey(UUID userId) {
+        return RedisData.WALLET_TXN_HEAD + ":" + userId;
+    }
+
+    private String getGenerationKey(UUID userId) {
+        return RedisData.WALLET_TXN_GENERATION + ":" + userId;
+    }
+}
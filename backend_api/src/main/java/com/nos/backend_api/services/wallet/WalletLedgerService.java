@@ -0,0 +1,103 @@
+package com.nos.backend_api.services.wallet;
+
+import java.math.BigDecimal;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.nos.backend_api.DTO.data.enums.TransactionStatus;
+import com.nos.backend_api.DTO.data.enums.TransactionType;
+import com.nos.backend_api.DTO.response.ResponseDto;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.models.payment.Order;
+import com.nos.backend_api.models.payment.WalletTransaction;
+import com.nos.backend_api.models.user_info.Wallet;
+import com.nos.backend_api.repositories.WalletRepository;
+import com.nos.backend_api.repositories.WalletTransactionRepository;
+import com.nos.backend_api.services.analytics.AnalyticsEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mọi thay đổi số dư ví đi qua đây: một câu UPDATE nguyên tử trên wallets
+ * cộng với một dòng ghi thêm (append-only) vào wallet_transactions.
+ * Cột amount lưu độ lớn (dương) như các dòng cũ; dấu chỉ được áp vào khi tính số dư,
+ * suy ra từ loại giao dịch. Riêng ADJUSTMENT lưu kèm dấu.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WalletLedgerService {
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository transactionRepository;
+    private final WalletHistoryCache historyCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Ghi một giao dịch COMPLETED và cập nhật số dư trong cùng transaction của caller.
+     * Ném BAD_REQUEST nếu số dư không đủ.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public WalletTransaction post(Wallet wallet, TransactionType type, BigDecimal amount, String description, Order order) {
+        applyDelta(wallet, signedAmount(type, amount));
+        WalletTransaction txn = transactionRepository.save(WalletTransaction.builder()
+                .wallet(wallet)
+                .transactionType(type)
+                .transactionStatus(TransactionStatus.COMPLETED)
+                .amount(storedAmount(type, amount))
+                .order(order)
+                .description(description)
+                .build());
+        historyCache.appendAfterCommit(wallet.getUser().getId(), ResponseDto.WalletTransactionResponse.builder()
+                .id(txn.getId())
+                .type(txn.getTransactionType())
+                .status(txn.getTransactionStatus())
+                .orderId(order != null ? order.getId() : null)
+                .transactionDate(txn.getTransactionDate())
+                .description(txn.getDescription())
+                .amount(txn.getAmount())
+                .build());
+        return txn;
+    }
+
+    /**
+     * Chỉ di chuyển số dư, dùng khi một dòng ledger đã có chuyển trạng thái vào/ra COMPLETED.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BigDecimal applyDelta(Wallet wallet, BigDecimal delta) {
+        BigDecimal newBalance = walletRepository.applyDelta(wallet.getId(), delta)
+                .orElseThrow(() -> {
+                    log.warn("Insufficient balance on wallet {} for delta {}", wallet.getId(), delta);
+                    return new AppException(ErrorCode.BAD_REQUEST);
+                });
+        // Keep the loaded entity in step for the response; the column itself is not updatable
+        wallet.setBalance(newBalance);
+        // The float only counts active wallets
+        if (wallet.isActive()) {
+            eventPublisher.publishEvent(AnalyticsEvent.total(AnalyticsEvent.Metric.WALLET_FLOAT, delta));
+        }
+        return newBalance;
+    }
+
+    /**
+     * Ảnh hưởng lên số dư của một giao dịch: dấu suy ra từ loại, ADJUSTMENT giữ nguyên dấu được truyền vào.
+     */
+    public static BigDecimal signedAmount(TransactionType type, BigDecimal amount) {
+        return switch (type) {
+            case DEPOSIT, REFUND -> amount.abs();
+            case WITHDRAWAL, PURCHASE -> amount.abs().negate();
+            case ADJUSTMENT -> amount;
+        };
+    }
+
+    /**
+     * Giá trị ghi vào cột amount: độ lớn, trừ ADJUSTMENT vốn mang dấu.
+     */
+    public static BigDecimal storedAmount(TransactionType type, BigDecimal amount) {
+        return type == TransactionType.ADJUSTMENT ? amount : amount.abs();
+    }
+}
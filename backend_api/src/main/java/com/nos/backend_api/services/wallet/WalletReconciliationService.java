@@ -0,0 +1,310 @@
+package com.nos.backend_api.services.wallet;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.response.ApiResponse;
+import com.nos.backend_api.DTO.response.BooleanResponse;
+import com.nos.backend_api.DTO.response.ResponseDto;
+import com.nos.backend_api.DTO.response.ResponseDto.ReconciliationReportResponse;
+import com.nos.backend_api.DTO.response.ResponseDto.WalletMismatchResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+import com.nos.backend_api.services._system.LockKeeper;
+import com.nos.backend_api.services._system.RedisService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đối soát số dư ví với tổng các dòng ledger COMPLETED.
+ * Không gian UUID của wallets được chia thành các khoảng id, mỗi khoảng được cộng dồn song song
+ * trên virtual thread. Lần chạy tăng dần chỉ quét các ví có updated_at sau checkpoint trước đó,
+ * cộng với các ví còn lệch từ những lần chạy trước.
+ */
+@Service
+@Slf4j
+public class WalletReconciliationService {
+    private static final String SELECT_SQL =
+            "SELECT w.id, w.user_id, w.balance, " +
+            // Same signs as WalletLedgerService.signedAmount: debit rows store the magnitude
+            "COALESCE(SUM(CASE " +
+            "WHEN t.transaction_type IN ('WITHDRAWAL', 'PURCHASE') THEN -ABS(t.amount) " +
+            "WHEN t.transaction_type = 'ADJUSTMENT' THEN t.amount " +
+            "ELSE ABS(t.amount) END) FILTER (WHERE t.transaction_status = 'COMPLETED'), 0) AS ledger_total " +
+            "FROM wallets w LEFT JOIN wallet_transactions t ON t.wallet_id = w.id ";
+    private static final String RANGE_SQL = SELECT_SQL +
+            "WHERE w.id >= ?::uuid AND w.id <= ?::uuid AND w.updated_at > ? " +
+            "GROUP BY w.id, w.user_id, w.balance";
+    private static final String WALLETS_SQL = SELECT_SQL +
+            "WHERE w.id = ANY(?::uuid[]) GROUP BY w.id, w.user_id, w.balance";
+    private static final int MAX_REPORTED_MISMATCHES = 500;
+    private static final int RECHECK_BATCH_SIZE = 1000;
+    // Short TTL kept alive by LockKeeper for as long as a full scan takes
+    private static final long LOCK_TTL_MINUTES = 5;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RedisService redisService;
+    private final int ranges;
+    private final int parallelism;
+    private final long checkpointOverlapMinutes;
+
+    private final AtomicInteger lastMismatchCount = new AtomicInteger();
+    private final AtomicLong lastWalletsChecked = new AtomicLong();
+    private final Timer runTimer;
+    private final Counter fullRuns;
+    private final Counter incrementalRuns;
+
+    public WalletReconciliationService(JdbcTemplate jdbcTemplate,
+                                       RedisService redisService,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.reconciliation.ranges:64}") int ranges,
+                                       @Value("${app.reconciliation.parallelism:4}") int parallelism,
+                                       @Value("${app.reconciliation.checkpoint-overlap-minutes:10}") long checkpointOverlapMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisService = redisService;
+        this.ranges = Math.max(1, ranges);
+        this.parallelism = Math.max(1, parallelism);
+        this.checkpointOverlapMinutes = checkpointOverlapMinutes;
+
+        Gauge.builder("wallet.reconciliation.mismatches", lastMismatchCount, AtomicInteger::get)
+                .description("Wallets whose balance still differs from their completed ledger rows")
+                .register(meterRegistry);
+        Gauge.builder("wallet.reconciliation.wallets.checked", lastWalletsChecked, AtomicLong::get)
+                .description("Wallets checked by the last reconciliation run")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("wallet.reconciliation.duration").register(meterRegistry);
+        this.fullRuns = Counter.builder("wallet.reconciliation.runs").tag("mode", "full").register(meterRegistry);
+        this.incrementalRuns = Counter.builder("wallet.reconciliation.runs").tag("mode", "incremental").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 15 * * * ?}")
+    public void scheduledIncrementalRun() {
+        runWithLock(false);
+    }
+
+    // Safety net: a full pass also catches drift on wallets whose updated_at was never bumped
+    @Scheduled(cron = "${app.reconciliation.full-cron:0 0 4 * * SUN}")
+    public void scheduledFullRun() {
+        runWithLock(true);
+    }
+
+    // GET /admin/reconciliation/report
+    public ApiResponse<ReconciliationReportResponse> getLastReport() {
+        Object report = redisService.getValue(RedisData.RECONCILIATION_REPORT);
+        if (!(report instanceof ReconciliationReportResponse response)) {
+            throw new AppException(ErrorCode.NOT_FOUND);
+        }
+        return ApiResponse.success(response);
+    }
+
+    // POST /admin/reconciliation/run
+    public ApiResponse<BooleanResponse> triggerRun(boolean fullScan) {
+        LockKeeper lock = acquireLock();
+        if (lock == null) {
+            return ApiResponse.success(BooleanResponse.builder().success(false).build(), "Reconciliation is already running");
+        }
+        Thread.ofVirtual().name("wallet-reconciliation").start(() -> {
+            try (lock) {
+                run(fullScan, lock);
+            } catch (Exception e) {
+                log.error("Wallet reconciliation failed", e);
+            }
+        });
+        return ApiResponse.success(BooleanResponse.builder().success(true).build(), "Reconciliation started");
+    }
+
+    private void runWithLock(boolean fullScan) {
+        LockKeeper lock = acquireLock();
+        if (lock == null) {
+            log.info("Wallet reconciliation already running elsewhere, skipping");
+            return;
+        }
+        try (lock) {
+            run(fullScan, lock);
+        } catch (Exception e) {
+            log.error("Wallet reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Quét các ví (toàn bộ hoặc thay đổi từ checkpoint), rồi kiểm tra lại mọi ví đang lệch từ các lần trước.
+     * Ví lệch chỉ rời danh sách khi số dư khớp tổng ledger; báo cáo và gauge lấy từ danh sách này.
+     */
+    private ReconciliationReportResponse run(boolean fullScan, LockKeeper lock) throws Exception {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime changedSince = fullScan ? EPOCH : readCheckpoint();
+        Timer.Sample sample = Timer.start();
+
+        Map<UUID, WalletMismatchResponse> unresolved = new ConcurrentHashMap<>();
+        AtomicLong checked = new AtomicLong();
+        Semaphore permits = new Semaphore(parallelism);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(ranges);
+            for (UUID[] range : splitIdSpace(ranges)) {
+                futures.add(executor.submit(() -> {
+                    // Virtual threads are cheap, database connections are not
+                    permits.acquire();
+                    try {
+                        lock.ensureHeld();
+                        reconcileRange(range[0], range[1], changedSince, checked, unresolved);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Earlier mismatches outside this scan are checked again; they only clear once the wallet balances
+        Map<UUID, WalletMismatchResponse> tracked = readTrackedMismatches();
+        List<UUID> recheck = tracked.keySet().stream().filter(id -> !unresolved.containsKey(id)).toList();
+        for (int i = 0; i < recheck.size(); i += RECHECK_BATCH_SIZE) {
+            lock.ensureHeld();
+            recheckWallets(recheck.subList(i, Math.min(i + RECHECK_BATCH_SIZE, recheck.size())), checked, unresolved);
+        }
+
+        lock.ensureHeld();
+        for (WalletMismatchResponse mismatch : unresolved.values()) {
+            WalletMismatchResponse previous = tracked.get(mismatch.getWalletId());
+            mismatch.setDetectedAt(previous != null && previous.getDetectedAt() != null ? previous.getDetectedAt() : startedAt);
+            redisService.saveToHash(RedisData.RECONCILIATION_MISMATCHES, mismatch.getWalletId().toString(), mismatch);
+        }
+        int resolved = 0;
+        for (UUID walletId : tracked.keySet()) {
+            if (!unresolved.containsKey(walletId)) {
+                redisService.deleteFromHash(RedisData.RECONCILIATION_MISMATCHES, walletId.toString());
+                resolved++;
+            }
+        }
+
+        sample.stop(runTimer);
+        (fullScan ? fullRuns : incrementalRuns).increment();
+        lastMismatchCount.set(unresolved.size());
+        lastWalletsChecked.set(checked.get());
+
+        ReconciliationReportResponse report = ReconciliationReportResponse.builder()
+                .fullScan(fullScan)
+                .changedSince(fullScan ? null : changedSince)
+                .startedAt(startedAt)
+                .finishedAt(LocalDateTime.now())
+                .walletsChecked(checked.get())
+                .mismatchCount(unresolved.size())
+                .mismatches(unresolved.values().stream()
+                        .sorted(Comparator.comparing(WalletMismatchResponse::getDetectedAt))
+                        .limit(MAX_REPORTED_MISMATCHES)
+                        .toList())
+                .build();
+        redisService.setValue(RedisData.RECONCILIATION_REPORT, report, 30, TimeUnit.DAYS);
+        // Transactions still open when the run started carry an earlier updated_at; the overlap re-checks them
+        redisService.setValue(RedisData.RECONCILIATION_CHECKPOINT,
+                startedAt.minusMinutes(checkpointOverlapMinutes).toString(), 30, TimeUnit.DAYS);
+
+        if (!unresolved.isEmpty()) {
+            log.warn("Wallet reconciliation: {} unresolved mismatches ({} resolved this run) after checking {} wallets",
+                    unresolved.size(), resolved, checked.get());
+        } else {
+            log.info("Wallet reconciliation checked {} wallets, no mismatch ({} resolved this run)", checked.get(), resolved);
+        }
+        return report;
+    }
+
+    private void reconcileRange(UUID from, UUID to, LocalDateTime changedSince, AtomicLong checked,
+                                Map<UUID, WalletMismatchResponse> unresolved) {
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            checked.incrementAndGet();
+            collectMismatch(rs, unresolved);
+        }, from.toString(), to.toString(), Timestamp.valueOf(changedSince));
+    }
+
+    // A tracked wallet that no longer exists simply returns no row and drops out
+    private void recheckWallets(List<UUID> walletIds, AtomicLong checked, Map<UUID, WalletMismatchResponse> unresolved) {
+        String idArray = walletIds.stream().map(UUID::toString).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.query(WALLETS_SQL, rs -> {
+            checked.incrementAndGet();
+            collectMismatch(rs, unresolved);
+        }, idArray);
+    }
+
+    private void collectMismatch(ResultSet rs, Map<UUID, WalletMismatchResponse> unresolved) throws SQLException {
+        BigDecimal balance = rs.getBigDecimal("balance");
+        BigDecimal ledgerTotal = rs.getBigDecimal("ledger_total");
+        if (balance.compareTo(ledgerTotal) == 0) {
+            return;
+        }
+        UUID walletId = rs.getObject("id", UUID.class);
+        unresolved.put(walletId, ResponseDto.WalletMismatchResponse.builder()
+                .walletId(walletId)
+                .userId(rs.getObject("user_id", UUID.class))
+                .balance(balance)
+                .ledgerTotal(ledgerTotal)
+                .difference(balance.subtract(ledgerTotal))
+                .build());
+    }
+
+    private Map<UUID, WalletMismatchResponse> readTrackedMismatches() {
+        Map<UUID, WalletMismatchResponse> tracked = new HashMap<>();
+        redisService.getHashEntries(RedisData.RECONCILIATION_MISMATCHES).forEach((field, value) -> {
+            if (value instanceof WalletMismatchResponse mismatch) {
+                tracked.put(UUID.fromString(field.toString()), mismatch);
+            }
+        });
+        return tracked;
+    }
+
+    /**
+     * Chia không gian UUID thành các khoảng liên tiếp [from, to] theo 64 bit cao.
+     * PostgreSQL so sánh uuid theo byte (không dấu), khớp với cách chia này.
+     */
+    private List<UUID[]> splitIdSpace(int count) {
+        List<UUID[]> result = new ArrayList<>(count);
+        long step = Long.divideUnsigned(-1L, count);
+        for (int i = 0; i < count; i++) {
+            long startMsb = step * i;
+            long endMsb = i == count - 1 ? -1L : step * (i + 1) - 1;
+            result.add(new UUID[] { new UUID(startMsb, 0L), new UUID(endMsb, -1L) });
+        }
+        return result;
+    }
+
+    private LocalDateTime readCheckpoint() {
+        Object checkpoint = redisService.getValue(RedisData.RECONCILIATION_CHECKPOINT);
+        return checkpoint != null ? LocalDateTime.parse(checkpoint.toString()) : EPOCH;
+    }
+
+    private LockKeeper acquireLock() {
+        return LockKeeper.tryAcquire(redisService, RedisData.RECONCILIATION_LOCK, LOCK_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+}
@@ -1,21 +1,23 @@
 package com.nos.backend_api.services.wallet;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors; 
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.nos.backend_api.DTO.data.enums.SendEmailType;
-import com.nos.backend_api.DTO.data.enums.TransactionStatus;
 import com.nos.backend_api.DTO.data.enums.TransactionType;
 import com.nos.backend_api.DTO.request.RequestDto.ActivateWalletRequest;
 import com.nos.backend_api.DTO.request.RequestDto.DepositRequest;
@@ -26,12 +28,16 @@ import com.nos.backend_api.DTO.response.ResponseDto;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletResponse;
 import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
 import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.configuration.RetryOnConflict;
 import com.nos.backend_api.exceptions.ErrorCode;
 import com.nos.backend_api.models.payment.WalletTransaction;
 import com.nos.backend_api.models.user_info.Wallet;
 import com.nos.backend_api.repositories.WalletRepository;
 import com.nos.backend_api.repositories.WalletTransactionRepository;
+import com.nos.backend_api.services._system.AfterCommit;
+import com.nos.backend_api.services._system.NotificationCoalescer;
 import com.nos.backend_api.services._system.NotificationProducer;
+import com.nos.backend_api.services._system.PasswordHashingService;
 import com.nos.backend_api.services._system.RedisService;
 
 import lombok.RequiredArgsConstructor;
@@ -42,41 +48,26 @@ import lombok.extern.slf4j.Slf4j;
 public class WalletService {
     private final WalletRepository walletRepository;
     private final WalletTransactionRepository transactionRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-    private final NotificationProducer notificationProducer;
+    private final PasswordHashingService passwordHashingService;
+    private final NotificationCoalescer notificationCoalescer;
     private final RedisService redisService;
+    private final WalletLedgerService ledgerService;
+
+    private final WalletHistoryCache historyCache;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     private String getWalletKey(UUID userId) { return "wallet:" + userId.toString();
     }
-    private String getWalletTxnsKey(UUID userId, Pageable pageable) {
-        String sortStr = pageable.getSort().isSorted() ?
-            pageable.getSort().stream().map(o -> o.getProperty() + ":" + o.getDirection()).collect(Collectors.joining(","))
-            : "default";
-        return String.format("wallet:txns:%s:page:%d:size:%d:sort:%s",
-            userId.toString(),
-            pageable.getPageNumber(),
-            pageable.getPageSize(),
-            sortStr);
-    }
     
     // POST /wallets/deposit
+    @RetryOnConflict
     @Transactional
     public ApiResponse<WalletResponse> deposit(UUID userId, DepositRequest request) {
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
-        BigDecimal newBalance = wallet.getBalance().add(request.getAmount());
-        wallet.setBalance(newBalance);
-        wallet = walletRepository.save(wallet);
-        
-        WalletTransaction txn = WalletTransaction.builder()
-                .wallet(wallet)
-                .transactionType(TransactionType.DEPOSIT)
-                .transactionStatus(TransactionStatus.COMPLETED)
-                .amount(request.getAmount())
-                .description("Deposit via " + request.getPaymentMethod())
-     
-               .build();
-        transactionRepository.save(txn);
+        WalletTransaction txn = ledgerService.post(wallet, TransactionType.DEPOSIT, request.getAmount(),
+                "Deposit via " + request.getPaymentMethod(), null);
+        BigDecimal newBalance = wallet.getBalance();
         try {
             Map<String, Object> emailData = new HashMap<>();
             emailData.put("userName", wallet.getUser().getFullName());
@@ -87,7 +78,7 @@ public class WalletService {
             emailData.put("transactionId", txn.getId());
             emailData.put("status", txn.getTransactionStatus().name());
             emailData.put("type", txn.getTransactionType().name());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            notificationCoalescer.submit(new NotificationProducer.EmailMessage(
                 wallet.getUser().getEmail(),
                 SendEmailType.TRANSACTION_NOTIFICATION,
                 emailData
@@ -101,27 +92,18 @@ public class WalletService {
     }
 
     // POST /wallets/withdrawal
+    @RetryOnConflict
     @Transactional
     public ApiResponse<WalletResponse> withdrawal(UUID userId, WithdrawalRequest request) {
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
-        if (wallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new AppException(ErrorCode.BAD_REQUEST);
-        }
-        if (!passwordEncoder.matches(request.getPin(), wallet.getPinHash())) {
+        if (!passwordHashingService.matches(request.getPin(), wallet.getPinHash())) {
             throw new AppException(ErrorCode.INVALID_PASSWORD);
         }
-        BigDecimal newBalance = wallet.getBalance().subtract(request.getAmount());
-        wallet.setBalance(newBalance);
-        wallet = walletRepository.save(wallet);
-        WalletTransaction txn = WalletTransaction.builder()
-                .wallet(wallet)
-                .transactionType(TransactionType.WITHDRAWAL)
-                .transactionStatus(TransactionStatus.COMPLETED)
-                .amount(request.getAmount().negate())
-                .description("Withdrawal")
-                .build();
-        transactionRepository.save(txn);
+        // The ledger update refuses to go below zero, so no separate balance check is needed
+        WalletTransaction txn = ledgerService.post(wallet, TransactionType.WITHDRAWAL, request.getAmount(),
+                "Withdrawal", null);
+        BigDecimal newBalance = wallet.getBalance();
         
         try {
             Map<String, Object> emailData = new HashMap<>();
@@ -132,7 +114,7 @@ public class WalletService {
             emailData.put("transactionId", txn.getId());
             emailData.put("status", txn.getTransactionStatus().name());
             emailData.put("type", txn.getTransactionType().name());
-            notificationProducer.sendNotification(new NotificationProducer.EmailMessage(
+            notificationCoalescer.submit(new NotificationProducer.EmailMessage(
                 wallet.getUser().getEmail(),
                 SendEmailType.TRANSACTION_NOTIFICATION,
                 emailData
@@ -150,7 +132,7 @@ public class WalletService {
     public ApiResponse<Void> validatePin(UUID userId, ValidatePinRequest request) {
         Wallet wallet = walletRepository.findByUserId(userId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOT_FOUND));
-        if (!passwordEncoder.matches(request.getPin(), wallet.getPinHash())) {
+        if (!passwordHashingService.matches(request.getPin(), wallet.getPinHash())) {
             throw new AppException(ErrorCode.INVALID_PASSWORD);
         }
         return ApiResponse.success(null, "PIN valid");
@@ -175,17 +157,10 @@ public class WalletService {
     }
 
     // GET /wallets/transactions (paginated)
+    // Offset pages are not cached: every money movement would invalidate all of them.
+    // Clients that scroll the history should use the cursor endpoint below.
     @Transactional(readOnly = true)
     public ApiResponse<ResponseDto.PagedResponse<WalletTransactionResponse>> getTransactions(UUID userId, Pageable pageable) {
-        String cacheKey = getWalletTxnsKey(userId, pageable);
-        @SuppressWarnings("unchecked")
-        ResponseDto.PagedResponse<WalletTransactionResponse> cached = (ResponseDto.PagedResponse<WalletTransactionResponse>) redisService.getValue(cacheKey);
-        if (cached != null) {
-            log.info("Cache hit for {}", cacheKey);
-            return ApiResponse.success(cached);
-        }
-
-        log.warn("Cache miss for {}. Running DB query.", cacheKey);
         Page<WalletTransaction> page = transactionRepository.findAllByWalletUserId(userId, pageable);
         Page<WalletTransactionResponse> dtoPage = page.map(this::mapToTxnResponse);
         
@@ -198,10 +173,45 @@ public class WalletService {
         
                 .last(dtoPage.isLast())
                 .build();
-        redisService.setValue(cacheKey, pagedResponse, 1, java.util.concurrent.TimeUnit.HOURS);
         return ApiResponse.success(pagedResponse);
     }
 
+    // GET /wallets/transactions/cursor?cursor=&size=
+    @Transactional(readOnly = true)
+    public ApiResponse<ResponseDto.CursorPagedResponse<WalletTransactionResponse>> getTransactionsByCursor(UUID userId, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        List<WalletTransactionResponse> rows;
+
+        if (cursor == null || cursor.isBlank()) {
+            rows = historyCache.readHead(userId, pageSize + 1);
+            if (rows != null) {
+                log.info("Cache hit for wallet history head of user {}", userId);
+            } else {
+                log.warn("Cache miss for wallet history head of user {}. Running DB query.", userId);
+                String generation = historyCache.readGeneration(userId);
+                rows = transactionRepository.findByWalletUserIdOrderByTransactionDateDescIdDesc(
+                                userId, Limit.of(Math.max(pageSize + 1, historyCache.getHeadSize())))
+                        .stream().map(this::mapToTxnResponse).collect(Collectors.toList());
+                historyCache.fillHead(userId, generation, rows);
+            }
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = transactionRepository.findByUserIdBefore(userId, LocalDateTime.parse(position[0]),
+                            UUID.fromString(position[1]), pageSize + 1)
+                    .stream().map(this::mapToTxnResponse).collect(Collectors.toList());
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<WalletTransactionResponse> content = hasMore ? rows.subList(0, pageSize) : rows;
+        WalletTransactionResponse last = content.isEmpty() ? null : content.get(content.size() - 1);
+        return ApiResponse.success(ResponseDto.CursorPagedResponse.<WalletTransactionResponse>builder()
+                .content(new ArrayList<>(content))
+                .size(pageSize)
+                .nextCursor(hasMore ? encodeCursor(last) : null)
+                .hasMore(hasMore)
+                .build());
+    }
+
     // POST /wallets/activate
     @Transactional
     public ApiResponse<WalletResponse> activateWallet(UUID userId, ActivateWalletRequest request) {
@@ -213,7 +223,7 @@ public class WalletService {
         if (!request.getNewPin().equals(request.getConfirmPin())) {
             throw new AppException(ErrorCode.PASSWORD_NOT_MATCH);
         }
-        wallet.setPinHash(passwordEncoder.encode(request.getNewPin()));
+        wallet.setPinHash(passwordHashingService.encode(request.getNewPin()));
         wallet.setActive(true);
         wallet = walletRepository.save(wallet);
 
@@ -228,8 +238,8 @@ public class WalletService {
                 .isActive(wallet.isActive())
                 .pinSet(wallet.getPinHash() != null)
     
-                .recentTransactions(transactionRepository.findByWalletId(wallet.getId(), PageRequest.of(0, 5))
-                        .map(this::mapToTxnResponse).getContent())
+                .recentTransactions(transactionRepository.findByWalletIdOrderByTransactionDateDescIdDesc(wallet.getId(), Limit.of(5))
+                        .stream().map(this::mapToTxnResponse).collect(Collectors.toList()))
                 .build();
     }
     private WalletTransactionResponse mapToTxnResponse(WalletTransaction txn) {
@@ -246,9 +256,32 @@ public class WalletService {
     }
 
 
+    static String encodeCursor(WalletTransactionResponse txn) {
+        String raw = txn.getTransactionDate() + "|" + txn.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException(cursor);
+            }
+            LocalDateTime.parse(position[0]);
+            UUID.fromString(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            log.warn("Invalid wallet history cursor: {}", cursor);
+            throw new AppException(ErrorCode.BAD_REQUEST);
+        }
+    }
+
+    // The history head is appended to by WalletLedgerService, so only the wallet summary is dropped.
+    // After commit: a read racing the transaction would otherwise re-cache the old balance
     private void evictWalletCache(UUID userId) {
-        log.info("Evicting wallet caches for user {}", userId);
-        redisService.deleteKey(getWalletKey(userId));
-        redisService.deleteKeysByPattern("wallet:txns:" + userId.toString() + ":*");
+        AfterCommit.run(() -> {
+            log.info("Evicting wallet caches for user {}", userId);
+            redisService.deleteKey(getWalletKey(userId));
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.nos.backend_api.benchmark;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Chạy các @Benchmark của một class từ một test JUnit (mvn -Pjmh test -Dtest=...).
+ * Số vòng warmup/đo, fork và số thread lấy từ annotation trên chính class benchmark.
+ */
+public final class JmhRunner {
+    private JmhRunner() {
+    }
+
+    public static Collection<RunResult> run(Class<?> benchmarkClass) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include("^" + benchmarkClass.getName().replace(".", "\\.") + "\\.")
+                .shouldFailOnError(true)
+                .build();
+        return new Runner(options).run();
+    }
+}
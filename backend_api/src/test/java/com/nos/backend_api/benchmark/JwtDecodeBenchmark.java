@@ -0,0 +1,107 @@
+package com.nos.backend_api.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nos.backend_api.configuration.CustomJwtDecoder;
+import com.nos.backend_api.services._system.RedisService;
+import com.nos.backend_api.services.user.TokenRevocationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Chi phí giải mã một access token: parse + verify HS256 ở mọi request (như trước khi có cache)
+ * so với CustomJwtDecoder khi token đã nằm trong cache. Cả hai nhánh của decoder đều kiểm tra thu hồi
+ * qua Bloom filter đã đồng bộ (không gọi Redis), giống một request thật.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecodeBenchmark {
+    private static final String SIGNER_KEY = "benchmark-signer-key-that-is-at-least-256-bits-long-for-hs256";
+
+    private NimbusJwtDecoder verifyingDecoder;
+    private CustomJwtDecoder cachingDecoder;
+    private String token;
+
+    @Test
+    void run() throws Exception {
+        JmhRunner.run(JwtDecodeBenchmark.class);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws JOSEException {
+        verifyingDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SIGNER_KEY.getBytes(), "HmacSHA256"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        // An empty revocation list, synced so checks stay in the local filter
+        TokenRevocationService revocations = new TokenRevocationService(mock(RedisService.class),
+                mock(JdbcTemplate.class), mock(RedisMessageListenerContainer.class), 100_000, 0.001);
+        revocations.resync();
+        cachingDecoder = new CustomJwtDecoder(SIGNER_KEY, 50_000, revocations, new SimpleMeterRegistry());
+        token = signToken();
+        cachingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt verifyEveryRequest() {
+        return verifyingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedDecoder() {
+        return cachingDecoder.decode(token);
+    }
+
+    // Same header and claims as AuthService.generateAccessToken
+    private static String signToken() throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("https://nos.com")
+                .issueTime(new Date())
+                .jwtID(UUID.randomUUID().toString())
+                .subject(UUID.randomUUID().toString())
+                .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                .claim("role", "USER")
+                .claim("email", "benchmark@example.com")
+                .claim("name", "Benchmark User")
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        jwt.sign(new MACSigner(SIGNER_KEY.getBytes()));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,76 @@
+package com.nos.backend_api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.nos.backend_api.services._system.PasswordHashingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Chi phí một lần băm/kiểm tra BCrypt theo work factor, để chọn app.security.bcrypt-strength từ số liệu:
+ * mỗi lần tăng strength thời gian gấp đôi, nhân với số lần login đồng thời cần chịu được.
+ * "viaHashingPool" đo thêm chi phí đi qua pool của PasswordHashingService.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({ "8", "10", "12" })
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashingService hashingService;
+    private String encoded;
+
+    @Test
+    void run() throws Exception {
+        JmhRunner.run(PasswordHashingBenchmark.class);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        // Daemon pool threads end with the fork, no shutdown needed
+        hashingService = new PasswordHashingService(new SimpleMeterRegistry(), strength, 1, 64, 60_000);
+        encoded = encoder.encode(PASSWORD);
+    }
+
+    // Register, reset password, set PIN
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    // Login, PIN check
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean matchesViaHashingPool() {
+        return hashingService.matches(PASSWORD, encoded);
+    }
+}
@@ -0,0 +1,98 @@
+package com.nos.backend_api.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.StringUtils;
+
+import com.nos.backend_api.services._system.CompiledTemplate;
+
+/**
+ * Render email order_success: cách cũ (String.replace lần lượt từng key trên toàn bộ template)
+ * so với CompiledTemplate.render (template tách sẵn, một lượt vào StringBuilder).
+ * Chạy thêm với -prof gc để so sánh lượng cấp phát mỗi lần render.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderBenchmark {
+    // Size of the {items} value, which dominates the rendered length
+    @Param({ "1", "20" })
+    public int items;
+
+    private String source;
+    private CompiledTemplate compiled;
+    private Map<String, Object> data;
+
+    @Test
+    void run() throws Exception {
+        JmhRunner.run(TemplateRenderBenchmark.class);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/email_templates/order_success.txt")) {
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        compiled = CompiledTemplate.compile(source);
+        // Same keys as OrderService puts in an ORDER_SUCCESS message
+        data = new HashMap<>();
+        data.put("userName", "Nguyễn Văn A");
+        data.put("orderId", UUID.randomUUID());
+        data.put("totalAmount", new BigDecimal("25990000.00"));
+        data.put("orderDate", LocalDateTime.now());
+        data.put("shippingAddress", "12 Nguyễn Huệ, Phường Bến Nghé, Quận 1, TP. Hồ Chí Minh");
+        data.put("items", IntStream.rangeClosed(1, items)
+                .mapToObj(i -> "- Laptop model " + i + " x 1: 25.990.000 VND")
+                .collect(Collectors.joining("\n")));
+    }
+
+    @Benchmark
+    public String replacePlaceholders() {
+        return replacePlaceholders(source, data);
+    }
+
+    @Benchmark
+    public String compiledRender() {
+        return compiled.render(data);
+    }
+
+    // NotificationService before templates were precompiled
+    private static String replacePlaceholders(String text, Map<String, Object> data) {
+        if (!StringUtils.hasText(text)) {
+            return text;
+        }
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String placeholder = "{" + entry.getKey() + "}";
+            text = text.replace(placeholder, String.valueOf(entry.getValue()));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,189 @@
+package com.nos.backend_api.benchmark;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Thông lượng ghi ví khi nhiều thread cùng nhắm vào ít ví: UPDATE nguyên tử của WalletLedgerService
+ * so với cách cũ đọc số dư, cộng trong Java rồi ghi lại với @Version (thử lại khi xung đột).
+ * Chia kết quả cho "wallets" để có thông lượng trên mỗi ví. Cần Docker (PostgreSQL qua Testcontainers).
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class WalletLedgerContentionBenchmark {
+    // Same statement as WalletRepository.applyDelta
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE wallets SET balance = balance + ?, updated_at = NOW() " +
+            "WHERE id = ? AND balance + ? >= 0 RETURNING balance";
+    private static final String APPEND_SQL =
+            "INSERT INTO wallet_transactions (id, wallet_id, transaction_type, transaction_status, amount, transaction_date) " +
+            "VALUES (?, ?, ?, 'COMPLETED', ?, NOW())";
+    private static final String READ_SQL = "SELECT balance, version FROM wallets WHERE id = ?";
+    private static final String WRITE_IF_VERSION_SQL =
+            "UPDATE wallets SET balance = ?, version = version + 1, updated_at = NOW() WHERE id = ? AND version = ?";
+    private static final int MAX_ATTEMPTS = 50;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({ "1", "8", "64" })
+    public int wallets;
+
+    private PostgreSQLContainer<?> postgres;
+    private HikariDataSource dataSource;
+    private List<UUID> walletIds;
+
+    @Test
+    void run() throws Exception {
+        assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is required for the ledger benchmark");
+        JmhRunner.run(WalletLedgerContentionBenchmark.class);
+    }
+
+    @Setup(Level.Trial)
+    public void startDatabase() throws SQLException {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(postgres.getJdbcUrl());
+        config.setUsername(postgres.getUsername());
+        config.setPassword(postgres.getPassword());
+        config.setMaximumPoolSize(16);
+        dataSource = new HikariDataSource(config);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // Only the columns both write paths touch, with the entity column names
+            statement.execute("CREATE TABLE wallets (id UUID PRIMARY KEY, balance NUMERIC(19, 2) NOT NULL CHECK (balance >= 0), " +
+                    "version BIGINT NOT NULL DEFAULT 0, updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW())");
+            statement.execute("CREATE TABLE wallet_transactions (id UUID PRIMARY KEY, wallet_id UUID NOT NULL REFERENCES wallets(id), " +
+                    "transaction_type TEXT NOT NULL, transaction_status TEXT NOT NULL, amount NUMERIC(19, 2) NOT NULL, " +
+                    "transaction_date TIMESTAMPTZ NOT NULL)");
+        }
+        walletIds = new ArrayList<>(wallets);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO wallets (id, balance) VALUES (?, 1000000)")) {
+            for (int i = 0; i < wallets; i++) {
+                UUID id = UUID.randomUUID();
+                insert.setObject(1, id);
+                insert.addBatch();
+                walletIds.add(id);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopDatabase() {
+        dataSource.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public BigDecimal atomicUpdate() throws SQLException {
+        UUID walletId = pickWallet();
+        boolean debit = ThreadLocalRandom.current().nextBoolean();
+        BigDecimal delta = debit ? AMOUNT.negate() : AMOUNT;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            BigDecimal balance;
+            try (PreparedStatement update = connection.prepareStatement(APPLY_DELTA_SQL)) {
+                update.setBigDecimal(1, delta);
+                update.setObject(2, walletId);
+                update.setBigDecimal(3, delta);
+                try (ResultSet rs = update.executeQuery()) {
+                    balance = rs.next() ? rs.getBigDecimal(1) : null;
+                }
+            }
+            append(connection, walletId, debit ? "WITHDRAWAL" : "DEPOSIT");
+            connection.commit();
+            return balance;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal optimisticReadModifyWrite() throws SQLException {
+        UUID walletId = pickWallet();
+        boolean debit = ThreadLocalRandom.current().nextBoolean();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                BigDecimal balance;
+                long version;
+                try (PreparedStatement read = connection.prepareStatement(READ_SQL)) {
+                    read.setObject(1, walletId);
+                    try (ResultSet rs = read.executeQuery()) {
+                        rs.next();
+                        balance = rs.getBigDecimal(1);
+                        version = rs.getLong(2);
+                    }
+                }
+                BigDecimal updated = debit ? balance.subtract(AMOUNT) : balance.add(AMOUNT);
+                int rows;
+                try (PreparedStatement write = connection.prepareStatement(WRITE_IF_VERSION_SQL)) {
+                    write.setBigDecimal(1, updated);
+                    write.setObject(2, walletId);
+                    write.setLong(3, version);
+                    rows = write.executeUpdate();
+                }
+                if (rows == 1) {
+                    append(connection, walletId, debit ? "WITHDRAWAL" : "DEPOSIT");
+                    connection.commit();
+                    return updated;
+                }
+                // Lost the race: same as an OptimisticLockException retried by @RetryOnConflict
+                connection.rollback();
+            }
+            throw new IllegalStateException("Retries exhausted on wallet " + walletId);
+        }
+    }
+
+    private void append(Connection connection, UUID walletId, String type) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(APPEND_SQL)) {
+            insert.setObject(1, UUID.randomUUID());
+            insert.setObject(2, walletId);
+            insert.setString(3, type);
+            insert.setBigDecimal(4, AMOUNT);
+            insert.executeUpdate();
+        }
+    }
+
+    private UUID pickWallet() {
+        return walletIds.get(ThreadLocalRandom.current().nextInt(walletIds.size()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.nos.backend_api.services._system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.data.domain.Limit;
+
+import com.nos.backend_api.DTO.data.enums.UserRole;
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.DTO.request.RequestDto.BroadcastRequest;
+import com.nos.backend_api.DTO.response.ResponseDto.BroadcastStatusResponse;
+import com.nos.backend_api.repositories.AccountRepository;
+import com.nos.backend_api.repositories.AccountRepository.BroadcastRecipient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BroadcastServiceTest {
+    private static final String LOCK_TOKEN = "token";
+    private static final UUID START = new UUID(0L, 0L);
+
+    private AccountRepository accountRepository;
+    private NotificationProducer notificationProducer;
+    private RedisService redisService;
+    private BroadcastService service;
+    private final AtomicReference<Object> storedJob = new AtomicReference<>();
+    private final List<BroadcastRecipient> recipients = List.of(recipient(1), recipient(2), recipient(3));
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        notificationProducer = mock(NotificationProducer.class);
+        redisService = mock(RedisService.class);
+        when(redisService.tryLock(eq(RedisData.BROADCAST_LOCK), anyLong(), any())).thenReturn(LOCK_TOKEN);
+        when(redisService.renewLock(eq(RedisData.BROADCAST_LOCK), eq(LOCK_TOKEN), anyLong(), any())).thenReturn(true);
+        when(redisService.getValue(RedisData.BROADCAST_JOB)).thenAnswer(invocation -> storedJob.get());
+        doAnswer(invocation -> {
+            storedJob.set(invocation.getArgument(1));
+            return null;
+        }).when(redisService).setValue(eq(RedisData.BROADCAST_JOB), any(), anyLong(), any());
+        service = new BroadcastService(accountRepository, notificationProducer, redisService, mock(AmqpAdmin.class),
+                new SimpleMeterRegistry(), 10, 0, 5000, 60_000, 3);
+    }
+
+    @Test
+    void checkpointsTheAckedPrefixOfAPartlyConfirmedBatch() {
+        givenRecipientsAfter(START, recipients);
+        givenRecipientsAfter(recipients.get(0).getId(), recipients.subList(1, 3));
+        when(notificationProducer.sendNotificationsConfirmed(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(true, false, true)),
+                        CompletableFuture.completedFuture(List.of(true, true)));
+
+        service.startBroadcast(request());
+        verify(redisService, timeout(5000)).releaseLock(RedisData.BROADCAST_LOCK, LOCK_TOKEN);
+
+        assertThat(job().getStatus()).isEqualTo("RUNNING");
+        assertThat(job().getLastAccountId()).isEqualTo(recipients.get(0).getId());
+        assertThat(job().getRecipientsQueued()).isEqualTo(1);
+
+        // The resume starts after the acked prefix and resets the attempt count
+        givenRecipientsAfter(recipients.get(2).getId(), List.of());
+        service.resumeInterruptedBroadcast();
+        verify(redisService, timeout(5000).times(2)).releaseLock(RedisData.BROADCAST_LOCK, LOCK_TOKEN);
+
+        assertThat(job().getStatus()).isEqualTo("COMPLETED");
+        assertThat(job().getRecipientsQueued()).isEqualTo(3);
+        assertThat(job().getUnconfirmedAttempts()).isZero();
+    }
+
+    @Test
+    void failsAfterTooManyUnconfirmedRunsAtTheSameCheckpoint() {
+        givenRecipientsAfter(START, recipients);
+        when(notificationProducer.sendNotificationsConfirmed(anyList()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(List.of(false, true, true)));
+
+        service.startBroadcast(request());
+        verify(redisService, timeout(5000)).releaseLock(RedisData.BROADCAST_LOCK, LOCK_TOKEN);
+        assertThat(job().getUnconfirmedAttempts()).isEqualTo(1);
+        for (int run = 2; run <= 3; run++) {
+            service.resumeInterruptedBroadcast();
+            verify(redisService, timeout(5000).times(run)).releaseLock(RedisData.BROADCAST_LOCK, LOCK_TOKEN);
+        }
+
+        assertThat(job().getStatus()).isEqualTo("FAILED");
+        assertThat(job().getUnconfirmedAttempts()).isEqualTo(3);
+        assertThat(job().getRecipientsQueued()).isZero();
+
+        // A failed job is not resumed again
+        service.resumeInterruptedBroadcast();
+        verify(redisService, timeout(5000).times(3)).tryLock(anyString(), anyLong(), any());
+    }
+
+    private void givenRecipientsAfter(UUID cursor, List<BroadcastRecipient> page) {
+        when(accountRepository.findActiveRecipientsAfter(eq(cursor), eq(UserRole.USER), any(Limit.class))).thenReturn(page);
+    }
+
+    private BroadcastStatusResponse job() {
+        return (BroadcastStatusResponse) storedJob.get();
+    }
+
+    private static BroadcastRequest request() {
+        return BroadcastRequest.builder().subject("Sale").message("Everything must go").build();
+    }
+
+    private static BroadcastRecipient recipient(long n) {
+        UUID id = new UUID(0L, n);
+        return new BroadcastRecipient() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + n + "@example.com";
+            }
+
+            @Override
+            public String getFullName() {
+                return "User " + n;
+            }
+        };
+    }
+}
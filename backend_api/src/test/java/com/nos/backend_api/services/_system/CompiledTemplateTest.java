@@ -0,0 +1,76 @@
+package com.nos.backend_api.services._system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.HtmlUtils;
+
+class CompiledTemplateTest {
+
+    @Test
+    void substitutesEveryOccurrence() {
+        CompiledTemplate template = CompiledTemplate.compile("Order #{orderId}: {orderId} for {userName}");
+
+        assertThat(template.render(Map.of("orderId", 42, "userName", "An")))
+                .isEqualTo("Order #42: 42 for An");
+    }
+
+    @Test
+    void keepsMissingKeysAsPlaceholders() {
+        CompiledTemplate template = CompiledTemplate.compile("Hi {userName}, code {otp}");
+
+        assertThat(template.render(Map.of("userName", "An"))).isEqualTo("Hi An, code {otp}");
+        assertThat(template.render(null)).isEqualTo("Hi {userName}, code {otp}");
+    }
+
+    @Test
+    void rendersNullValuesLikeStringValueOf() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("userName", null);
+
+        assertThat(CompiledTemplate.compile("Hi {userName}").render(data)).isEqualTo("Hi null");
+    }
+
+    @Test
+    void leavesEmptyBracesAndCssBlocksLiteral() {
+        String source = "<style>body { margin: 0; } p{color:#333}</style>{}<p>{message}</p>";
+
+        assertThat(CompiledTemplate.compile(source).render(Map.of("message", "ok")))
+                .isEqualTo("<style>body { margin: 0; } p{color:#333}</style>{}<p>ok</p>");
+    }
+
+    @Test
+    void findsAKeyRightAfterALiteralBrace() {
+        assertThat(CompiledTemplate.compile("{ {name}}").render(Map.of("name", "x"))).isEqualTo("{ x}");
+    }
+
+    @Test
+    void keepsAnUnclosedBraceLiteral() {
+        CompiledTemplate template = CompiledTemplate.compile("Total {amount} {currency");
+
+        assertThat(template.render(Map.of("amount", 10, "currency", "VND"))).isEqualTo("Total 10 {currency");
+    }
+
+    @Test
+    void escapesValuesButNotTheTemplate() {
+        CompiledTemplate template = CompiledTemplate.compile("<b>{userName}</b>");
+
+        assertThat(template.render(Map.of("userName", "<script>&\""), HtmlUtils::htmlEscape))
+                .isEqualTo("<b>&lt;script&gt;&amp;&quot;</b>");
+    }
+
+    @Test
+    void leavesMissingKeysUnescaped() {
+        assertThat(CompiledTemplate.compile("<b>{userName}</b>").render(Map.of(), HtmlUtils::htmlEscape))
+                .isEqualTo("<b>{userName}</b>");
+    }
+
+    @Test
+    void templateWithoutPlaceholdersRendersAsIs() {
+        assertThat(CompiledTemplate.compile("").render(Map.of("a", 1))).isEmpty();
+        assertThat(CompiledTemplate.compile("plain text").render(Map.of("a", 1))).isEqualTo("plain text");
+    }
+}
@@ -0,0 +1,64 @@
+package com.nos.backend_api.services._system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nos.backend_api.DTO.data.enums.SendEmailType;
+import com.rabbitmq.client.ConnectionFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NotificationProducerTest {
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationProducer producer;
+
+    // The publisher thread is never started, so enqueued messages stay in the buffer
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        producer = new NotificationProducer(
+                new CachingConnectionFactory(mock(ConnectionFactory.class)),
+                new ObjectMapper(), meterRegistry, 4, 100, 1000, 3, 0, 5000, 2);
+    }
+
+    @Test
+    void otherLanesCannotTakeTheSecurityReserve() {
+        assertThat(producer.sendNotification(message(SendEmailType.BROADCAST))).isTrue();
+        assertThat(producer.sendNotification(message(SendEmailType.ORDER_SUCCESS))).isTrue();
+
+        assertThat(producer.sendNotification(message(SendEmailType.BROADCAST))).isFalse();
+        assertThat(producer.sendNotification(message(SendEmailType.OTP))).isTrue();
+        assertThat(producer.sendNotification(message(SendEmailType.PASSWORD_RESET))).isTrue();
+        assertThat(meterRegistry.counter("notifications.publish", "outcome", "overflow").count()).isEqualTo(1);
+    }
+
+    @Test
+    void securityLaneReportsAFullBuffer() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(producer.sendNotification(message(SendEmailType.OTP))).isTrue();
+        }
+
+        assertThat(producer.sendNotification(message(SendEmailType.OTP))).isFalse();
+    }
+
+    @Test
+    void confirmedSendCompletesFalseForDroppedMessages() {
+        producer.sendNotification(message(SendEmailType.BROADCAST));
+        producer.sendNotification(message(SendEmailType.BROADCAST));
+
+        assertThat(producer.sendNotificationsConfirmed(List.of(message(SendEmailType.BROADCAST))))
+                .isCompletedWithValue(List.of(false));
+    }
+
+    private static NotificationProducer.EmailMessage message(SendEmailType type) {
+        return new NotificationProducer.EmailMessage("user@example.com", type, Map.of("otp", "123456"));
+    }
+}
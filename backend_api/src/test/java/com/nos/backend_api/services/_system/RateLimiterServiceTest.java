@@ -0,0 +1,133 @@
+package com.nos.backend_api.services._system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimiterServiceTest {
+    private static final int CAPACITY = 10;
+    private static final long PERIOD_SECONDS = 60;
+
+    private StringRedisTemplate redis;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void requestsABatchWithTheRefillRatePerMillisecond() {
+        givenScriptReturns(List.of(5L, 0L));
+
+        assertThat(limiter(60_000).tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isZero();
+
+        String refillPerMs = String.valueOf(CAPACITY / (PERIOD_SECONDS * 1000.0));
+        verify(redis).execute(any(RedisScript.class), eq(List.of(RedisData.RATE_LIMIT + ":login:ip")),
+                eq("10"), eq(refillPerMs), eq("5"), eq("0"));
+    }
+
+    @Test
+    void batchIsCappedAtCapacity() {
+        givenScriptReturns(List.of(10L, 0L));
+
+        limiter(60_000).tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 50);
+
+        verify(redis).execute(any(RedisScript.class), anyList(), any(), any(), eq("10"), eq("0"));
+    }
+
+    @Test
+    void leasedTokensServeLaterCallsLocally() {
+        givenScriptReturns(List.of(5L, 0L));
+        RateLimiterService limiter = limiter(60_000);
+
+        // One token for the first call, four left on the lease
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isZero();
+        }
+        verify(redis, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5);
+        verify(redis, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void expiredLeaseReturnsUnusedTokensExactlyOnce() {
+        givenScriptReturns(List.of(5L, 0L), List.of(1L, 0L), List.of(1L, 0L));
+        // A zero lease expires immediately, so the four leased tokens go back on the next call
+        RateLimiterService limiter = limiter(0);
+
+        limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5);
+        limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5);
+        limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5);
+
+        verify(redis).execute(any(RedisScript.class), anyList(), any(), any(), any(), eq("4"));
+        verify(redis, times(2)).execute(any(RedisScript.class), anyList(), any(), any(), any(), eq("0"));
+    }
+
+    @Test
+    void rejectionRoundsRetryAfterUpToSecondsAndBlocksLocally() {
+        givenScriptReturns(List.of(0L, 1500L));
+        RateLimiterService limiter = limiter(60_000);
+
+        assertThat(limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isEqualTo(2);
+        assertThat(limiter.tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isBetween(1L, 2L);
+
+        verify(redis, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        assertThat(meterRegistry.counter("ratelimit.requests", "limiter", "login", "outcome", "rejected", "source", "local").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void retryAfterIsAtLeastOneSecond() {
+        givenScriptReturns(List.of(0L, 0L));
+
+        assertThat(limiter(60_000).tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isEqualTo(1);
+    }
+
+    @Test
+    void bucketsAreKeyedByLimiterAndKey() {
+        givenScriptReturns(List.of(0L, 5000L), List.of(1L, 0L));
+        RateLimiterService limiter = limiter(60_000);
+
+        assertThat(limiter.tryAcquire("login", "ip-a", CAPACITY, PERIOD_SECONDS, 1)).isPositive();
+        assertThat(limiter.tryAcquire("login", "ip-b", CAPACITY, PERIOD_SECONDS, 1)).isZero();
+    }
+
+    @Test
+    void failsOpenWhenRedisIsDown() {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(limiter(60_000).tryAcquire("login", "ip", CAPACITY, PERIOD_SECONDS, 5)).isZero();
+        assertThat(meterRegistry.counter("ratelimit.requests", "limiter", "login", "outcome", "error", "source", "redis").count())
+                .isEqualTo(1);
+    }
+
+    private RateLimiterService limiter(long leaseMs) {
+        return new RateLimiterService(redis, meterRegistry, leaseMs, 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenScriptReturns(List<?> first, List<?>... next) {
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(first, (Object[]) next);
+    }
+}
@@ -0,0 +1,121 @@
+package com.nos.backend_api.services.user;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.nos.backend_api.DTO.data.redis_cache.RedisData;
+import com.nos.backend_api.services._system.RedisService;
+
+class TokenRevocationServiceTest {
+    private RedisService redisService;
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        redisService = mock(RedisService.class);
+        service = new TokenRevocationService(redisService, mock(JdbcTemplate.class),
+                mock(RedisMessageListenerContainer.class), 1000, 0.01);
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(10_000, 0.001);
+        List<String> ids = randomIds(10_000);
+        ids.forEach(filter::put);
+
+        assertThat(ids).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void bloomFilterFalsePositiveRateStaysNearTheConfiguredRate() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(10_000, 0.01);
+        randomIds(10_000).forEach(filter::put);
+
+        long falsePositives = randomIds(100_000).stream().filter(filter::mightContain).count();
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    void emptyBloomFilterContainsNothing() {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(1000, 0.001);
+
+        assertThat(randomIds(1000)).noneMatch(filter::mightContain);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        TokenRevocationService.BloomFilter filter = new TokenRevocationService.BloomFilter(40_000, 0.001);
+        List<List<String>> batches = List.of(randomIds(10_000), randomIds(10_000), randomIds(10_000), randomIds(10_000));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(batches.size())) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<String> batch : batches) {
+                futures.add(executor.submit(() -> batch.forEach(filter::put)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).allMatch(filter::mightContain));
+    }
+
+    @Test
+    void checksRedisUntilTheFirstSync() {
+        when(redisService.hasKey(RedisData.REVOKED_TOKEN + ":abc")).thenReturn(true);
+
+        assertThat(service.isRevoked("abc")).isTrue();
+    }
+
+    @Test
+    void skipsRedisForTokensTheSyncedFilterHasNeverSeen() {
+        when(redisService.scanKeys(RedisData.REVOKED_TOKEN + ":*", 1000))
+                .thenReturn(List.of(RedisData.REVOKED_TOKEN + ":revoked"));
+        service.resync();
+
+        assertThat(service.isRevoked("never-revoked")).isFalse();
+        verify(redisService, never()).hasKey(anyString());
+    }
+
+    @Test
+    void confirmsFilterHitsWithRedis() {
+        when(redisService.scanKeys(RedisData.REVOKED_TOKEN + ":*", 1000))
+                .thenReturn(List.of(RedisData.REVOKED_TOKEN + ":revoked"));
+        when(redisService.hasKey(RedisData.REVOKED_TOKEN + ":revoked")).thenReturn(true);
+        service.resync();
+
+        assertThat(service.isRevoked("revoked")).isTrue();
+    }
+
+    @Test
+    void failsOpenWhenRedisIsDown() {
+        when(redisService.hasKey(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertThat(service.isRevoked("abc")).isFalse();
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,72 @@
+package com.nos.backend_api.services.wallet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.nos.backend_api.DTO.response.ResponseDto.WalletTransactionResponse;
+import com.nos.backend_api.exceptions.AppException;
+import com.nos.backend_api.exceptions.ErrorCode;
+
+class WalletCursorTest {
+
+    @Test
+    void roundTripsTheKeysetPosition() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime date = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000);
+        String cursor = WalletService.encodeCursor(WalletTransactionResponse.builder().id(id).transactionDate(date).build());
+
+        String[] position = WalletService.decodeCursor(cursor);
+
+        assertThat(LocalDateTime.parse(position[0])).isEqualTo(date);
+        assertThat(UUID.fromString(position[1])).isEqualTo(id);
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = WalletService.encodeCursor(WalletTransactionResponse.builder()
+                .id(UUID.randomUUID()).transactionDate(LocalDateTime.now()).build());
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "not base64!", "bm8tc2VwYXJhdG9y" })
+    void rejectsMalformedCursors(String cursor) {
+        assertBadRequest(cursor);
+    }
+
+    @Test
+    void rejectsAnInvalidDate() {
+        assertBadRequest(encode("yesterday|" + UUID.randomUUID()));
+    }
+
+    @Test
+    void rejectsAnInvalidId() {
+        assertBadRequest(encode(LocalDateTime.now() + "|42"));
+    }
+
+    @Test
+    void rejectsExtraParts() {
+        assertBadRequest(encode(LocalDateTime.now() + "|" + UUID.randomUUID() + "|extra"));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadRequest(String cursor) {
+        assertThatThrownBy(() -> WalletService.decodeCursor(cursor))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,62 @@
+package com.nos.backend_api.services.wallet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.nos.backend_api.DTO.data.enums.TransactionType;
+
+class WalletLedgerServiceTest {
+
+    @Test
+    void creditsMoveTheBalanceUp() {
+        assertThat(WalletLedgerService.signedAmount(TransactionType.DEPOSIT, new BigDecimal("10.00")))
+                .isEqualByComparingTo("10.00");
+        assertThat(WalletLedgerService.signedAmount(TransactionType.REFUND, new BigDecimal("10.00")))
+                .isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void debitsMoveTheBalanceDown() {
+        assertThat(WalletLedgerService.signedAmount(TransactionType.WITHDRAWAL, new BigDecimal("10.00")))
+                .isEqualByComparingTo("-10.00");
+        assertThat(WalletLedgerService.signedAmount(TransactionType.PURCHASE, new BigDecimal("10.00")))
+                .isEqualByComparingTo("-10.00");
+    }
+
+    @Test
+    void signIsDerivedFromTheTypeWhateverTheInputSign() {
+        assertThat(WalletLedgerService.signedAmount(TransactionType.DEPOSIT, new BigDecimal("-10.00")))
+                .isEqualByComparingTo("10.00");
+        assertThat(WalletLedgerService.signedAmount(TransactionType.WITHDRAWAL, new BigDecimal("-10.00")))
+                .isEqualByComparingTo("-10.00");
+    }
+
+    @Test
+    void adjustmentKeepsItsSign() {
+        assertThat(WalletLedgerService.signedAmount(TransactionType.ADJUSTMENT, new BigDecimal("-3.50")))
+                .isEqualByComparingTo("-3.50");
+        assertThat(WalletLedgerService.signedAmount(TransactionType.ADJUSTMENT, new BigDecimal("3.50")))
+                .isEqualByComparingTo("3.50");
+    }
+
+    @Test
+    void storedAmountIsTheMagnitudeExceptForAdjustments() {
+        assertThat(WalletLedgerService.storedAmount(TransactionType.WITHDRAWAL, new BigDecimal("-10.00")))
+                .isEqualByComparingTo("10.00");
+        assertThat(WalletLedgerService.storedAmount(TransactionType.PURCHASE, new BigDecimal("10.00")))
+                .isEqualByComparingTo("10.00");
+        assertThat(WalletLedgerService.storedAmount(TransactionType.ADJUSTMENT, new BigDecimal("-3.50")))
+                .isEqualByComparingTo("-3.50");
+    }
+
+    @Test
+    void reversingADebitRestoresTheBalance() {
+        BigDecimal stored = WalletLedgerService.storedAmount(TransactionType.PURCHASE, new BigDecimal("25.00"));
+        BigDecimal reversal = WalletLedgerService.signedAmount(TransactionType.PURCHASE, stored).negate();
+        assertThat(WalletLedgerService.signedAmount(TransactionType.ADJUSTMENT, reversal))
+                .isEqualByComparingTo("25.00");
+    }
+}